@@ -13,40 +13,214 @@
  */
 package ch.qos.logback.classic;
 
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
 import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
 import ch.qos.logback.core.AsyncAppenderBase;
+import ch.qos.logback.core.async.DropCounter;
+import ch.qos.logback.core.util.Duration;
 
 /**
  * In order to optimize performance this appender deems events of level TRACE,
  * DEBUG and INFO as discardable. See the
  * <a href="http://logback.qos.ch/manual/appenders.html#AsyncAppender">chapter
  * on appenders</a> in the manual for further information.
- *
+ * <p>
+ * When the queue is above the discarding threshold, a fraction of discardable
+ * events can nevertheless be retained by setting the
+ * <code>traceSampleRate</code>, <code>debugSampleRate</code> and
+ * <code>infoSampleRate</code> properties to a value between 0 (the default,
+ * discard all) and 1 (discard none).
+ * <p>
+ * If the <code>dropSummaryInterval</code> property is set, events which were
+ * not queued are counted per logger and level. At each interval, a WARN event
+ * summarizing the losses of each logger and level is sent through this
+ * appender.
  *
  * @author Ceki G&uuml;lc&uuml;
  * @since 1.0.4
  */
 public class AsyncAppender extends AsyncAppenderBase<ILoggingEvent> {
 
+    static final String FQCN = AsyncAppender.class.getName();
+
+    static final int TRACE_INDEX = 0;
+    static final int DEBUG_INDEX = 1;
+    static final int INFO_INDEX = 2;
+    static final int WARN_INDEX = 3;
+    static final int ERROR_INDEX = 4;
+    static final Level[] LEVELS_BY_INDEX = { Level.TRACE, Level.DEBUG, Level.INFO, Level.WARN, Level.ERROR };
+
     boolean includeCallerData = false;
 
+    double traceSampleRate = 0;
+    double debugSampleRate = 0;
+    double infoSampleRate = 0;
+
+    Duration dropSummaryInterval;
+    final DropCounter dropCounter = new DropCounter(LEVELS_BY_INDEX.length);
+    ScheduledFuture<?> dropSummaryFuture;
+
     /**
-     * Events of level TRACE, DEBUG and INFO are deemed to be discardable.
-     * 
+     * Events of level TRACE, DEBUG and INFO are deemed to be discardable, unless
+     * retained by sampling.
+     *
      * @param event
-     * @return true if the event is of level TRACE, DEBUG or INFO false otherwise.
+     * @return true if the event is of level TRACE, DEBUG or INFO and was not
+     *         sampled, false otherwise.
      */
     protected boolean isDiscardable(ILoggingEvent event) {
         Level level = event.getLevel();
+        if (!isDiscardableLevel(level)) {
+            return false;
+        }
+        double sampleRate = sampleRateOf(level);
+        if (sampleRate <= 0) {
+            return true;
+        }
+        return ThreadLocalRandom.current().nextDouble() >= sampleRate;
+    }
+
+    /**
+     * Events of level TRACE, DEBUG and INFO are deemed discardable by this
+     * appender and by {@link PartitionedAsyncAppender}.
+     */
+    static boolean isDiscardableLevel(Level level) {
         return level.toInt() <= Level.INFO_INT;
     }
 
+    private double sampleRateOf(Level level) {
+        switch (level.toInt()) {
+        case Level.TRACE_INT:
+            return traceSampleRate;
+        case Level.DEBUG_INT:
+            return debugSampleRate;
+        case Level.INFO_INT:
+            return infoSampleRate;
+        default:
+            return 0;
+        }
+    }
+
+    static int levelIndex(Level level) {
+        switch (level.toInt()) {
+        case Level.TRACE_INT:
+            return TRACE_INDEX;
+        case Level.DEBUG_INT:
+            return DEBUG_INDEX;
+        case Level.INFO_INT:
+            return INFO_INDEX;
+        case Level.WARN_INT:
+            return WARN_INDEX;
+        default:
+            return ERROR_INDEX;
+        }
+    }
+
+    @Override
+    protected void discarded(ILoggingEvent event) {
+        if (dropSummaryInterval != null) {
+            dropCounter.record(event.getLoggerName(), levelIndex(event.getLevel()));
+        }
+    }
+
     protected void preprocess(ILoggingEvent eventObject) {
+        preprocess(eventObject, includeCallerData);
+    }
+
+    /**
+     * Prepare the event for processing on another thread, shared with
+     * {@link PartitionedAsyncAppender}.
+     */
+    static void preprocess(ILoggingEvent eventObject, boolean includeCallerData) {
         eventObject.prepareForDeferredProcessing();
         if (includeCallerData)
             eventObject.getCallerData();
     }
 
+    @Override
+    public void start() {
+        if (isStarted())
+            return;
+        if (!(isValidSampleRate(traceSampleRate) && isValidSampleRate(debugSampleRate)
+                && isValidSampleRate(infoSampleRate))) {
+            addError("Sample rates must be between 0 and 1.");
+            return;
+        }
+        super.start();
+        if (isStarted() && dropSummaryInterval != null) {
+            long millis = dropSummaryInterval.getMilliseconds();
+            if (millis <= 0) {
+                addWarn("Invalid dropSummaryInterval [" + dropSummaryInterval + "], summaries disabled.");
+                dropSummaryInterval = null;
+                return;
+            }
+            addInfo("Will summarize dropped events every " + dropSummaryInterval);
+            ScheduledExecutorService scheduledExecutorService = context.getScheduledExecutorService();
+            dropSummaryFuture = scheduledExecutorService.scheduleAtFixedRate(this::emitDropSummaries, millis, millis,
+                    TimeUnit.MILLISECONDS);
+            context.addScheduledFuture(dropSummaryFuture);
+        }
+    }
+
+    private boolean isValidSampleRate(double rate) {
+        return rate >= 0 && rate <= 1;
+    }
+
+    @Override
+    public void stop() {
+        if (!isStarted())
+            return;
+        if (dropSummaryFuture != null) {
+            dropSummaryFuture.cancel(false);
+            dropSummaryFuture = null;
+            // last summary, flushed by the worker along with the remaining events
+            emitDropSummaries();
+        }
+        super.stop();
+    }
+
+    /**
+     * Queue one summary event per logger and level which lost events since the
+     * previous invocation.
+     */
+    void emitDropSummaries() {
+        dropCounter.drain((loggerName, levelIndex, count) -> {
+            ILoggingEvent summary = buildDropSummary(loggerName, LEVELS_BY_INDEX[levelIndex], count);
+            if (summary == null || !offerDirectly(summary)) {
+                // try again at the next interval
+                dropCounter.add(loggerName, levelIndex, count);
+            }
+        });
+    }
+
+    ILoggingEvent buildDropSummary(String loggerName, Level droppedLevel, long count) {
+        if (!(context instanceof LoggerContext)) {
+            return null;
+        }
+        Logger logger = ((LoggerContext) context).getLogger(loggerName);
+        LoggingEvent le = new LoggingEvent(FQCN, logger, Level.WARN,
+                "{} {} event(s) dropped by appender [{}] within the last {}", null,
+                new Object[] { count, droppedLevel, getName(), dropSummaryInterval });
+        le.prepareForDeferredProcessing();
+        return le;
+    }
+
+    /**
+     * Returns the per logger and level counts of events which were not queued and
+     * not yet summarized. Only maintained if <code>dropSummaryInterval</code> is
+     * set.
+     *
+     * @since 1.5.7
+     */
+    public DropCounter getDropCounter() {
+        return dropCounter;
+    }
+
     public boolean isIncludeCallerData() {
         return includeCallerData;
     }
@@ -55,4 +229,60 @@ public class AsyncAppender extends AsyncAppenderBase<ILoggingEvent> {
         this.includeCallerData = includeCallerData;
     }
 
+    public double getTraceSampleRate() {
+        return traceSampleRate;
+    }
+
+    /**
+     * Fraction of TRACE events retained when the queue is above the discarding
+     * threshold.
+     *
+     * @since 1.5.7
+     */
+    public void setTraceSampleRate(double traceSampleRate) {
+        this.traceSampleRate = traceSampleRate;
+    }
+
+    public double getDebugSampleRate() {
+        return debugSampleRate;
+    }
+
+    /**
+     * Fraction of DEBUG events retained when the queue is above the discarding
+     * threshold.
+     *
+     * @since 1.5.7
+     */
+    public void setDebugSampleRate(double debugSampleRate) {
+        this.debugSampleRate = debugSampleRate;
+    }
+
+    public double getInfoSampleRate() {
+        return infoSampleRate;
+    }
+
+    /**
+     * Fraction of INFO events retained when the queue is above the discarding
+     * threshold.
+     *
+     * @since 1.5.7
+     */
+    public void setInfoSampleRate(double infoSampleRate) {
+        this.infoSampleRate = infoSampleRate;
+    }
+
+    public Duration getDropSummaryInterval() {
+        return dropSummaryInterval;
+    }
+
+    /**
+     * Sets the interval at which summaries of dropped events are emitted. By
+     * default, no summaries are emitted.
+     *
+     * @since 1.5.7
+     */
+    public void setDropSummaryInterval(Duration dropSummaryInterval) {
+        this.dropSummaryInterval = dropSummaryInterval;
+    }
+
 }
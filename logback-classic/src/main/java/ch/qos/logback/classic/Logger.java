@@ -58,6 +58,12 @@ public final class Logger
     // inherited form a parent.
     transient private int effectiveLevelInt;
 
+    // Requests of a level below this value are rejected without further ado. It
+    // equals effectiveLevelInt when the context has no turbo filters, as the
+    // latter may accept requests below the effective level, and
+    // Integer.MIN_VALUE otherwise.
+    transient private volatile int fastRejectLevelInt;
+
     /**
      * The parent of this category. All categories have at least one ancestor which
      * is the root category.
@@ -163,6 +169,7 @@ public final class Logger
         } else {
             effectiveLevelInt = newLevel.levelInt;
         }
+        updateFastRejectLevelInt();
 
         if (childrenList != null) {
             int len = childrenList.size();
@@ -187,6 +194,7 @@ public final class Logger
         // null
         if (level == null) {
             effectiveLevelInt = newParentLevelInt;
+            updateFastRejectLevelInt();
 
             // propagate the parent levelInt change to this logger's children
             if (childrenList != null) {
@@ -317,6 +325,7 @@ public final class Logger
         }
         childrenList.add(childLogger);
         childLogger.effectiveLevelInt = this.effectiveLevelInt;
+        childLogger.updateFastRejectLevelInt();
         return childLogger;
     }
 
@@ -327,6 +336,16 @@ public final class Logger
         } else {
             level = null;
         }
+        updateFastRejectLevelInt();
+    }
+
+    /**
+     * Recompute the level below which requests are rejected without consulting
+     * turbo filters. Invoked when the effective level changes and by the
+     * logger context when turbo filters are added or removed.
+     */
+    synchronized void updateFastRejectLevelInt() {
+        fastRejectLevelInt = loggerContext.hasTurboFilters() ? Integer.MIN_VALUE : effectiveLevelInt;
     }
 
     void recursiveReset() {
@@ -360,18 +379,25 @@ public final class Logger
         childLogger = new Logger(childName, this, this.loggerContext);
         childrenList.add(childLogger);
         childLogger.effectiveLevelInt = this.effectiveLevelInt;
+        childLogger.updateFastRejectLevelInt();
         return childLogger;
     }
 
     /**
      * The next methods are not merged into one because of the time we gain by not
      * creating a new Object[] with the params. This reduces the cost of not logging
-     * by about 20 nanoseconds.
+     * by about 20 nanoseconds. Absent turbo filters, the params array of the 1 and 2
+     * argument variants is created only once the request is known to be logged.
      */
 
     private void filterAndLog_0_Or3Plus(final String localFQCN, final Marker marker, final Level level,
             final String msg, final Object[] params, final Throwable t) {
 
+        // a single volatile read for disabled requests, turbo filters being absent
+        if (level.levelInt < fastRejectLevelInt) {
+            return;
+        }
+
         final FilterReply decision = loggerContext.getTurboFilterChainDecision_0_3OrMore(marker, this, level, msg,
                 params, t);
 
@@ -389,6 +415,11 @@ public final class Logger
     private void filterAndLog_1(final String localFQCN, final Marker marker, final Level level, final String msg,
             final Object param, final Throwable t) {
 
+        // a single volatile read for disabled requests, turbo filters being absent
+        if (level.levelInt < fastRejectLevelInt) {
+            return;
+        }
+
         final FilterReply decision = loggerContext.getTurboFilterChainDecision_1(marker, this, level, msg, param, t);
 
         if (decision == FilterReply.NEUTRAL) {
@@ -405,6 +436,11 @@ public final class Logger
     private void filterAndLog_2(final String localFQCN, final Marker marker, final Level level, final String msg,
             final Object param1, final Object param2, final Throwable t) {
 
+        // a single volatile read for disabled requests, turbo filters being absent
+        if (level.levelInt < fastRejectLevelInt) {
+            return;
+        }
+
         final FilterReply decision = loggerContext.getTurboFilterChainDecision_2(marker, this, level, msg, param1,
                 param2, t);
 
@@ -68,7 +68,7 @@ public class LoggerContext extends ContextBase implements ILoggerFactory, LifeCy
     private Map<String, Logger> loggerCache;
 
     private LoggerContextVO loggerContextRemoteView;
-    private final TurboFilterList turboFilterList = new TurboFilterList();
+    private final TurboFilterList turboFilterList = new TurboFilterList(this::updateFastRejectLevels);
     private boolean packagingDataEnabled = DEFAULT_PACKAGING_DATA;
     SequenceNumberGenerator sequenceNumberGenerator = null; // by default there is no SequenceNumberGenerator
 
@@ -164,6 +164,8 @@ public class LoggerContext extends ContextBase implements ILoggerFactory, LifeCy
                 if (childLogger == null) {
                     childLogger = logger.createChildByName(childName);
                     loggerCache.put(childName, childLogger);
+                    // catch up with turbo filters added before the logger was cached
+                    childLogger.updateFastRejectLevelInt();
                     incSize();
                 }
             }
@@ -254,6 +256,17 @@ public class LoggerContext extends ContextBase implements ILoggerFactory, LifeCy
         turboFilterList.clear();
     }
 
+    boolean hasTurboFilters() {
+        return !turboFilterList.isEmpty();
+    }
+
+    // invoked when turbo filters are added or removed
+    private void updateFastRejectLevels() {
+        for (Logger logger : loggerCache.values()) {
+            logger.updateFastRejectLevelInt();
+        }
+    }
+
     final FilterReply getTurboFilterChainDecision_0_3OrMore(final Marker marker, final Logger logger, final Level level,
             final String format, final Object[] params, final Throwable t) {
         if (turboFilterList.size() == 0) {
@@ -267,7 +280,7 @@ public class LoggerContext extends ContextBase implements ILoggerFactory, LifeCy
         if (turboFilterList.size() == 0) {
             return FilterReply.NEUTRAL;
         }
-        return turboFilterList.getTurboFilterChainDecision(marker, logger, level, format, new Object[] { param }, t);
+        return turboFilterList.getTurboFilterChainDecision_1(marker, logger, level, format, param, t);
     }
 
     final FilterReply getTurboFilterChainDecision_2(final Marker marker, final Logger logger, final Level level,
@@ -275,8 +288,7 @@ public class LoggerContext extends ContextBase implements ILoggerFactory, LifeCy
         if (turboFilterList.size() == 0) {
             return FilterReply.NEUTRAL;
         }
-        return turboFilterList.getTurboFilterChainDecision(marker, logger, level, format,
-                new Object[] { param1, param2 }, t);
+        return turboFilterList.getTurboFilterChainDecision_2(marker, logger, level, format, param1, param2, t);
     }
 
     // === start listeners ==============================================
@@ -0,0 +1,59 @@
+/*
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2024, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.classic;
+
+import ch.qos.logback.classic.async.LoggerNamePartitioner;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.PartitionedAsyncAppenderBase;
+import ch.qos.logback.core.async.Partitioner;
+
+/**
+ * A partitioned asynchronous appender for {@link ILoggingEvent}s. As in
+ * {@link AsyncAppender}, events of level TRACE, DEBUG and INFO are deemed
+ * discardable. By default, events are partitioned by logger name.
+ *
+ * @since 1.5.7
+ */
+public class PartitionedAsyncAppender extends PartitionedAsyncAppenderBase<ILoggingEvent> {
+
+    boolean includeCallerData = false;
+
+    /**
+     * Events of level TRACE, DEBUG and INFO are deemed to be discardable.
+     * 
+     * @param event
+     * @return true if the event is of level TRACE, DEBUG or INFO false otherwise.
+     */
+    protected boolean isDiscardable(ILoggingEvent event) {
+        return AsyncAppender.isDiscardableLevel(event.getLevel());
+    }
+
+    protected void preprocess(ILoggingEvent eventObject) {
+        AsyncAppender.preprocess(eventObject, includeCallerData);
+    }
+
+    @Override
+    protected Partitioner<ILoggingEvent> defaultPartitioner() {
+        return new LoggerNamePartitioner();
+    }
+
+    public boolean isIncludeCallerData() {
+        return includeCallerData;
+    }
+
+    public void setIncludeCallerData(boolean includeCallerData) {
+        this.includeCallerData = includeCallerData;
+    }
+
+}
@@ -0,0 +1,31 @@
+/*
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2024, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.classic.async;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.async.Partitioner;
+
+/**
+ * Partitions events by logger name, preserving the order of events emitted by
+ * any given logger.
+ *
+ * @since 1.5.7
+ */
+public class LoggerNamePartitioner implements Partitioner<ILoggingEvent> {
+
+    @Override
+    public int partition(ILoggingEvent event, int partitionCount) {
+        return Partitioner.partitionOf(event.getLoggerName(), partitionCount);
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2024, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.classic.async;
+
+import java.util.Map;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.async.Partitioner;
+
+/**
+ * Partitions events by the value of an MDC key, preserving the order of events
+ * sharing the same value. Events without a value go to partition 0.
+ *
+ * @since 1.5.7
+ */
+public class MDCKeyPartitioner implements Partitioner<ILoggingEvent> {
+
+    String key;
+
+    @Override
+    public int partition(ILoggingEvent event, int partitionCount) {
+        if (key == null) {
+            return 0;
+        }
+        Map<String, String> mdcMap = event.getMDCPropertyMap();
+        if (mdcMap == null) {
+            return 0;
+        }
+        return Partitioner.partitionOf(mdcMap.get(key), partitionCount);
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+}
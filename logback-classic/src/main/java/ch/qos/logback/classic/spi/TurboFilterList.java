@@ -13,7 +13,13 @@
  */
 package ch.qos.logback.classic.spi;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
 
 import org.slf4j.Marker;
 
@@ -24,13 +30,204 @@ import ch.qos.logback.core.spi.FilterReply;
 
 /**
  * Implementation of TurboFilterAttachable.
- * 
+ *
+ * <p>
+ * Decisions are made by iterating over a snapshot array of the filters, which
+ * is refreshed by each modification of the list. Note that modifications
+ * through {@link #subList(int, int) sub-lists} are not reflected in the
+ * snapshot. For requests with one or two parameters, filters which do not
+ * override {@link TurboFilter#decide1 decide1} or
+ * {@link TurboFilter#decide2 decide2} are passed an array of the parameters
+ * built at most once per request.
+ *
  * @author Ceki G&uuml;lc&uuml;
  */
 final public class TurboFilterList extends CopyOnWriteArrayList<TurboFilter> {
 
     private static final long serialVersionUID = 1L;
 
+    private static final TurboFilter[] EMPTY = new TurboFilter[0];
+    private static final Snapshot EMPTY_SNAPSHOT = new Snapshot(EMPTY);
+
+    // invoked after each modification which may add or remove filters
+    private final transient Runnable changeListener;
+
+    // guarded by this for writes
+    private transient volatile Snapshot snapshot = EMPTY_SNAPSHOT;
+
+    public TurboFilterList() {
+        this(null);
+    }
+
+    /**
+     * @param changeListener invoked after filters are added or removed, may be null
+     * @since 1.5.7
+     */
+    public TurboFilterList(Runnable changeListener) {
+        this.changeListener = changeListener;
+    }
+
+    // invoked while holding the lock on this list
+    private void refreshSnapshot() {
+        snapshot = new Snapshot(toArray(EMPTY));
+    }
+
+    // invoked after releasing the lock on this list
+    private <T> T changed(T result) {
+        if (changeListener != null) {
+            changeListener.run();
+        }
+        return result;
+    }
+
+    @Override
+    public boolean add(TurboFilter turboFilter) {
+        boolean result;
+        synchronized (this) {
+            result = super.add(turboFilter);
+            refreshSnapshot();
+        }
+        return changed(result);
+    }
+
+    @Override
+    public void add(int index, TurboFilter turboFilter) {
+        synchronized (this) {
+            super.add(index, turboFilter);
+            refreshSnapshot();
+        }
+        changed(null);
+    }
+
+    @Override
+    public boolean addIfAbsent(TurboFilter turboFilter) {
+        boolean result;
+        synchronized (this) {
+            result = super.addIfAbsent(turboFilter);
+            refreshSnapshot();
+        }
+        return changed(result);
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends TurboFilter> c) {
+        boolean result;
+        synchronized (this) {
+            result = super.addAll(c);
+            refreshSnapshot();
+        }
+        return changed(result);
+    }
+
+    @Override
+    public boolean addAll(int index, Collection<? extends TurboFilter> c) {
+        boolean result;
+        synchronized (this) {
+            result = super.addAll(index, c);
+            refreshSnapshot();
+        }
+        return changed(result);
+    }
+
+    @Override
+    public int addAllAbsent(Collection<? extends TurboFilter> c) {
+        int result;
+        synchronized (this) {
+            result = super.addAllAbsent(c);
+            refreshSnapshot();
+        }
+        return changed(result);
+    }
+
+    @Override
+    public TurboFilter set(int index, TurboFilter turboFilter) {
+        synchronized (this) {
+            TurboFilter previous = super.set(index, turboFilter);
+            refreshSnapshot();
+            return previous;
+        }
+    }
+
+    @Override
+    public TurboFilter remove(int index) {
+        TurboFilter result;
+        synchronized (this) {
+            result = super.remove(index);
+            refreshSnapshot();
+        }
+        return changed(result);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        boolean result;
+        synchronized (this) {
+            result = super.remove(o);
+            refreshSnapshot();
+        }
+        return changed(result);
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        boolean result;
+        synchronized (this) {
+            result = super.removeAll(c);
+            refreshSnapshot();
+        }
+        return changed(result);
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        boolean result;
+        synchronized (this) {
+            result = super.retainAll(c);
+            refreshSnapshot();
+        }
+        return changed(result);
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super TurboFilter> filter) {
+        boolean result;
+        synchronized (this) {
+            result = super.removeIf(filter);
+            refreshSnapshot();
+        }
+        return changed(result);
+    }
+
+    @Override
+    public void replaceAll(UnaryOperator<TurboFilter> operator) {
+        synchronized (this) {
+            super.replaceAll(operator);
+            refreshSnapshot();
+        }
+    }
+
+    @Override
+    public void sort(Comparator<? super TurboFilter> c) {
+        synchronized (this) {
+            super.sort(c);
+            refreshSnapshot();
+        }
+    }
+
+    @Override
+    public void clear() {
+        synchronized (this) {
+            super.clear();
+            refreshSnapshot();
+        }
+        changed(null);
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        refreshSnapshot();
+    }
+
     /**
      * Loop through the filters in the chain. As soon as a filter decides on ACCEPT
      * or DENY, then that value is returned. If all of the filters return NEUTRAL,
@@ -38,26 +235,86 @@ final public class TurboFilterList extends CopyOnWriteArrayList<TurboFilter> {
      */
     public FilterReply getTurboFilterChainDecision(final Marker marker, final Logger logger, final Level level,
             final String format, final Object[] params, final Throwable t) {
+        if (params == null) {
+            return getTurboFilterChainDecision_0(marker, logger, level, format, t);
+        }
+        final TurboFilter[] tfa = snapshot.filters;
+        for (int i = 0; i < tfa.length; i++) {
+            final FilterReply r = tfa[i].decide(marker, logger, level, format, params, t);
+            if (r == FilterReply.DENY || r == FilterReply.ACCEPT) {
+                return r;
+            }
+        }
+        return FilterReply.NEUTRAL;
+    }
 
-        final int size = size();
-        // if (size == 0) {
-        // return FilterReply.NEUTRAL;
-        // }
-        if (size == 1) {
-            try {
-                TurboFilter tf = get(0);
-                return tf.decide(marker, logger, level, format, params, t);
-            } catch (IndexOutOfBoundsException iobe) {
-                return FilterReply.NEUTRAL;
+    /**
+     * Same as {@link #getTurboFilterChainDecision(Marker, Logger, Level, String, Object[], Throwable)}
+     * for requests without parameters.
+     *
+     * @since 1.5.7
+     */
+    public FilterReply getTurboFilterChainDecision_0(final Marker marker, final Logger logger, final Level level,
+            final String format, final Throwable t) {
+        final TurboFilter[] tfa = snapshot.filters;
+        for (int i = 0; i < tfa.length; i++) {
+            final FilterReply r = tfa[i].decide0(marker, logger, level, format, t);
+            if (r == FilterReply.DENY || r == FilterReply.ACCEPT) {
+                return r;
             }
         }
+        return FilterReply.NEUTRAL;
+    }
+
+    /**
+     * Same as {@link #getTurboFilterChainDecision(Marker, Logger, Level, String, Object[], Throwable)}
+     * for requests with a single parameter, which is not wrapped in an array.
+     *
+     * @since 1.5.7
+     */
+    public FilterReply getTurboFilterChainDecision_1(final Marker marker, final Logger logger, final Level level,
+            final String format, final Object param, final Throwable t) {
+        final Snapshot current = snapshot;
+        final TurboFilter[] tfa = current.filters;
+        Object[] params = null;
+        for (int i = 0; i < tfa.length; i++) {
+            final FilterReply r;
+            if (current.overridesDecide1[i]) {
+                r = tfa[i].decide1(marker, logger, level, format, param, t);
+            } else {
+                if (params == null) {
+                    params = new Object[] { param };
+                }
+                r = tfa[i].decide(marker, logger, level, format, params, t);
+            }
+            if (r == FilterReply.DENY || r == FilterReply.ACCEPT) {
+                return r;
+            }
+        }
+        return FilterReply.NEUTRAL;
+    }
 
-        Object[] tfa = toArray();
-        final int len = tfa.length;
-        for (int i = 0; i < len; i++) {
-            // for (TurboFilter tf : this) {
-            final TurboFilter tf = (TurboFilter) tfa[i];
-            final FilterReply r = tf.decide(marker, logger, level, format, params, t);
+    /**
+     * Same as {@link #getTurboFilterChainDecision(Marker, Logger, Level, String, Object[], Throwable)}
+     * for requests with two parameters, which are not wrapped in an array.
+     *
+     * @since 1.5.7
+     */
+    public FilterReply getTurboFilterChainDecision_2(final Marker marker, final Logger logger, final Level level,
+            final String format, final Object param1, final Object param2, final Throwable t) {
+        final Snapshot current = snapshot;
+        final TurboFilter[] tfa = current.filters;
+        Object[] params = null;
+        for (int i = 0; i < tfa.length; i++) {
+            final FilterReply r;
+            if (current.overridesDecide2[i]) {
+                r = tfa[i].decide2(marker, logger, level, format, param1, param2, t);
+            } else {
+                if (params == null) {
+                    params = new Object[] { param1, param2 };
+                }
+                r = tfa[i].decide(marker, logger, level, format, params, t);
+            }
             if (r == FilterReply.DENY || r == FilterReply.ACCEPT) {
                 return r;
             }
@@ -65,16 +322,33 @@ final public class TurboFilterList extends CopyOnWriteArrayList<TurboFilter> {
         return FilterReply.NEUTRAL;
     }
 
-    // public boolean remove(TurboFilter turboFilter) {
-    // return tfList.remove(turboFilter);
-    // }
-    //
-    // public TurboFilter remove(int index) {
-    // return tfList.remove(index);
-    // }
-    //
-    // final public int size() {
-    // return tfList.size();
-    // }
+    /**
+     * The filters of the list, along with whether each of them overrides the
+     * arity specific variants of <code>decide</code>.
+     */
+    private static final class Snapshot {
+        final TurboFilter[] filters;
+        final boolean[] overridesDecide1;
+        final boolean[] overridesDecide2;
+
+        Snapshot(TurboFilter[] filters) {
+            this.filters = filters;
+            this.overridesDecide1 = new boolean[filters.length];
+            this.overridesDecide2 = new boolean[filters.length];
+            for (int i = 0; i < filters.length; i++) {
+                overridesDecide1[i] = overrides(filters[i], "decide1", Marker.class, Logger.class, Level.class,
+                        String.class, Object.class, Throwable.class);
+                overridesDecide2[i] = overrides(filters[i], "decide2", Marker.class, Logger.class, Level.class,
+                        String.class, Object.class, Object.class, Throwable.class);
+            }
+        }
 
+        private static boolean overrides(TurboFilter filter, String name, Class<?>... parameterTypes) {
+            try {
+                return filter.getClass().getMethod(name, parameterTypes).getDeclaringClass() != TurboFilter.class;
+            } catch (NoSuchMethodException e) {
+                return false;
+            }
+        }
+    }
 }
@@ -18,11 +18,18 @@ import org.slf4j.Marker;
 import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.Logger;
 import ch.qos.logback.core.spi.FilterReply;
+import ch.qos.logback.core.util.Duration;
 
 /**
  * 
  * See {@link http://logback.qos.ch/manual/filters.html#DuplicateMessageFilter}
  * for details.
+ *
+ * <p>
+ * Repetitions are counted in a sharded cache, without serializing logging
+ * threads. If the <code>timeWindow</code> property is set, repetitions of a
+ * message are counted per window instead of for as long as the message stays
+ * in the cache.
  * 
  * @author Ceki Gulcu
  * 
@@ -41,11 +48,15 @@ public class DuplicateMessageFilter extends TurboFilter {
     public int allowedRepetitions = DEFAULT_ALLOWED_REPETITIONS;
     public int cacheSize = DEFAULT_CACHE_SIZE;
 
-    private LRUMessageCache msgCache;
+    Duration timeWindow;
+    private long timeWindowMillis = 0;
+
+    private ShardedMessageCache msgCache;
 
     @Override
     public void start() {
-        msgCache = new LRUMessageCache(cacheSize);
+        timeWindowMillis = timeWindow == null ? 0 : timeWindow.getMilliseconds();
+        msgCache = new ShardedMessageCache(cacheSize, timeWindowMillis);
         super.start();
     }
 
@@ -58,7 +69,28 @@ public class DuplicateMessageFilter extends TurboFilter {
 
     @Override
     public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
-        int count = msgCache.getMessageCountAndThenIncrement(format);
+        return decide(format);
+    }
+
+    @Override
+    public FilterReply decide0(Marker marker, Logger logger, Level level, String format, Throwable t) {
+        return decide(format);
+    }
+
+    @Override
+    public FilterReply decide1(Marker marker, Logger logger, Level level, String format, Object param, Throwable t) {
+        return decide(format);
+    }
+
+    @Override
+    public FilterReply decide2(Marker marker, Logger logger, Level level, String format, Object param1,
+            Object param2, Throwable t) {
+        return decide(format);
+    }
+
+    private FilterReply decide(String format) {
+        long now = timeWindowMillis > 0 ? System.currentTimeMillis() : 0;
+        int count = msgCache.getMessageCountAndThenIncrement(format, now);
         if (count <= allowedRepetitions) {
             return FilterReply.NEUTRAL;
         } else {
@@ -87,4 +119,19 @@ public class DuplicateMessageFilter extends TurboFilter {
         this.cacheSize = cacheSize;
     }
 
+    public Duration getTimeWindow() {
+        return timeWindow;
+    }
+
+    /**
+     * If set, the repetitions of a message are counted anew once the given
+     * duration has elapsed since its first occurrence in the current window.
+     *
+     * @param timeWindow
+     * @since 1.5.7
+     */
+    public void setTimeWindow(Duration timeWindow) {
+        this.timeWindow = timeWindow;
+    }
+
 }
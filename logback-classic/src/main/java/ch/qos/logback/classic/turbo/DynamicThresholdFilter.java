@@ -135,6 +135,11 @@ public class DynamicThresholdFilter extends TurboFilter {
     private FilterReply onHigherOrEqual = FilterReply.NEUTRAL;
     private FilterReply onLower = FilterReply.DENY;
 
+    // bounds of the thresholds, including the default one. Requests outside of
+    // the bounds are decided without looking up the MDC.
+    private volatile int minThresholdInt = Level.ERROR_INT;
+    private volatile int maxThresholdInt = Level.ERROR_INT;
+
     /**
      * Get the MDC key whose value will be used as a level threshold
      * 
@@ -162,6 +167,7 @@ public class DynamicThresholdFilter extends TurboFilter {
 
     public void setDefaultThreshold(Level defaultThreshold) {
         this.defaultThreshold = defaultThreshold;
+        updateThresholdBounds();
     }
 
     /**
@@ -200,7 +206,22 @@ public class DynamicThresholdFilter extends TurboFilter {
             addError(mdcValueLevelPair.getValue() + " has been already set");
         } else {
             valueLevelMap.put(mdcValueLevelPair.getValue(), mdcValueLevelPair.getLevel());
+            updateThresholdBounds();
+        }
+    }
+
+    private void updateThresholdBounds() {
+        int min = defaultThreshold.levelInt;
+        int max = defaultThreshold.levelInt;
+        for (Level threshold : valueLevelMap.values()) {
+            // a pair without level falls back on the default threshold
+            if (threshold != null) {
+                min = Math.min(min, threshold.levelInt);
+                max = Math.max(max, threshold.levelInt);
+            }
         }
+        minThresholdInt = min;
+        maxThresholdInt = max;
     }
 
     /**
@@ -237,12 +258,39 @@ public class DynamicThresholdFilter extends TurboFilter {
     @Override
     public FilterReply decide(Marker marker, Logger logger, Level level, String s, Object[] objects,
             Throwable throwable) {
+        return decide(level);
+    }
 
-        String mdcValue = MDC.get(this.key);
+    @Override
+    public FilterReply decide0(Marker marker, Logger logger, Level level, String format, Throwable t) {
+        return decide(level);
+    }
+
+    @Override
+    public FilterReply decide1(Marker marker, Logger logger, Level level, String format, Object param, Throwable t) {
+        return decide(level);
+    }
+
+    @Override
+    public FilterReply decide2(Marker marker, Logger logger, Level level, String format, Object param1,
+            Object param2, Throwable t) {
+        return decide(level);
+    }
+
+    private FilterReply decide(Level level) {
         if (!isStarted()) {
             return FilterReply.NEUTRAL;
         }
 
+        // whatever the MDC value, the request is below or above its threshold
+        if (level.levelInt < minThresholdInt) {
+            return onLower;
+        }
+        if (level.levelInt >= maxThresholdInt) {
+            return onHigherOrEqual;
+        }
+
+        String mdcValue = MDC.get(this.key);
         Level levelAssociatedWithMDCValue = null;
         if (mdcValue != null) {
             levelAssociatedWithMDCValue = valueLevelMap.get(mdcValue);
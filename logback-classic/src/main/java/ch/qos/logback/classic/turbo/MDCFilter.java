@@ -63,10 +63,33 @@ public class MDCFilter extends MatchingFilter {
 
     @Override
     public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        return decide();
+    }
+
+    @Override
+    public FilterReply decide0(Marker marker, Logger logger, Level level, String format, Throwable t) {
+        return decide();
+    }
+
+    @Override
+    public FilterReply decide1(Marker marker, Logger logger, Level level, String format, Object param, Throwable t) {
+        return decide();
+    }
+
+    @Override
+    public FilterReply decide2(Marker marker, Logger logger, Level level, String format, Object param1,
+            Object param2, Throwable t) {
+        return decide();
+    }
 
+    private FilterReply decide() {
         if (!isStarted()) {
             return FilterReply.NEUTRAL;
         }
+        // no need to look up the MDC if the reply does not depend on it
+        if (onMatch == onMismatch) {
+            return onMatch;
+        }
 
         String value = MDC.get(MDCKey);
         if (this.value.equals(value)) {
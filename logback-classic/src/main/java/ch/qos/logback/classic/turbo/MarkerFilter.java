@@ -39,6 +39,26 @@ public class MarkerFilter extends MatchingFilter {
 
     @Override
     public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        return decide(marker);
+    }
+
+    @Override
+    public FilterReply decide0(Marker marker, Logger logger, Level level, String format, Throwable t) {
+        return decide(marker);
+    }
+
+    @Override
+    public FilterReply decide1(Marker marker, Logger logger, Level level, String format, Object param, Throwable t) {
+        return decide(marker);
+    }
+
+    @Override
+    public FilterReply decide2(Marker marker, Logger logger, Level level, String format, Object param1,
+            Object param2, Throwable t) {
+        return decide(marker);
+    }
+
+    private FilterReply decide(Marker marker) {
         if (!isStarted()) {
             return FilterReply.NEUTRAL;
         }
@@ -0,0 +1,343 @@
+/*
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2024, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.classic.turbo;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Marker;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.core.spi.FilterReply;
+import ch.qos.logback.core.util.Duration;
+
+/**
+ * Limits the throughput of logging requests with token buckets, one per logger
+ * name, marker or message format depending on the <code>keyType</code>
+ * property. The message format stands for the call site.
+ *
+ * <p>
+ * Each bucket holds up to <code>burst</code> tokens and is refilled at
+ * <code>ratePerSecond</code>. A request taking a token is left to the other
+ * filters and the logger level to decide, a request finding its bucket empty
+ * is denied. Requests below the effective level of their logger, as well as
+ * the <code>isXxxEnabled()</code> checks, do not take tokens. Requests without
+ * marker share a single bucket when keying by marker.
+ *
+ * <p>
+ * Buckets are lock-free, each being a single atomic value. At most
+ * <code>maxKeys</code> buckets are kept, keys beyond that limit share an
+ * overflow bucket until buckets of idle keys are discarded. Idle buckets are
+ * looked for at most once per refill interval, i.e. the time a bucket takes to
+ * regain one token.
+ *
+ * <p>
+ * If the <code>summaryInterval</code> property is set, denied requests are
+ * counted per bucket. At each interval, a WARN event summarizing the denials of
+ * each bucket is sent directly to the appenders of the logger of the last
+ * denied request, bypassing turbo filters.
+ *
+ * @since 1.5.7
+ */
+public class RateLimitingFilter extends TurboFilter {
+
+    static final String FQCN = RateLimitingFilter.class.getName();
+
+    /**
+     * What the buckets are keyed by.
+     */
+    public enum KeyType {
+        LOGGER, MARKER, FORMAT
+    }
+
+    public static final int DEFAULT_BURST = 100;
+    public static final double DEFAULT_RATE_PER_SECOND = 10;
+    public static final int DEFAULT_MAX_KEYS = 1000;
+
+    // key of the requests without marker or logger
+    static final String NO_KEY = "";
+
+    KeyType keyType = KeyType.LOGGER;
+    int burst = DEFAULT_BURST;
+    double ratePerSecond = DEFAULT_RATE_PER_SECOND;
+    int maxKeys = DEFAULT_MAX_KEYS;
+    Duration summaryInterval;
+
+    // the time taking one token and the advance in token consumption allowed
+    // over the refill rate, in nanoseconds
+    private long intervalNanos;
+    private long toleranceNanos;
+
+    final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private Bucket overflowBucket;
+    private final AtomicLong nextSweepNanos = new AtomicLong();
+    ScheduledFuture<?> summaryFuture;
+
+    @Override
+    public void start() {
+        if (burst < 1) {
+            addError("The burst property must be at least 1 for [" + getName() + "]");
+            return;
+        }
+        if (!(ratePerSecond > 0)) {
+            addError("The ratePerSecond property must be positive for [" + getName() + "]");
+            return;
+        }
+        if (maxKeys < 1) {
+            addError("The maxKeys property must be at least 1 for [" + getName() + "]");
+            return;
+        }
+        intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond));
+        toleranceNanos = intervalNanos * (burst - 1);
+        overflowBucket = new Bucket(nanoTime());
+        nextSweepNanos.set(nanoTime());
+        super.start();
+
+        if (summaryInterval != null) {
+            long millis = summaryInterval.getMilliseconds();
+            if (millis <= 0) {
+                addWarn("Invalid summaryInterval [" + summaryInterval + "], summaries disabled.");
+                summaryInterval = null;
+                return;
+            }
+            ScheduledExecutorService scheduledExecutorService = context.getScheduledExecutorService();
+            summaryFuture = scheduledExecutorService.scheduleAtFixedRate(this::emitSummaries, millis, millis,
+                    TimeUnit.MILLISECONDS);
+            context.addScheduledFuture(summaryFuture);
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (!isStarted()) {
+            return;
+        }
+        if (summaryFuture != null) {
+            summaryFuture.cancel(false);
+            summaryFuture = null;
+            emitSummaries();
+        }
+        buckets.clear();
+        super.stop();
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        return decide(marker, logger, level, format);
+    }
+
+    @Override
+    public FilterReply decide0(Marker marker, Logger logger, Level level, String format, Throwable t) {
+        return decide(marker, logger, level, format);
+    }
+
+    @Override
+    public FilterReply decide1(Marker marker, Logger logger, Level level, String format, Object param, Throwable t) {
+        return decide(marker, logger, level, format);
+    }
+
+    @Override
+    public FilterReply decide2(Marker marker, Logger logger, Level level, String format, Object param1,
+            Object param2, Throwable t) {
+        return decide(marker, logger, level, format);
+    }
+
+    private FilterReply decide(Marker marker, Logger logger, Level level, String format) {
+        // isXxxEnabled() checks come with a null format
+        if (!isStarted() || format == null) {
+            return FilterReply.NEUTRAL;
+        }
+        // requests which will not be logged anyway keep their tokens
+        if (logger != null && level.levelInt < logger.getEffectiveLevel().levelInt) {
+            return FilterReply.NEUTRAL;
+        }
+
+        long now = nanoTime();
+        Bucket bucket = getBucket(keyOf(marker, logger, format), now);
+        if (bucket.tryAcquire(now, intervalNanos, toleranceNanos)) {
+            return FilterReply.NEUTRAL;
+        }
+        if (summaryInterval != null) {
+            bucket.suppressed.incrementAndGet();
+            bucket.lastSuppressedLogger = logger;
+        }
+        return FilterReply.DENY;
+    }
+
+    private String keyOf(Marker marker, Logger logger, String format) {
+        switch (keyType) {
+        case MARKER:
+            return marker == null ? NO_KEY : marker.getName();
+        case FORMAT:
+            return format;
+        case LOGGER:
+        default:
+            return logger == null ? NO_KEY : logger.getName();
+        }
+    }
+
+    private Bucket getBucket(String key, long now) {
+        Bucket bucket = buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (buckets.size() >= maxKeys) {
+            if (!trySweep(now) || buckets.size() >= maxKeys) {
+                return overflowBucket;
+            }
+        }
+        return buckets.computeIfAbsent(key, k -> new Bucket(now));
+    }
+
+    // the full map is scanned at most once per refill interval, by a single
+    // thread, other requests for new keys go to the overflow bucket meanwhile
+    private boolean trySweep(long now) {
+        long next = nextSweepNanos.get();
+        if (now - next < 0 || !nextSweepNanos.compareAndSet(next, now + intervalNanos)) {
+            return false;
+        }
+        removeIdleBuckets(now);
+        return true;
+    }
+
+    // buckets back to their full burst without pending summary are not needed
+    private void removeIdleBuckets(long now) {
+        for (Iterator<Bucket> it = buckets.values().iterator(); it.hasNext();) {
+            Bucket bucket = it.next();
+            if (bucket.isFull(now) && bucket.suppressed.get() == 0) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Send one summary event per bucket which denied requests since the previous
+     * invocation.
+     */
+    void emitSummaries() {
+        buckets.forEach(this::emitSummary);
+        emitSummary(null, overflowBucket);
+    }
+
+    // a null key stands for the overflow bucket
+    private void emitSummary(String key, Bucket bucket) {
+        long count = bucket.suppressed.getAndSet(0);
+        Logger logger = bucket.lastSuppressedLogger;
+        if (count == 0 || logger == null) {
+            return;
+        }
+        String description = key == null ? "other keys" : keyType + " [" + key + "]";
+        LoggingEvent le = new LoggingEvent(FQCN, logger, Level.WARN,
+                "{} event(s) suppressed by [{}] for {} within the last {}", null,
+                new Object[] { count, getName(), description, summaryInterval });
+        logger.callAppenders(le);
+    }
+
+    // overridden in tests
+    long nanoTime() {
+        return System.nanoTime();
+    }
+
+    /**
+     * A token bucket, held as the time at which it would be back to its full
+     * burst had no token been taken since. A token can be taken as long as this
+     * time is no further in the future than the tolerance.
+     */
+    static final class Bucket {
+        final AtomicLong fullAtNanos;
+        final AtomicLong suppressed = new AtomicLong();
+        volatile Logger lastSuppressedLogger;
+
+        Bucket(long now) {
+            this.fullAtNanos = new AtomicLong(now);
+        }
+
+        boolean tryAcquire(long now, long intervalNanos, long toleranceNanos) {
+            while (true) {
+                long fullAt = fullAtNanos.get();
+                long base = fullAt - now > 0 ? fullAt : now;
+                if (base - now > toleranceNanos) {
+                    return false;
+                }
+                if (fullAtNanos.compareAndSet(fullAt, base + intervalNanos)) {
+                    return true;
+                }
+            }
+        }
+
+        boolean isFull(long now) {
+            return fullAtNanos.get() - now <= 0;
+        }
+    }
+
+    public KeyType getKeyType() {
+        return keyType;
+    }
+
+    /**
+     * What the buckets are keyed by, LOGGER by default.
+     */
+    public void setKeyType(KeyType keyType) {
+        this.keyType = keyType;
+    }
+
+    public int getBurst() {
+        return burst;
+    }
+
+    /**
+     * The number of requests a bucket lets through at once after being idle.
+     */
+    public void setBurst(int burst) {
+        this.burst = burst;
+    }
+
+    public double getRatePerSecond() {
+        return ratePerSecond;
+    }
+
+    /**
+     * The number of requests per second a bucket lets through in the long run.
+     */
+    public void setRatePerSecond(double ratePerSecond) {
+        this.ratePerSecond = ratePerSecond;
+    }
+
+    public int getMaxKeys() {
+        return maxKeys;
+    }
+
+    public void setMaxKeys(int maxKeys) {
+        this.maxKeys = maxKeys;
+    }
+
+    public Duration getSummaryInterval() {
+        return summaryInterval;
+    }
+
+    /**
+     * Sets the interval at which summaries of denied requests are emitted. By
+     * default, no summaries are emitted.
+     */
+    public void setSummaryInterval(Duration summaryInterval) {
+        this.summaryInterval = summaryInterval;
+    }
+}
@@ -120,6 +120,18 @@ public class ReconfigureOnChangeFilter extends TurboFilter {
         return FilterReply.NEUTRAL;
     }
 
+    // the parameters are not needed, do not wrap them in an array
+    @Override
+    public FilterReply decide1(Marker marker, Logger logger, Level level, String format, Object param, Throwable t) {
+        return decide(marker, logger, level, format, null, t);
+    }
+
+    @Override
+    public FilterReply decide2(Marker marker, Logger logger, Level level, String format, Object param1,
+            Object param2, Throwable t) {
+        return decide(marker, logger, level, format, null, t);
+    }
+
     // experiments indicate that even for CPU intensive applications with 200 or
     // more threads MASK
     // values in the order of 0xFFFF is appropriate
@@ -0,0 +1,193 @@
+/*
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2024, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.classic.turbo;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts message repetitions for {@link DuplicateMessageFilter} without a
+ * global lock.
+ *
+ * <p>
+ * Messages are spread over shards by hash. Within a shard, looking up a message
+ * already present and incrementing its count are lock-free. Inserting a new
+ * message locks its shard only, and once the shard is full, evicts a message
+ * following the CLOCK algorithm, an approximation of LRU: slots are visited in
+ * turn, recently used messages are given a second chance, the first message not
+ * used since the previous visit is evicted.
+ *
+ * <p>
+ * If a time window is set, the count of a message is reset once the window
+ * started by its first occurrence has elapsed. Counts are approximate under
+ * contention around resets and evictions.
+ *
+ * @since 1.5.7
+ */
+class ShardedMessageCache {
+
+    // shards are only created for caches holding at least this many messages per
+    // shard, so that small caches behave as a single LRU-like cache
+    static final int MIN_SHARD_CAPACITY = 16;
+    static final int MAX_SHARDS = 64;
+
+    final int cacheSize;
+    final long timeWindowMillis;
+    private final Shard[] shards;
+    private final int shardMask;
+
+    ShardedMessageCache(int cacheSize) {
+        this(cacheSize, 0);
+    }
+
+    /**
+     * @param cacheSize        the maximum number of messages, shared by all shards
+     * @param timeWindowMillis the period after which counts are reset, zero or less
+     *                         for never
+     */
+    ShardedMessageCache(int cacheSize, long timeWindowMillis) {
+        if (cacheSize < 1) {
+            throw new IllegalArgumentException("Cache size cannot be smaller than 1");
+        }
+        this.cacheSize = cacheSize;
+        this.timeWindowMillis = timeWindowMillis;
+
+        int wanted = Math.min(MAX_SHARDS, Runtime.getRuntime().availableProcessors() * 2);
+        int shardCount = Integer.highestOneBit(Math.max(1, Math.min(wanted, cacheSize / MIN_SHARD_CAPACITY)));
+        this.shards = new Shard[shardCount];
+        this.shardMask = shardCount - 1;
+        // spread the capacity over the shards, the first ones taking the remainder
+        for (int i = 0; i < shardCount; i++) {
+            int capacity = cacheSize / shardCount + (i < cacheSize % shardCount ? 1 : 0);
+            shards[i] = new Shard(capacity);
+        }
+    }
+
+    int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * Returns the number of previous occurrences of the message, in the current
+     * time window if any, and then counts this one.
+     */
+    int getMessageCountAndThenIncrement(String msg, long now) {
+        // don't insert null elements
+        if (msg == null) {
+            return 0;
+        }
+        int h = msg.hashCode();
+        Shard shard = shards[(h ^ (h >>> 16)) & shardMask];
+
+        Entry entry = shard.map.get(msg);
+        if (entry == null) {
+            entry = shard.insert(msg, now);
+            if (entry == null) {
+                // this occurrence created the entry
+                return 0;
+            }
+        }
+        // avoid writing to a shared cache line when the bit is already set
+        if (!entry.referenced) {
+            entry.referenced = true;
+        }
+        if (timeWindowMillis > 0) {
+            long start = entry.windowStart;
+            if (now - start >= timeWindowMillis) {
+                synchronized (entry) {
+                    if (entry.windowStart == start) {
+                        entry.windowStart = now;
+                        entry.count.set(0);
+                    }
+                }
+            }
+        }
+        return entry.count.getAndIncrement();
+    }
+
+    void clear() {
+        for (Shard shard : shards) {
+            shard.clear();
+        }
+    }
+
+    static final class Entry {
+        final String msg;
+        final AtomicInteger count = new AtomicInteger(1);
+        volatile boolean referenced;
+        volatile long windowStart;
+
+        Entry(String msg, long windowStart) {
+            this.msg = msg;
+            this.windowStart = windowStart;
+        }
+    }
+
+    static final class Shard {
+        final ConcurrentHashMap<String, Entry> map;
+        // guarded by this
+        final Entry[] slots;
+        int hand = 0;
+        int used = 0;
+
+        Shard(int capacity) {
+            this.map = new ConcurrentHashMap<>(capacity * 4 / 3 + 1);
+            this.slots = new Entry[capacity];
+        }
+
+        /**
+         * Inserts the message, returning null if this call inserted it or the entry
+         * inserted concurrently by another thread.
+         */
+        synchronized Entry insert(String msg, long now) {
+            Entry existing = map.get(msg);
+            if (existing != null) {
+                return existing;
+            }
+            int slot;
+            if (used < slots.length) {
+                slot = used++;
+            } else {
+                slot = evict();
+            }
+            Entry entry = new Entry(msg, now);
+            slots[slot] = entry;
+            map.put(msg, entry);
+            return null;
+        }
+
+        // invoked while holding the lock, when all slots are used
+        private int evict() {
+            while (true) {
+                Entry candidate = slots[hand];
+                int slot = hand;
+                hand = (hand + 1) % slots.length;
+                if (candidate.referenced) {
+                    candidate.referenced = false;
+                } else {
+                    map.remove(candidate.msg);
+                    return slot;
+                }
+            }
+        }
+
+        synchronized void clear() {
+            map.clear();
+            Arrays.fill(slots, null);
+            hand = 0;
+            used = 0;
+        }
+    }
+}
@@ -17,6 +17,7 @@ import org.slf4j.Marker;
 
 import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.TurboFilterList;
 import ch.qos.logback.core.spi.ContextAwareBase;
 import ch.qos.logback.core.spi.FilterReply;
 import ch.qos.logback.core.spi.LifeCycle;
@@ -53,6 +54,46 @@ public abstract class TurboFilter extends ContextAwareBase implements LifeCycle
     public abstract FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params,
             Throwable t);
 
+    /**
+     * Variant of {@link #decide(Marker, Logger, Level, String, Object[], Throwable)
+     * decide} for requests without parameters. Delegates to the former by
+     * default.
+     *
+     * @since 1.5.7
+     */
+    public FilterReply decide0(Marker marker, Logger logger, Level level, String format, Throwable t) {
+        return decide(marker, logger, level, format, null, t);
+    }
+
+    /**
+     * Variant of {@link #decide(Marker, Logger, Level, String, Object[], Throwable)
+     * decide} for requests with a single parameter. Delegates to the former by
+     * default, which requires wrapping the parameter in an array. Filters which
+     * can decide without the parameters should override this method. Filters
+     * which do not are invoked by {@link TurboFilterList} through
+     * <code>decide</code>, with an array shared along the chain.
+     *
+     * @since 1.5.7
+     */
+    public FilterReply decide1(Marker marker, Logger logger, Level level, String format, Object param, Throwable t) {
+        return decide(marker, logger, level, format, new Object[] { param }, t);
+    }
+
+    /**
+     * Variant of {@link #decide(Marker, Logger, Level, String, Object[], Throwable)
+     * decide} for requests with two parameters. Delegates to the former by
+     * default, which requires wrapping the parameters in an array. Filters which
+     * can decide without the parameters should override this method. Filters
+     * which do not are invoked by {@link TurboFilterList} through
+     * <code>decide</code>, with an array shared along the chain.
+     *
+     * @since 1.5.7
+     */
+    public FilterReply decide2(Marker marker, Logger logger, Level level, String format, Object param1,
+            Object param2, Throwable t) {
+        return decide(marker, logger, level, format, new Object[] { param1, param2 }, t);
+    }
+
     public void start() {
         this.start = true;
     }
@@ -22,6 +22,7 @@ module ch.qos.logback.classic {
   uses ch.qos.logback.classic.spi.Configurator;
 
   exports ch.qos.logback.classic;
+  exports ch.qos.logback.classic.async;
   exports ch.qos.logback.classic.boolex;
   exports ch.qos.logback.classic.encoder;
   exports ch.qos.logback.classic.filter;
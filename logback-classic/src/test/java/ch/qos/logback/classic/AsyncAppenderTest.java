@@ -20,6 +20,7 @@ import ch.qos.logback.core.UnsynchronizedAppenderBase;
 import ch.qos.logback.core.read.ListAppender;
 import ch.qos.logback.core.status.OnConsoleStatusListener;
 import ch.qos.logback.core.testUtil.RandomUtil;
+import ch.qos.logback.core.util.Duration;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.slf4j.MDC;
@@ -95,4 +96,57 @@ public class AsyncAppenderTest {
         StackTraceElement ste = e.getCallerData()[0];
         assertEquals(thisClassName, ste.getClassName());
     }
+
+    @Test
+    public void sampledEventsAreRetained() {
+        asyncAppender.addAppender(listAppender);
+        asyncAppender.setQueueSize(10);
+        // all DEBUG events are discardable
+        asyncAppender.setDiscardingThreshold(11);
+        asyncAppender.setDebugSampleRate(1.0);
+        asyncAppender.start();
+
+        for (int i = 0; i < 5; i++) {
+            asyncAppender.doAppend(builder.build(i));
+        }
+        asyncAppender.stop();
+
+        assertEquals(5, listAppender.list.size());
+        assertEquals(0, asyncAppender.getDiscardedCount());
+    }
+
+    @Test
+    public void invalidSampleRateShouldResultInNonStartedAppender() {
+        asyncAppender.addAppender(listAppender);
+        asyncAppender.setInfoSampleRate(1.5);
+        asyncAppender.start();
+        assertFalse(asyncAppender.isStarted());
+    }
+
+    @Test
+    public void droppedEventsAreSummarized() {
+        asyncAppender.setName("async");
+        asyncAppender.addAppender(listAppender);
+        asyncAppender.setQueueSize(10);
+        asyncAppender.setDiscardingThreshold(11);
+        asyncAppender.setDropSummaryInterval(Duration.buildByHours(1));
+        asyncAppender.start();
+
+        for (int i = 0; i < 5; i++) {
+            asyncAppender.doAppend(builder.build(i));
+        }
+        assertEquals(5, asyncAppender.getDiscardedCount());
+        assertEquals(5, asyncAppender.getDropCounter().get(thisClassName, AsyncAppender.DEBUG_INDEX));
+
+        // stopping emits the pending summary
+        asyncAppender.stop();
+
+        assertEquals(1, listAppender.list.size());
+        ILoggingEvent summary = listAppender.list.get(0);
+        assertEquals(Level.WARN, summary.getLevel());
+        assertEquals(thisClassName, summary.getLoggerName());
+        assertTrue(summary.getFormattedMessage().startsWith("5 DEBUG event(s) dropped by appender [async]"),
+                summary.getFormattedMessage());
+        assertEquals(0, asyncAppender.getDropCounter().get(thisClassName, AsyncAppender.DEBUG_INDEX));
+    }
 }
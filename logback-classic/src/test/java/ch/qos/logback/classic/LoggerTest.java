@@ -14,12 +14,16 @@
 package ch.qos.logback.classic;
 
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
 import java.util.List;
 
 import org.junit.jupiter.api.Test;
 import org.slf4j.LoggerFactory;
 
 import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.turbo.MarkerFilter;
 import ch.qos.logback.core.read.ListAppender;
 import ch.qos.logback.core.status.Status;
 import org.slf4j.spi.LoggingEventBuilder;
@@ -30,6 +34,7 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 public class LoggerTest {
 
@@ -232,4 +237,51 @@ public class LoggerTest {
         assertEquals(root.getEffectiveLevel(), child.getEffectiveLevel());
     }
 
+    @Test
+    public void disabledRequestsDoNotAllocate() throws Exception {
+        loggerTest.setLevel(Level.INFO);
+        assertNoAllocationPerRequest();
+    }
+
+    @Test
+    public void requestsDeniedByMarkerFilterDoNotAllocate() throws Exception {
+        MarkerFilter markerFilter = new MarkerFilter();
+        markerFilter.setMarker("BLUE");
+        markerFilter.setOnMismatch("DENY");
+        markerFilter.start();
+        lc.addTurboFilter(markerFilter);
+        assertNoAllocationPerRequest();
+    }
+
+    void assertNoAllocationPerRequest() throws Exception {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        Method getThreadAllocatedBytes;
+        try {
+            // com.sun.management is not required by this module, access it reflectively
+            getThreadAllocatedBytes = Class.forName("com.sun.management.ThreadMXBean")
+                    .getMethod("getThreadAllocatedBytes", long.class);
+        } catch (ReflectiveOperationException e) {
+            getThreadAllocatedBytes = null;
+        }
+        assumeTrue(getThreadAllocatedBytes != null && getThreadAllocatedBytes.getDeclaringClass().isInstance(threadMXBean));
+
+        Object arg = "arg";
+        int len = 100_000;
+        long threadId = Thread.currentThread().getId();
+        // the first round warms up the code paths
+        long allocated = 0;
+        for (int round = 0; round < 2; round++) {
+            long before = (Long) getThreadAllocatedBytes.invoke(threadMXBean, threadId);
+            for (int i = 0; i < len; i++) {
+                loggerTest.debug("hello");
+                loggerTest.debug("hello {}", arg);
+                loggerTest.debug("hello {} {}", arg, arg);
+                loggerTest.trace("hello {}", arg);
+            }
+            allocated = (Long) getThreadAllocatedBytes.invoke(threadMXBean, threadId) - before;
+        }
+        // measurement overhead aside, nothing is allocated per request
+        assertTrue(allocated < len, "allocated " + allocated + " bytes");
+    }
+
 }
@@ -20,15 +20,20 @@ import ch.qos.logback.classic.turbo.TurboFilter;
 import ch.qos.logback.core.read.ListAppender;
 import ch.qos.logback.core.spi.FilterReply;
 import ch.qos.logback.core.testUtil.RandomUtil;
+
+import java.util.ArrayList;
+import java.util.List;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.slf4j.MDC;
 import org.slf4j.Marker;
 import org.slf4j.MarkerFactory;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class TurboFilteringInLoggerTest {
@@ -180,6 +185,77 @@ public class TurboFilteringInLoggerTest {
         assertFalse(logger.isDebugEnabled(blueMarker));
     }
 
+    @Test
+    public void turboFiltersAddedAfterLoggerCreationAreConsulted() {
+        logger.setLevel(Level.INFO);
+        logger.debug("rejected by level");
+        assertEquals(0, listAppender.list.size());
+
+        addYesFilter();
+        logger.debug("accepted by filter {}", 1);
+        assertEquals(1, listAppender.list.size());
+    }
+
+    @Test
+    public void levelAppliesOnceTurboFiltersAreRemoved() {
+        addYesFilter();
+        logger.setLevel(Level.INFO);
+        logger.debug("accepted by filter {} {}", 1, 2);
+        assertEquals(1, listAppender.list.size());
+
+        loggerContext.getTurboFilterList().clear();
+        logger.debug("rejected by level {} {}", 1, 2);
+        assertEquals(1, listAppender.list.size());
+    }
+
+    @Test
+    public void parametersReachArrayBasedFilters() {
+        ParamsRecordingFilter filter = new ParamsRecordingFilter();
+        filter.start();
+        loggerContext.addTurboFilter(filter);
+
+        logger.debug("none");
+        logger.debug("one {}", "a");
+        logger.debug("two {} {}", "a", "b");
+        logger.debug("three {} {} {}", "a", "b", "c");
+        assertEquals(4, filter.paramsList.size());
+        assertEquals(null, filter.paramsList.get(0));
+        assertArrayEquals(new Object[] { "a" }, filter.paramsList.get(1));
+        assertArrayEquals(new Object[] { "a", "b" }, filter.paramsList.get(2));
+        assertArrayEquals(new Object[] { "a", "b", "c" }, filter.paramsList.get(3));
+    }
+
+    @Test
+    public void arrayBasedFiltersShareOneArrayPerRequest() {
+        ParamsRecordingFilter first = new ParamsRecordingFilter();
+        first.start();
+        loggerContext.addTurboFilter(first);
+        addAcceptBLUEFilter();
+        ParamsRecordingFilter second = new ParamsRecordingFilter();
+        second.start();
+        loggerContext.addTurboFilter(second);
+
+        logger.debug("one {}", "a");
+        logger.debug("two {} {}", "a", "b");
+        assertEquals(2, second.paramsList.size());
+        assertSame(first.paramsList.get(0), second.paramsList.get(0));
+        assertSame(first.paramsList.get(1), second.paramsList.get(1));
+    }
+
+    @Test
+    public void replacedFiltersAreNoLongerConsulted() {
+        addNoFilter();
+        logger.setLevel(Level.DEBUG);
+        logger.debug("denied {}", 1);
+        assertEquals(0, listAppender.list.size());
+
+        YesFilter yesFilter = new YesFilter();
+        yesFilter.start();
+        loggerContext.getTurboFilterList().set(0, yesFilter);
+        logger.debug("accepted {}", 2);
+        assertEquals(1, listAppender.list.size());
+    }
+
     @Test
     public void testLoggingContextReset() {
         addYesFilter();
@@ -212,4 +288,15 @@ class NoFilter extends TurboFilter {
     public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
         return FilterReply.DENY;
     }
-}
\ No newline at end of file
+}
+
+class ParamsRecordingFilter extends TurboFilter {
+
+    List<Object[]> paramsList = new ArrayList<>();
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        paramsList.add(params);
+        return FilterReply.NEUTRAL;
+    }
+}
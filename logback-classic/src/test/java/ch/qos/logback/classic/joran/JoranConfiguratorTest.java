@@ -19,6 +19,8 @@ import ch.qos.logback.classic.ClassicTestConstants;
 import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.Logger;
 import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.PartitionedAsyncAppender;
+import ch.qos.logback.classic.async.MDCKeyPartitioner;
 import ch.qos.logback.classic.joran.serializedModel.HardenedModelInputStream;
 import ch.qos.logback.classic.jul.JULHelper;
 import ch.qos.logback.classic.model.ConfigurationModel;
@@ -30,6 +32,8 @@ import ch.qos.logback.classic.turbo.TurboFilter;
 import ch.qos.logback.classic.util.LogbackMDCAdapter;
 import ch.qos.logback.core.ConsoleAppender;
 import ch.qos.logback.core.CoreConstants;
+import ch.qos.logback.core.async.QueueType;
+import ch.qos.logback.core.async.WaitStrategy;
 import ch.qos.logback.core.encoder.LayoutWrappingEncoder;
 import ch.qos.logback.core.joran.action.ParamAction;
 import ch.qos.logback.core.joran.spi.ActionException;
@@ -612,6 +616,44 @@ public class JoranConfiguratorTest {
         assertTrue(asyncAppender.isStarted());
     }
 
+    @Test
+    public void asyncAppenderWaitStrategies() throws JoranException {
+        configure(ClassicTestConstants.JORAN_INPUT_PREFIX + "async/waitStrategies.xml");
+
+        final AsyncAppender asyncAppender = (AsyncAppender) root.getAppender("ASYNC");
+        assertNotNull(asyncAppender);
+        assertTrue(asyncAppender.isStarted());
+        assertEquals(QueueType.RING_BUFFER, asyncAppender.getQueueType());
+        assertEquals(WaitStrategy.SPIN_PARK, asyncAppender.getConsumerWaitStrategy());
+        assertEquals(WaitStrategy.SPIN_YIELD, asyncAppender.getProducerWaitStrategy());
+        assertEquals(50, asyncAppender.getSpinTries());
+        assertEquals(20000, asyncAppender.getParkNanos());
+    }
+
+    @Test
+    public void partitionedAsyncAppender() throws JoranException {
+        configure(ClassicTestConstants.JORAN_INPUT_PREFIX + "async/partitioned.xml");
+
+        final PartitionedAsyncAppender appender = (PartitionedAsyncAppender) root.getAppender("PARTITIONED");
+        assertNotNull(appender);
+        assertTrue(appender.isStarted());
+        assertEquals(2, appender.getPartitionCount());
+        assertTrue(appender.isNeverBlock());
+        MDCKeyPartitioner partitioner = (MDCKeyPartitioner) appender.getPartitioner();
+        assertEquals("tenant", partitioner.getKey());
+
+        ListAppender<ILoggingEvent> list0 = (ListAppender<ILoggingEvent>) appender.getAppender("LIST0");
+        ListAppender<ILoggingEvent> list1 = (ListAppender<ILoggingEvent>) appender.getAppender("LIST1");
+        assertNotNull(list0);
+        assertNotNull(list1);
+
+        logger.debug("hello");
+        appender.stop();
+
+        assertEquals(1, list0.list.size());
+        assertEquals(1, list1.list.size());
+    }
+
     // https://jira.qos.ch/browse/LOGBACK-1570
     @Test
     public void missingPropertyErrorHandling() throws JoranException {
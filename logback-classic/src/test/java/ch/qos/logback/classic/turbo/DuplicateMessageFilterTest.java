@@ -14,6 +14,7 @@
 package ch.qos.logback.classic.turbo;
 
 import ch.qos.logback.core.spi.FilterReply;
+import ch.qos.logback.core.util.Duration;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -61,6 +62,19 @@ public class DuplicateMessageFilterTest {
         }
     }
 
+    @Test
+    public void timeWindow() throws InterruptedException {
+        DuplicateMessageFilter dmf = new DuplicateMessageFilter();
+        dmf.setAllowedRepetitions(0);
+        dmf.setTimeWindow(Duration.buildByMilliseconds(50));
+        dmf.start();
+        assertEquals(FilterReply.NEUTRAL, dmf.decide1(null, null, null, "x", "a", null));
+        assertEquals(FilterReply.DENY, dmf.decide2(null, null, null, "x", "a", "b", null));
+        Thread.sleep(100);
+        assertEquals(FilterReply.NEUTRAL, dmf.decide0(null, null, null, "x", null));
+        assertEquals(FilterReply.DENY, dmf.decide(null, null, null, "x", null, null));
+    }
+
     @Test
     // isXXXEnabled invokes decide with a null format
     // http://jira.qos.ch/browse/LBCLASSIC-134
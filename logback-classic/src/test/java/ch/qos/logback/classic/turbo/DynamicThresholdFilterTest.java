@@ -0,0 +1,91 @@
+/*
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2024, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.classic.turbo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.core.spi.FilterReply;
+import ch.qos.logback.core.testUtil.RandomUtil;
+
+public class DynamicThresholdFilterTest {
+
+    int diff = RandomUtil.getPositiveInt();
+    String key = "userId" + diff;
+
+    DynamicThresholdFilter filter = new DynamicThresholdFilter();
+
+    @BeforeEach
+    public void setUp() {
+        filter.setKey(key);
+        filter.setDefaultThreshold(Level.WARN);
+        filter.setOnHigherOrEqual(FilterReply.ACCEPT);
+        filter.setOnLower(FilterReply.DENY);
+        filter.addMDCValueLevelPair(pair("alice", Level.DEBUG));
+        filter.addMDCValueLevelPair(pair("bob", Level.INFO));
+        filter.start();
+        MDC.clear();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        MDC.clear();
+    }
+
+    MDCValueLevelPair pair(String value, Level level) {
+        MDCValueLevelPair pair = new MDCValueLevelPair();
+        pair.setValue(value);
+        pair.setLevel(level);
+        return pair;
+    }
+
+    FilterReply decide(Level level) {
+        return filter.decide(null, null, level, null, null, null);
+    }
+
+    @Test
+    public void thresholdDependsOnMDCValue() {
+        assertEquals(FilterReply.DENY, decide(Level.INFO));
+        assertEquals(FilterReply.ACCEPT, decide(Level.WARN));
+        MDC.put(key, "alice");
+        assertEquals(FilterReply.ACCEPT, decide(Level.DEBUG));
+        MDC.put(key, "bob");
+        assertEquals(FilterReply.DENY, decide(Level.DEBUG));
+        assertEquals(FilterReply.ACCEPT, decide(Level.INFO));
+    }
+
+    @Test
+    public void requestsOutsideOfThresholdBoundsIgnoreMDC() {
+        MDC.put(key, "alice");
+        assertEquals(FilterReply.DENY, decide(Level.TRACE));
+        assertEquals(FilterReply.ACCEPT, decide(Level.ERROR));
+    }
+
+    @Test
+    public void boundsFollowLaterConfiguration() {
+        MDC.put(key, "carol");
+        assertEquals(FilterReply.DENY, decide(Level.TRACE));
+        filter.addMDCValueLevelPair(pair("carol", Level.TRACE));
+        assertEquals(FilterReply.ACCEPT, decide(Level.TRACE));
+
+        MDC.remove(key);
+        filter.setDefaultThreshold(Level.TRACE);
+        assertEquals(FilterReply.ACCEPT, decide(Level.TRACE));
+    }
+}
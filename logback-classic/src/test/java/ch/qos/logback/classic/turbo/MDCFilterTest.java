@@ -82,4 +82,14 @@ public class MDCFilterTest {
         assertEquals(FilterReply.NEUTRAL, filter.decide(null, null, null, null, null, null));
     }
 
+    @Test
+    public void sameReplyOnMatchAndMismatch() {
+        filter.setOnMismatch("ACCEPT");
+        filter.start();
+        MDC.put(key, "other" + diff);
+        assertEquals(FilterReply.ACCEPT, filter.decide(null, null, null, null, null, null));
+        MDC.put(key, value);
+        assertEquals(FilterReply.ACCEPT, filter.decide(null, null, null, null, null, null));
+    }
+
 }
@@ -0,0 +1,203 @@
+/*
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2024, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.classic.turbo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import ch.qos.logback.core.spi.FilterReply;
+import ch.qos.logback.core.util.Duration;
+
+public class RateLimitingFilterTest {
+
+    LoggerContext loggerContext = new LoggerContext();
+    Logger a = loggerContext.getLogger("a");
+    Logger b = loggerContext.getLogger("b");
+    ListAppender<ILoggingEvent> listAppender = new ListAppender<>();
+
+    long now = 1_000_000_000L;
+    RateLimitingFilter filter = new RateLimitingFilter() {
+        @Override
+        long nanoTime() {
+            return now;
+        }
+    };
+
+    @BeforeEach
+    public void setUp() {
+        filter.setContext(loggerContext);
+        filter.setName("limiter");
+        filter.setBurst(3);
+        filter.setRatePerSecond(2);
+        listAppender.start();
+        loggerContext.getLogger(Logger.ROOT_LOGGER_NAME).addAppender(listAppender);
+    }
+
+    FilterReply decide(Logger logger, String format) {
+        return filter.decide1(null, logger, Level.INFO, format, "arg", null);
+    }
+
+    void advanceMillis(long millis) {
+        now += TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    @Test
+    public void burstThenRefillRate() {
+        filter.start();
+        for (int i = 0; i < 3; i++) {
+            assertEquals(FilterReply.NEUTRAL, decide(a, "x"));
+        }
+        assertEquals(FilterReply.DENY, decide(a, "x"));
+
+        // one token every 500 ms
+        advanceMillis(499);
+        assertEquals(FilterReply.DENY, decide(a, "x"));
+        advanceMillis(1);
+        assertEquals(FilterReply.NEUTRAL, decide(a, "x"));
+        assertEquals(FilterReply.DENY, decide(a, "x"));
+
+        // refilled up to the burst only
+        advanceMillis(10_000);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(FilterReply.NEUTRAL, decide(a, "x"));
+        }
+        assertEquals(FilterReply.DENY, decide(a, "x"));
+    }
+
+    @Test
+    public void bucketsPerLogger() {
+        filter.setBurst(1);
+        filter.start();
+        assertEquals(FilterReply.NEUTRAL, decide(a, "x"));
+        assertEquals(FilterReply.DENY, decide(a, "y"));
+        assertEquals(FilterReply.NEUTRAL, decide(b, "x"));
+    }
+
+    @Test
+    public void bucketsPerFormat() {
+        filter.setBurst(1);
+        filter.setKeyType(RateLimitingFilter.KeyType.FORMAT);
+        filter.start();
+        assertEquals(FilterReply.NEUTRAL, decide(a, "x"));
+        assertEquals(FilterReply.DENY, decide(b, "x"));
+        assertEquals(FilterReply.NEUTRAL, decide(a, "y"));
+    }
+
+    @Test
+    public void bucketsPerMarker() {
+        filter.setBurst(1);
+        filter.setKeyType(RateLimitingFilter.KeyType.MARKER);
+        filter.start();
+        Marker blue = MarkerFactory.getMarker("BLUE");
+        Marker red = MarkerFactory.getMarker("RED");
+        assertEquals(FilterReply.NEUTRAL, filter.decide0(blue, a, Level.INFO, "x", null));
+        assertEquals(FilterReply.DENY, filter.decide0(blue, b, Level.INFO, "y", null));
+        assertEquals(FilterReply.NEUTRAL, filter.decide0(red, a, Level.INFO, "x", null));
+        assertEquals(FilterReply.NEUTRAL, filter.decide0(null, a, Level.INFO, "x", null));
+        assertEquals(FilterReply.DENY, filter.decide0(null, b, Level.INFO, "x", null));
+    }
+
+    @Test
+    public void disabledRequestsAndEnabledChecksKeepTokens() {
+        filter.setBurst(1);
+        filter.start();
+        a.setLevel(Level.INFO);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(FilterReply.NEUTRAL, filter.decide1(null, a, Level.DEBUG, "x", "arg", null));
+            assertEquals(FilterReply.NEUTRAL, filter.decide0(null, a, Level.INFO, null, null));
+        }
+        assertEquals(FilterReply.NEUTRAL, decide(a, "x"));
+        assertEquals(FilterReply.DENY, decide(a, "x"));
+    }
+
+    @Test
+    public void keysBeyondMaxKeysShareOverflowBucket() {
+        filter.setBurst(1);
+        filter.setMaxKeys(1);
+        filter.start();
+        Logger c = loggerContext.getLogger("c");
+        assertEquals(FilterReply.NEUTRAL, decide(a, "x"));
+        assertEquals(FilterReply.NEUTRAL, decide(b, "x"));
+        assertEquals(FilterReply.DENY, decide(c, "x"));
+
+        // the bucket of "a" is discarded once full again
+        advanceMillis(10_000);
+        assertEquals(FilterReply.NEUTRAL, decide(c, "x"));
+        assertEquals(FilterReply.DENY, decide(c, "x"));
+    }
+
+    @Test
+    public void idleBucketsAreLookedForOncePerRefillInterval() {
+        filter.setBurst(1);
+        filter.setMaxKeys(1);
+        filter.start();
+        Logger c = loggerContext.getLogger("c");
+        assertEquals(FilterReply.NEUTRAL, decide(a, "x"));
+        advanceMillis(100);
+        // looks for idle buckets in vain, "b" takes the token of the overflow bucket
+        assertEquals(FilterReply.NEUTRAL, decide(b, "x"));
+
+        // the bucket of "a" is full again but no look is due before 500 ms
+        advanceMillis(400);
+        assertEquals(FilterReply.DENY, decide(c, "x"));
+        advanceMillis(100);
+        assertEquals(FilterReply.NEUTRAL, decide(c, "x"));
+        assertEquals(FilterReply.DENY, decide(c, "x"));
+    }
+
+    @Test
+    public void suppressedRequestsAreSummarized() {
+        filter.setBurst(1);
+        filter.setSummaryInterval(Duration.buildByMinutes(1));
+        filter.start();
+        loggerContext.addTurboFilter(filter);
+
+        a.info("x {}", 1);
+        a.info("x {}", 2);
+        a.info("x {}", 3);
+        b.info("y");
+        assertEquals(2, listAppender.list.size());
+
+        filter.emitSummaries();
+        assertEquals(3, listAppender.list.size());
+        ILoggingEvent summary = listAppender.list.get(2);
+        assertEquals(Level.WARN, summary.getLevel());
+        assertEquals("a", summary.getLoggerName());
+        assertEquals("2 event(s) suppressed by [limiter] for LOGGER [a] within the last 1 minutes",
+                summary.getFormattedMessage());
+
+        // counts are reset by each summary
+        filter.emitSummaries();
+        assertEquals(3, listAppender.list.size());
+    }
+
+    @Test
+    public void invalidBurst() {
+        filter.setBurst(0);
+        filter.start();
+        assertFalse(filter.isStarted());
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2024, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.classic.turbo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+
+import org.junit.jupiter.api.Test;
+
+public class ShardedMessageCacheTest {
+
+    @Test
+    public void leastRecentlyUsedEntriesAreEvicted() {
+        ShardedMessageCache cache = new ShardedMessageCache(2);
+        assertEquals(1, cache.getShardCount());
+        assertEquals(0, cache.getMessageCountAndThenIncrement("0", 0));
+        assertEquals(0, cache.getMessageCountAndThenIncrement("1", 0));
+        assertEquals(1, cache.getMessageCountAndThenIncrement("1", 0));
+        // "0" was not used since its insertion
+        assertEquals(0, cache.getMessageCountAndThenIncrement("2", 0));
+        assertEquals(2, cache.getMessageCountAndThenIncrement("1", 0));
+        assertEquals(0, cache.getMessageCountAndThenIncrement("0", 0));
+    }
+
+    @Test
+    public void largeCachesAreSharded() {
+        int cacheSize = 100 * ShardedMessageCache.MIN_SHARD_CAPACITY;
+        ShardedMessageCache cache = new ShardedMessageCache(cacheSize);
+        int expectedShards = Integer.highestOneBit(
+                Math.min(ShardedMessageCache.MAX_SHARDS, Runtime.getRuntime().availableProcessors() * 2));
+        assertEquals(expectedShards, cache.getShardCount());
+        for (int i = 0; i < cacheSize; i++) {
+            cache.getMessageCountAndThenIncrement("m" + i, 0);
+        }
+        // messages not exceeding the capacity of their shard are all retained
+        int retained = 0;
+        for (int i = 0; i < cacheSize; i++) {
+            if (cache.getMessageCountAndThenIncrement("m" + i, 0) == 1) {
+                retained++;
+            }
+        }
+        assertTrue(retained > cacheSize / 2, "retained " + retained);
+    }
+
+    @Test
+    public void countsAreResetAfterTimeWindow() {
+        ShardedMessageCache cache = new ShardedMessageCache(10, 1000);
+        assertEquals(0, cache.getMessageCountAndThenIncrement("a", 0));
+        assertEquals(1, cache.getMessageCountAndThenIncrement("a", 500));
+        assertEquals(2, cache.getMessageCountAndThenIncrement("a", 999));
+        assertEquals(0, cache.getMessageCountAndThenIncrement("a", 1000));
+        assertEquals(1, cache.getMessageCountAndThenIncrement("a", 1500));
+        assertEquals(0, cache.getMessageCountAndThenIncrement("a", 2000));
+    }
+
+    @Test
+    public void concurrentIncrementsAreNotLost() throws Exception {
+        ShardedMessageCache cache = new ShardedMessageCache(100);
+        int threadCount = 4;
+        int len = 10_000;
+        CyclicBarrier barrier = new CyclicBarrier(threadCount);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < threadCount; t++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    barrier.await();
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+                for (int i = 0; i < len; i++) {
+                    cache.getMessageCountAndThenIncrement("msg" + (i % 10), 0);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (int i = 0; i < 10; i++) {
+            assertEquals(threadCount * len / 10, cache.getMessageCountAndThenIncrement("msg" + i, 0));
+        }
+    }
+}
@@ -13,15 +13,25 @@
  */
 package ch.qos.logback.core;
 
+import ch.qos.logback.core.async.BatchSizeHistogram;
+import ch.qos.logback.core.async.DirectByteRingBuffer;
+import ch.qos.logback.core.async.QueueType;
+import ch.qos.logback.core.async.WaitStrategy;
 import ch.qos.logback.core.spi.AppenderAttachable;
 import ch.qos.logback.core.spi.AppenderAttachableImpl;
+import ch.qos.logback.core.spi.FilterReply;
+import ch.qos.logback.core.util.FileSize;
+import ch.qos.logback.core.util.FileUtil;
 import ch.qos.logback.core.util.InterruptUtil;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Iterator;
-import java.util.List;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * This appender and derived classes, log events asynchronously. In order to
@@ -31,7 +41,41 @@ import java.util.concurrent.BlockingQueue;
  * <p>
  * This appender buffers events in a {@link BlockingQueue}. {@link Worker}
  * thread created by this appender takes events from the head of the queue, and
- * dispatches them to the single appender attached to this appender.
+ * dispatches them to the single appender attached to this appender. If the
+ * attached appender implements {@link BatchAppender}, events are dispatched in
+ * batches rather than one by one.
+ * <p>
+ * The kind of queue is set by the {@link #setQueueType(QueueType) queueType}
+ * property. By default, an {@link ArrayBlockingQueue} is used. With
+ * {@link QueueType#RING_BUFFER}, producers enqueue into a lock-free ring buffer
+ * which is drained in batches by the worker.
+ * <p>
+ * The way the worker waits for events and the way producers wait for free
+ * capacity (when <code>neverBlock</code> is false) are set by the
+ * {@link #setConsumerWaitStrategy(WaitStrategy) consumerWaitStrategy} and
+ * {@link #setProducerWaitStrategy(WaitStrategy) producerWaitStrategy}
+ * properties. Both default to {@link WaitStrategy#BLOCKING}.
+ * <p>
+ * If the {@link #setOffHeapBufferSize(FileSize) offHeapBufferSize} property is
+ * set, the attached appender must be an {@link OutputStreamAppender}. Events
+ * are then encoded by its encoder on the logging thread and the resulting bytes
+ * are queued in a {@link DirectByteRingBuffer} of that size, outside of the
+ * heap. The worker writes the bytes as is, in chunks. Heap usage thus does not
+ * grow with the number of queued events. The queue size still bounds the number
+ * of queued events. Wait strategies do not apply to this mode.
+ * <p>
+ * In off-heap mode, an overflow tier can be added by setting the
+ * {@link #setSpillFile(String) spillFile} property. Once the off-heap buffer
+ * is full, encoded events are appended to this file, mapped in memory and
+ * bounded by {@link #setMaxSpillSize(FileSize) maxSpillSize}. Spilled events
+ * are written after the events already in the off-heap buffer and, until the
+ * spill file is empty again, new events are spilled as well so that order is
+ * preserved. Logging threads never block when a spill file is set; events are
+ * discarded only when the spill file is full as well. The spill file is deleted
+ * when this appender stops, events left in it once <code>maxFlushTime</code>
+ * has elapsed are lost and their number reported. The file is not unmapped
+ * explicitly, the mapping is released once garbage collected. On platforms
+ * which do not allow deleting a mapped file, a warning is reported instead.
  * <p>
  * Please refer to the
  * <a href="http://logback.qos.ch/manual/appenders.html#AsyncAppender">logback
@@ -48,18 +92,76 @@ public class AsyncAppenderBase<E> extends UnsynchronizedAppenderBase<E> implemen
     AppenderAttachableImpl<E> aai = new AppenderAttachableImpl<E>();
     BlockingQueue<E> blockingQueue;
 
+    FileSize offHeapBufferSize;
+    DirectByteRingBuffer byteRing;
+    OutputStreamAppender<E> encodingAppender;
+
+    String spillFile;
+    /**
+     * The default maximum size of the spill file.
+     */
+    public static final FileSize DEFAULT_MAX_SPILL_SIZE = new FileSize(64 * FileSize.MB_COEFFICIENT);
+    FileSize maxSpillSize = DEFAULT_MAX_SPILL_SIZE;
+    volatile DirectByteRingBuffer spillRing;
+    final LongAdder spilledCount = new LongAdder();
+
+    /**
+     * How long the worker waits on the off-heap buffer before checking the spill
+     * file again.
+     */
+    static final long SPILL_CHECK_MILLIS = 10;
+
+    /**
+     * The size of the chunks in which the worker writes encoded events in off-heap
+     * mode.
+     */
+    static final int ENCODED_CHUNK_SIZE = 64 * 1024;
+
     /**
      * The default buffer size.
      */
     public static final int DEFAULT_QUEUE_SIZE = 256;
     int queueSize = DEFAULT_QUEUE_SIZE;
 
+    QueueType queueType = QueueType.ARRAY_BLOCKING;
+
     int appenderCount = 0;
 
+    WaitStrategy consumerWaitStrategy = WaitStrategy.BLOCKING;
+    WaitStrategy producerWaitStrategy = WaitStrategy.BLOCKING;
+
+    /**
+     * The default number of busy spins made by non-blocking wait strategies
+     * before yielding or parking.
+     */
+    public static final int DEFAULT_SPIN_TRIES = 100;
+    int spinTries = DEFAULT_SPIN_TRIES;
+
+    /**
+     * The default time, in nanoseconds, a {@link WaitStrategy#SPIN_PARK} waiter
+     * stays parked before trying again.
+     */
+    public static final long DEFAULT_PARK_NANOS = 100_000L;
+    long parkNanos = DEFAULT_PARK_NANOS;
+
+    /**
+     * The default maximum number of events the worker dispatches per batch.
+     */
+    public static final int DEFAULT_MAX_BATCH_SIZE = 256;
+    int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+
+    final BatchSizeHistogram batchSizeHistogram = new BatchSizeHistogram();
+
+    final LongAdder discardedCount = new LongAdder();
+
     static final int UNDEFINED = -1;
     int discardingThreshold = UNDEFINED;
     boolean neverBlock = false;
 
+    // false when attached appenders are shared with other instances and are
+    // stopped by their owner, see PartitionedAsyncAppenderBase
+    boolean stopAppendersOnWorkerExit = true;
+
     Worker worker = new Worker();
 
     /**
@@ -85,6 +187,19 @@ public class AsyncAppenderBase<E> extends UnsynchronizedAppenderBase<E> implemen
         return false;
     }
 
+    /**
+     * Invoked on the logging thread for each event which is not queued, either
+     * because it was deemed {@link #isDiscardable(Object) discardable} or because
+     * the queue was full and <code>neverBlock</code> is set. The base class's
+     * implementation does nothing but sub-classes may override this method, for
+     * example to keep track of lost events.
+     *
+     * @param eventObject
+     * @since 1.5.7
+     */
+    protected void discarded(E eventObject) {
+    }
+
     /**
      * Pre-process the event prior to queueing. The base class does no
      * pre-processing but subclasses can override this behavior.
@@ -106,7 +221,33 @@ public class AsyncAppenderBase<E> extends UnsynchronizedAppenderBase<E> implemen
             addError("Invalid queue size [" + queueSize + "]");
             return;
         }
-        blockingQueue = new ArrayBlockingQueue<E>(queueSize);
+        if (queueType == null) {
+            addError("No queue type set.");
+            return;
+        }
+        if (consumerWaitStrategy == null || producerWaitStrategy == null) {
+            addError("No wait strategy set.");
+            return;
+        }
+        if (maxBatchSize < 1) {
+            addError("Invalid maxBatchSize [" + maxBatchSize + "]");
+            return;
+        }
+        if (parkNanos < 1) {
+            addError("Invalid parkNanos [" + parkNanos + "]");
+            return;
+        }
+        if (spillFile != null && offHeapBufferSize == null) {
+            addError("A spill file requires offHeapBufferSize to be set.");
+            return;
+        }
+        if (offHeapBufferSize != null) {
+            if (!startOffHeap()) {
+                return;
+            }
+        } else {
+            blockingQueue = queueType.newQueue(queueSize);
+        }
 
         if (discardingThreshold == UNDEFINED)
             discardingThreshold = queueSize / 5;
@@ -119,11 +260,71 @@ public class AsyncAppenderBase<E> extends UnsynchronizedAppenderBase<E> implemen
         worker.start();
     }
 
+    @SuppressWarnings("unchecked")
+    private boolean startOffHeap() {
+        long size = offHeapBufferSize.getSize();
+        if (size <= 0 || size > Integer.MAX_VALUE) {
+            addError("Invalid offHeapBufferSize [" + offHeapBufferSize + "]");
+            return false;
+        }
+        Appender<E> appender = aai.iteratorForAppenders().next();
+        if (!(appender instanceof OutputStreamAppender)) {
+            addError("Off-heap queueing requires an OutputStreamAppender but [" + appender.getName()
+                    + "] is not one.");
+            return false;
+        }
+        encodingAppender = (OutputStreamAppender<E>) appender;
+        if (encodingAppender.getEncoder() == null) {
+            addError("Appender [" + appender.getName() + "] has no encoder.");
+            return false;
+        }
+        byteRing = new DirectByteRingBuffer((int) size, queueSize);
+        addInfo("Queueing encoded events in an off-heap buffer of " + offHeapBufferSize);
+        if (spillFile != null) {
+            return startSpill();
+        }
+        return true;
+    }
+
+    private boolean startSpill() {
+        long size = maxSpillSize == null ? 0 : maxSpillSize.getSize();
+        if (size <= 0 || size > Integer.MAX_VALUE) {
+            addError("Invalid maxSpillSize [" + maxSpillSize + "]");
+            return false;
+        }
+        File file = new File(spillFile);
+        FileUtil.createMissingParentDirectories(file);
+        try {
+            spillRing = DirectByteRingBuffer.mapFile(file, (int) size, Integer.MAX_VALUE);
+        } catch (IOException e) {
+            addError("Failed to map spill file [" + spillFile + "]", e);
+            return false;
+        }
+        addInfo("Spilling overflowing events to [" + spillFile + "], up to " + maxSpillSize);
+        return true;
+    }
+
+    private void deleteSpillFile() {
+        File file = new File(spillFile);
+        if (file.exists() && !file.delete()) {
+            addWarn("Failed to delete spill file [" + spillFile + "]");
+        }
+    }
+
     @Override
     public void stop() {
         if (!isStarted())
             return;
 
+        signalStop();
+        awaitStop(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxFlushTime));
+    }
+
+    /**
+     * Mark this appender as stopped and interrupt the worker without waiting
+     * for it to flush the queue, see {@link #awaitStop(long)}.
+     */
+    void signalStop() {
         // mark this appender as stopped so that Worker can also processPriorToRemoval
         // if it is invoking
         // aii.appendLoopOnAppenders
@@ -133,57 +334,150 @@ public class AsyncAppenderBase<E> extends UnsynchronizedAppenderBase<E> implemen
         // interrupt the worker thread so that it can terminate. Note that the
         // interruption can be consumed by sub-appenders
         worker.interrupt();
+    }
 
+    /**
+     * Wait for the worker to flush the queue, until the given
+     * {@link System#nanoTime()} deadline unless <code>maxFlushTime</code> is 0.
+     */
+    void awaitStop(long deadline) {
         InterruptUtil interruptUtil = new InterruptUtil(context);
 
         try {
             interruptUtil.maskInterruptFlag();
 
-            worker.join(maxFlushTime);
+            if (maxFlushTime == 0) {
+                worker.join();
+            } else {
+                // at least one millisecond, as 0 means waiting forever
+                worker.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+            }
 
             // check to see if the thread ended and if not add a warning message
             if (worker.isAlive()) {
                 addWarn("Max queue flush timeout (" + maxFlushTime + " ms) exceeded. Approximately "
-                        + blockingQueue.size() + " queued events were possibly discarded.");
+                        + getNumberOfElementsInQueue() + " queued events were possibly discarded.");
+                int inSpill = getNumberOfElementsInSpill();
+                if (inSpill > 0) {
+                    addWarn(inSpill + " events in spill file [" + spillFile
+                            + "] are left to the worker, the file is kept until it exits.");
+                }
             } else {
                 addInfo("Queue flush finished successfully within timeout.");
             }
 
         } catch (InterruptedException e) {
-            int remaining = blockingQueue.size();
+            int remaining = getNumberOfElementsInQueue();
             addError("Failed to join worker thread. " + remaining + " queued events may be discarded.", e);
         } finally {
             interruptUtil.unmaskInterruptFlag();
         }
     }
 
+    /**
+     * Invoked by the worker on exit, which may be after {@link #awaitStop(long)}
+     * gave up waiting for it, so that the spill file is never deleted while
+     * still read.
+     */
+    private void releaseSpill(DirectByteRingBuffer spill) {
+        if (spillRing != spill) {
+            // replaced by a restart
+            return;
+        }
+        spillRing = null;
+        int leftInSpill = spill.size();
+        if (leftInSpill > 0) {
+            addWarn(leftInSpill + " events left in spill file [" + spillFile + "] were discarded.");
+        }
+        deleteSpillFile();
+    }
+
     @Override
     protected void append(E eventObject) {
         if (isQueueBelowDiscardingThreshold() && isDiscardable(eventObject)) {
+            discardedCount.increment();
+            discarded(eventObject);
             return;
         }
         preprocess(eventObject);
-        put(eventObject);
+        if (byteRing != null) {
+            putEncoded(eventObject);
+        } else {
+            put(eventObject);
+        }
     }
 
     private boolean isQueueBelowDiscardingThreshold() {
-        return (blockingQueue.remainingCapacity() < discardingThreshold);
+        return (getRemainingCapacity() < discardingThreshold);
     }
 
     private void put(E eventObject) {
         if (neverBlock) {
-            blockingQueue.offer(eventObject);
+            if (!blockingQueue.offer(eventObject)) {
+                discardedCount.increment();
+                discarded(eventObject);
+            }
         } else {
             putUninterruptibly(eventObject);
         }
     }
 
+    private void putEncoded(E eventObject) {
+        if (encodingAppender.getFilterChainDecision(eventObject) == FilterReply.DENY) {
+            return;
+        }
+        byte[] bytes = encodingAppender.getEncoder().encode(eventObject);
+        if (bytes == null || bytes.length == 0) {
+            return;
+        }
+        boolean queued;
+        if (spillRing != null) {
+            queued = offerOrSpill(bytes);
+        } else {
+            queued = neverBlock ? byteRing.offer(bytes) : putEncodedUninterruptibly(bytes);
+        }
+        if (!queued) {
+            discardedCount.increment();
+            discarded(eventObject);
+        }
+    }
+
+    private boolean offerOrSpill(byte[] bytes) {
+        DirectByteRingBuffer spill = spillRing;
+        // keep spilling until the worker has caught up, so that order is preserved
+        if ((spill == null || spill.isEmpty()) && byteRing.offer(bytes)) {
+            return true;
+        }
+        if (spill != null && spill.offer(bytes)) {
+            spilledCount.increment();
+            return true;
+        }
+        return false;
+    }
+
+    private boolean putEncodedUninterruptibly(byte[] bytes) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return byteRing.put(bytes);
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
     private void putUninterruptibly(E eventObject) {
         boolean interrupted = false;
         try {
             while (true) {
                 try {
-                    blockingQueue.put(eventObject);
+                    producerWaitStrategy.put(blockingQueue, eventObject, spinTries, parkNanos);
                     break;
                 } catch (InterruptedException e) {
                     interrupted = true;
@@ -204,6 +498,183 @@ public class AsyncAppenderBase<E> extends UnsynchronizedAppenderBase<E> implemen
         this.queueSize = queueSize;
     }
 
+    public QueueType getQueueType() {
+        return queueType;
+    }
+
+    /**
+     * Sets the kind of queue used to buffer events. Only effective when set
+     * before this appender is started.
+     *
+     * @param queueType
+     * @since 1.5.7
+     */
+    public void setQueueType(QueueType queueType) {
+        this.queueType = queueType;
+    }
+
+    public WaitStrategy getConsumerWaitStrategy() {
+        return consumerWaitStrategy;
+    }
+
+    /**
+     * Sets how the worker thread waits for events when the queue is empty.
+     *
+     * @param consumerWaitStrategy
+     * @since 1.5.7
+     */
+    public void setConsumerWaitStrategy(WaitStrategy consumerWaitStrategy) {
+        this.consumerWaitStrategy = consumerWaitStrategy;
+    }
+
+    public WaitStrategy getProducerWaitStrategy() {
+        return producerWaitStrategy;
+    }
+
+    /**
+     * Sets how logging threads wait for free capacity when the queue is full.
+     * Not used if <code>neverBlock</code> is true.
+     *
+     * @param producerWaitStrategy
+     * @since 1.5.7
+     */
+    public void setProducerWaitStrategy(WaitStrategy producerWaitStrategy) {
+        this.producerWaitStrategy = producerWaitStrategy;
+    }
+
+    public int getSpinTries() {
+        return spinTries;
+    }
+
+    /**
+     * Sets the number of busy spins made by the {@link WaitStrategy#SPIN_YIELD}
+     * and {@link WaitStrategy#SPIN_PARK} strategies before yielding or parking.
+     *
+     * @param spinTries
+     * @since 1.5.7
+     */
+    public void setSpinTries(int spinTries) {
+        this.spinTries = spinTries;
+    }
+
+    public long getParkNanos() {
+        return parkNanos;
+    }
+
+    /**
+     * Sets the maximum time, in nanoseconds, a {@link WaitStrategy#SPIN_PARK}
+     * waiter stays parked before trying again.
+     *
+     * @param parkNanos
+     * @since 1.5.7
+     */
+    public void setParkNanos(long parkNanos) {
+        this.parkNanos = parkNanos;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * Sets the maximum number of events the worker thread takes from the queue
+     * and dispatches in one go. The batch is preallocated and reused, so its
+     * size is also capped by the queue size.
+     *
+     * @param maxBatchSize
+     * @since 1.5.7
+     */
+    public void setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Returns the histogram of the sizes of the batches dispatched by the worker
+     * thread. A mean batch size close to 1 indicates that the worker keeps up
+     * with producers and that draining does not amortize much.
+     *
+     * @return the batch size histogram
+     * @since 1.5.7
+     */
+    public BatchSizeHistogram getBatchSizeHistogram() {
+        return batchSizeHistogram;
+    }
+
+    public FileSize getOffHeapBufferSize() {
+        return offHeapBufferSize;
+    }
+
+    /**
+     * Sets the size of the off-heap buffer holding encoded events. By default,
+     * events are queued as objects on the heap.
+     *
+     * @param offHeapBufferSize
+     * @since 1.5.7
+     */
+    public void setOffHeapBufferSize(FileSize offHeapBufferSize) {
+        this.offHeapBufferSize = offHeapBufferSize;
+    }
+
+    public String getSpillFile() {
+        return spillFile;
+    }
+
+    /**
+     * Sets the file to which encoded events are spilled when the off-heap buffer
+     * is full. The file is deleted when this appender stops. Requires
+     * <code>offHeapBufferSize</code> to be set.
+     *
+     * @param spillFile
+     * @since 1.5.7
+     */
+    public void setSpillFile(String spillFile) {
+        this.spillFile = spillFile;
+    }
+
+    public FileSize getMaxSpillSize() {
+        return maxSpillSize;
+    }
+
+    /**
+     * Sets the size of the spill file, 64MB by default.
+     *
+     * @param maxSpillSize
+     * @since 1.5.7
+     */
+    public void setMaxSpillSize(FileSize maxSpillSize) {
+        this.maxSpillSize = maxSpillSize;
+    }
+
+    /**
+     * Returns the number of events written to the spill file since this appender
+     * was created.
+     *
+     * @since 1.5.7
+     */
+    public long getSpilledCount() {
+        return spilledCount.sum();
+    }
+
+    /**
+     * Returns the number of events currently in the spill file.
+     *
+     * @since 1.5.7
+     */
+    public int getNumberOfElementsInSpill() {
+        DirectByteRingBuffer spill = spillRing;
+        return spill == null ? 0 : spill.size();
+    }
+
+    /**
+     * Returns the number of bytes currently used in the spill file.
+     *
+     * @since 1.5.7
+     */
+    public int getSpillUsedBytes() {
+        DirectByteRingBuffer spill = spillRing;
+        return spill == null ? 0 : spill.getUsedBytes();
+    }
+
     public int getDiscardingThreshold() {
         return discardingThreshold;
     }
@@ -226,6 +697,9 @@ public class AsyncAppenderBase<E> extends UnsynchronizedAppenderBase<E> implemen
      * @return number of elements currently in the queue.
      */
     public int getNumberOfElementsInQueue() {
+        if (byteRing != null) {
+            return byteRing.size();
+        }
         return blockingQueue.size();
     }
 
@@ -247,9 +721,45 @@ public class AsyncAppenderBase<E> extends UnsynchronizedAppenderBase<E> implemen
      * 
      */
     public int getRemainingCapacity() {
+        if (byteRing != null) {
+            return byteRing.remainingCapacity();
+        }
         return blockingQueue.remainingCapacity();
     }
 
+    /**
+     * Returns the number of events discarded or dropped since this appender was
+     * created.
+     *
+     * @return the number of events which were not queued
+     * @since 1.5.7
+     */
+    public long getDiscardedCount() {
+        return discardedCount.sum();
+    }
+
+    /**
+     * Insert an event, typically a synthetic one built by a sub-class, directly
+     * into the queue. The event is neither checked for discardability nor
+     * pre-processed, and the caller is never blocked.
+     *
+     * @param eventObject
+     * @return true if the event was queued, false if the queue is full or this
+     *         appender is not started
+     * @since 1.5.7
+     */
+    protected boolean offerDirectly(E eventObject) {
+        if (byteRing != null) {
+            byte[] bytes = encodingAppender.getEncoder().encode(eventObject);
+            return bytes != null && offerOrSpill(bytes);
+        }
+        BlockingQueue<E> queue = blockingQueue;
+        if (queue == null) {
+            return false;
+        }
+        return queue.offer(eventObject);
+    }
+
     public void addAppender(Appender<E> newAppender) {
         if (appenderCount == 0) {
             appenderCount++;
@@ -288,33 +798,112 @@ public class AsyncAppenderBase<E> extends UnsynchronizedAppenderBase<E> implemen
     class Worker extends Thread {
 
         public void run() {
+            AsyncAppenderBase<E> parent = AsyncAppenderBase.this;
+            if (parent.byteRing != null) {
+                DirectByteRingBuffer spill = parent.spillRing;
+                try {
+                    runEncoded();
+                } finally {
+                    if (spill != null) {
+                        parent.releaseSpill(spill);
+                    }
+                }
+            } else {
+                runEvents();
+            }
+
+            if (parent.stopAppendersOnWorkerExit) {
+                parent.aai.detachAndStopAllAppenders();
+            }
+        }
+
+        void runEvents() {
             AsyncAppenderBase<E> parent = AsyncAppenderBase.this;
             AppenderAttachableImpl<E> aai = parent.aai;
 
+            // preallocated and reused across iterations
+            int batchCapacity = Math.min(parent.maxBatchSize, parent.queueSize);
+            ArrayList<E> batch = new ArrayList<E>(batchCapacity);
+
             // loop while the parent is started
             while (parent.isStarted()) {
                 try {
-                    List<E> elements = new ArrayList<E>();
-                    E e0 = parent.blockingQueue.take();
-                    elements.add(e0);
-                    parent.blockingQueue.drainTo(elements);
-                    for (E e : elements) {
-                        aai.appendLoopOnAppenders(e);
-                    }
+                    E e0 = parent.consumerWaitStrategy.take(parent.blockingQueue, parent.spinTries, parent.parkNanos);
+                    batch.add(e0);
+                    parent.blockingQueue.drainTo(batch, batchCapacity - 1);
+                    aai.appendBatchLoopOnAppenders(batch);
+                    batchSizeHistogram.record(batch.size());
                 } catch (InterruptedException e1) {
                     // exit if interrupted
                     break;
+                } finally {
+                    batch.clear();
                 }
             }
 
             addInfo("Worker thread will flush remaining events before exiting. ");
 
-            for (E e : parent.blockingQueue) {
+            E e;
+            while ((e = parent.blockingQueue.poll()) != null) {
                 aai.appendLoopOnAppenders(e);
-                parent.blockingQueue.remove(e);
             }
+        }
+
+        void runEncoded() {
+            AsyncAppenderBase<E> parent = AsyncAppenderBase.this;
+            DirectByteRingBuffer byteRing = parent.byteRing;
+            DirectByteRingBuffer spill = parent.spillRing;
+            OutputStreamAppender<E> target = parent.encodingAppender;
+
+            // reused across iterations, grown by the ring if a record is larger
+            byte[][] chunk = { new byte[(int) Math.min(ENCODED_CHUNK_SIZE, parent.offHeapBufferSize.getSize())] };
+
+            while (parent.isStarted()) {
+                try {
+                    int length = spill == null ? byteRing.take(chunk) : takeOrUnspill(byteRing, spill, chunk);
+                    if (length > 0) {
+                        appendEncoded(target, chunk[0], length);
+                    }
+                } catch (InterruptedException e1) {
+                    // exit if interrupted
+                    break;
+                }
+            }
+
+            addInfo("Worker thread will flush remaining events before exiting. ");
 
-            aai.detachAndStopAllAppenders();
+            int length;
+            while ((length = byteRing.poll(chunk)) > 0 || (spill != null && (length = spill.poll(chunk)) > 0)) {
+                appendEncoded(target, chunk[0], length);
+            }
+        }
+
+        /**
+         * Unlike {@link UnsynchronizedAppenderBase#doAppend(Object)}, which is
+         * bypassed here, nothing else would catch an unchecked exception, which
+         * would end this thread and leave producers blocked on a full buffer.
+         */
+        void appendEncoded(OutputStreamAppender<E> target, byte[] bytes, int length) {
+            try {
+                target.subAppendEncoded(bytes, 0, length);
+            } catch (RuntimeException e) {
+                target.reportAppendFailure(e);
+            }
+        }
+
+        /**
+         * Events in the off-heap buffer precede those in the spill file.
+         */
+        int takeOrUnspill(DirectByteRingBuffer byteRing, DirectByteRingBuffer spill, byte[][] chunk)
+                throws InterruptedException {
+            int length = byteRing.poll(chunk);
+            if (length == 0) {
+                length = spill.poll(chunk);
+            }
+            if (length == 0) {
+                length = byteRing.poll(chunk, SPILL_CHECK_MILLIS, TimeUnit.MILLISECONDS);
+            }
+            return length;
         }
     }
 }
@@ -0,0 +1,41 @@
+/*
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2024, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core;
+
+import java.util.List;
+
+/**
+ * An {@link Appender} able to process several events in one go, for example
+ * by writing them with a single system call.
+ *
+ * <p>{@link AsyncAppenderBase} detects appenders implementing this interface
+ * and hands them whole batches instead of one event at a time.
+ *
+ * @since 1.5.7
+ */
+public interface BatchAppender<E> extends Appender<E> {
+
+    /**
+     * Append the events in the given order. The outcome must be the same as
+     * invoking {@link #doAppend(Object)} on each event in turn, filters
+     * included.
+     *
+     * <p>The list belongs to the caller and may be reused once this method
+     * returns. Implementations must not modify it or keep a reference to it.
+     *
+     * @param events the events to append
+     */
+    void doAppendBatch(List<E> events) throws LogbackException;
+
+}
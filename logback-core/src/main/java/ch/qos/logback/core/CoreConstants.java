@@ -91,6 +91,14 @@ public class CoreConstants {
      */
     public static final String RFA_FILENAME_PATTERN_COLLISION_MAP = "RFA_FILENAME_PATTERN_COLLISION_MAP";
 
+    /**
+     * Key used to locate the archive maintenance service shared by the rolling
+     * policies of a context in the context's object map.
+     *
+     * @since 1.5.7
+     */
+    public static final String ARCHIVE_MAINTENANCE_SERVICE = "ARCHIVE_MAINTENANCE_SERVICE";
+
     /**
      * By convention, we assume that the static method named "valueOf" taking a
      * string argument can restore a given object from its string representation.
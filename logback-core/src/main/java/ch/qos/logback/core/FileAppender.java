@@ -18,11 +18,17 @@ import static ch.qos.logback.core.CoreConstants.MORE_INFO_PREFIX;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
+import ch.qos.logback.core.recovery.FileOutputMode;
 import ch.qos.logback.core.recovery.ResilientFileOutputStream;
 import ch.qos.logback.core.util.ContextUtil;
 import ch.qos.logback.core.util.FileSize;
@@ -58,6 +64,18 @@ public class FileAppender<E> extends OutputStreamAppender<E> {
 
     private FileSize bufferSize = new FileSize(DEFAULT_BUFFER_SIZE);
 
+    private FileOutputMode outputMode = FileOutputMode.STREAM;
+
+    private boolean lockFreePrudent = false;
+
+    /**
+     * The default maximum size of a write relying on append atomicity in
+     * lock-free prudent mode.
+     */
+    public static final long DEFAULT_MAX_ATOMIC_WRITE_SIZE = 4096;
+
+    private FileSize maxAtomicWriteSize = new FileSize(DEFAULT_MAX_ATOMIC_WRITE_SIZE);
+
     /**
      * The <b>File</b> property takes a string value which should be the name of the
      * file to append to.
@@ -114,9 +132,16 @@ public class FileAppender<E> extends OutputStreamAppender<E> {
                     setAppend(true);
                     addWarn("Setting \"Append\" property to true on account of \"Prudent\" mode");
                 }
+                if (outputMode != FileOutputMode.STREAM) {
+                    addWarn("Setting \"OutputMode\" property to STREAM on account of \"Prudent\" mode");
+                    outputMode = FileOutputMode.STREAM;
+                }
             }
 
-            if (checkForFileCollisionInPreviousFileAppenders()) {
+            if (outputMode == null) {
+                addError("\"OutputMode\" property not set for appender named [" + name + "].");
+                errors++;
+            } else if (checkForFileCollisionInPreviousFileAppenders()) {
                 addError("Collisions detected with FileAppender/RollingAppender instances defined earlier. Aborting.");
                 addError(MORE_INFO_PREFIX + COLLISION_WITH_EARLIER_APPENDER_URL);
                 errors++;
@@ -197,20 +222,42 @@ public class FileAppender<E> extends OutputStreamAppender<E> {
     public void openFile(String file_name) throws IOException {
         streamWriteLock.lock();
         try {
-            File file = new File(file_name);
-            boolean result = FileUtil.createMissingParentDirectories(file);
-            if (!result) {
-                addError("Failed to create parent directories for [" + file.getAbsolutePath() + "]");
-            }
-
-            ResilientFileOutputStream resilientFos = new ResilientFileOutputStream(file, append, bufferSize.getSize());
-            resilientFos.setContext(context);
-            setOutputStream(resilientFos);
+            ResilientFileOutputStream resilientFos = openResilientFileOutputStream(new File(file_name));
+            setOutputStream(decorateFileOutputStream(resilientFos));
         } finally {
             streamWriteLock.unlock();
         }
     }
 
+    /**
+     * Opens the given file, creating missing parent directories, with the
+     * configured append, buffer size and output mode settings. The lock is not
+     * required.
+     *
+     * @since 1.5.7
+     */
+    protected ResilientFileOutputStream openResilientFileOutputStream(File file) throws IOException {
+        boolean result = FileUtil.createMissingParentDirectories(file);
+        if (!result) {
+            addError("Failed to create parent directories for [" + file.getAbsolutePath() + "]");
+        }
+
+        ResilientFileOutputStream resilientFos = new ResilientFileOutputStream(file, append, bufferSize.getSize(),
+                outputMode);
+        resilientFos.setContext(context);
+        return resilientFos;
+    }
+
+    /**
+     * Allows subclasses to wrap the stream of a newly opened file. The default
+     * implementation returns the stream as is.
+     *
+     * @since 1.5.7
+     */
+    protected OutputStream decorateFileOutputStream(ResilientFileOutputStream resilientFos) {
+        return resilientFos;
+    }
+
     /**
      * @see #setPrudent(boolean)
      * 
@@ -239,6 +286,69 @@ public class FileAppender<E> extends OutputStreamAppender<E> {
         this.bufferSize = bufferSize;
     }
 
+    public boolean isLockFreePrudent() {
+        return lockFreePrudent;
+    }
+
+    /**
+     * In prudent mode, each write normally takes an exclusive lock on the file.
+     * If this property is set to true, writes of at most
+     * <code>maxAtomicWriteSize</code> bytes instead go to the file, opened in
+     * append mode, in a single system call and without locking, relying on the
+     * atomicity of appends offered by the operating system. Events of a batch are
+     * combined into as few such writes as possible. Larger writes still take the
+     * lock. The default is false.
+     *
+     * <p>
+     * Prudent mode coordinates processes. Within a single JVM, a file should be
+     * written by a single appender, as file locks are held per JVM and
+     * overlapping lock requests from a second appender fail.
+     *
+     * @param lockFreePrudent
+     * @since 1.5.7
+     */
+    public void setLockFreePrudent(boolean lockFreePrudent) {
+        this.lockFreePrudent = lockFreePrudent;
+    }
+
+    public FileSize getMaxAtomicWriteSize() {
+        return maxAtomicWriteSize;
+    }
+
+    /**
+     * Sets the maximum size of writes made without locking in lock-free prudent
+     * mode. The default, 4KB, matches PIPE_BUF on Linux.
+     *
+     * @param maxAtomicWriteSize
+     * @since 1.5.7
+     */
+    public void setMaxAtomicWriteSize(FileSize maxAtomicWriteSize) {
+        this.maxAtomicWriteSize = maxAtomicWriteSize;
+    }
+
+    public FileOutputMode getOutputMode() {
+        return outputMode;
+    }
+
+    /**
+     * Sets how the file is written to. The default, {@link FileOutputMode#STREAM},
+     * goes through a buffered stream. {@link FileOutputMode#CHANNEL} and
+     * {@link FileOutputMode#MAPPED} reduce copies and system calls per write. In
+     * {@link FileOutputMode#MAPPED} mode, <code>bufferSize</code> is the size of
+     * the mapped regions, at least 1MB, and {@link File#length()} is rounded up
+     * to the region size until the file is closed. Size based triggering
+     * policies are not affected, as RollingFileAppender passes them the length
+     * of the bytes actually written. After a crash, the file keeps the trailing zeros of its last
+     * region until it is next appended to in this mode. Prudent mode requires
+     * the default.
+     *
+     * @param outputMode
+     * @since 1.5.7
+     */
+    public void setOutputMode(FileOutputMode outputMode) {
+        this.outputMode = outputMode;
+    }
+
     @Override
     protected void writeOut(E event) throws IOException {
         if (prudent) {
@@ -248,19 +358,128 @@ public class FileAppender<E> extends OutputStreamAppender<E> {
         }
     }
 
+    @Override
+    protected void writeOutBatch(List<E> events) throws IOException {
+        if (prudent && lockFreePrudent) {
+            safeWriteOutBatch(events);
+        } else if (prudent) {
+            safeWriteOut(encodeBatch(events));
+        } else {
+            super.writeOutBatch(events);
+        }
+    }
+
+    @Override
+    protected void writeEncodedOut(byte[] bytes, int offset, int length) throws IOException {
+        if (prudent) {
+            safeWriteOut(Arrays.copyOfRange(bytes, offset, offset + length));
+        } else {
+            super.writeEncodedOut(bytes, offset, length);
+        }
+    }
+
+    /**
+     * Forces the content of the file to the storage device.
+     */
+    @Override
+    protected void syncOutputStream() throws IOException {
+        OutputStream os = getOutputStream();
+        if (os instanceof ResilientFileOutputStream) {
+            ((ResilientFileOutputStream) os).force();
+        }
+    }
+
     private void safeWriteOut(E event) {
-        byte[] byteArray = this.encoder.encode(event);
+        safeWriteOut(this.encoder.encode(event));
+    }
+
+    private void safeWriteOut(byte[] byteArray) {
         if (byteArray == null || byteArray.length == 0)
             return;
 
         streamWriteLock.lock();
         try {
-           safeWriteBytes(byteArray);
+            if (lockFreePrudent && byteArray.length <= maxAtomicWriteSize.getSize()) {
+                appendAtomically(byteArray, byteArray.length);
+            } else {
+                safeWriteBytes(byteArray);
+            }
         } finally {
             streamWriteLock.unlock();
         }
     }
 
+    /**
+     * Encode the events and write them in chunks of at most
+     * <code>maxAtomicWriteSize</code> bytes, each chunk holding whole events.
+     */
+    private void safeWriteOutBatch(List<E> events) {
+        final int maxSize = (int) Math.min(maxAtomicWriteSize.getSize(), Integer.MAX_VALUE);
+        byte[] chunk = null;
+        int chunkLength = 0;
+        for (E event : events) {
+            byte[] bytes = encodeBatchEvent(event);
+            if (bytes == null || bytes.length == 0) {
+                continue;
+            }
+            if (bytes.length > maxSize) {
+                chunkLength = flushChunk(chunk, chunkLength);
+                safeWriteOut(bytes);
+                continue;
+            }
+            if (chunkLength + bytes.length > maxSize) {
+                chunkLength = flushChunk(chunk, chunkLength);
+            }
+            if (chunk == null) {
+                chunk = new byte[maxSize];
+            }
+            System.arraycopy(bytes, 0, chunk, chunkLength, bytes.length);
+            chunkLength += bytes.length;
+        }
+        flushChunk(chunk, chunkLength);
+    }
+
+    private int flushChunk(byte[] chunk, int chunkLength) {
+        if (chunkLength > 0) {
+            streamWriteLock.lock();
+            try {
+                appendAtomically(chunk, chunkLength);
+            } finally {
+                streamWriteLock.unlock();
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Write the bytes with a single write to the channel, opened in append mode,
+     * without taking a file lock.
+     */
+    private void appendAtomically(byte[] byteArray, int length) {
+        ResilientFileOutputStream resilientFOS = (ResilientFileOutputStream) getOutputStream();
+        FileChannel fileChannel = resilientFOS.getChannel();
+        if (fileChannel == null) {
+            return;
+        }
+
+        // an interrupt would close the channel, see LOGBACK-875
+        boolean interrupted = Thread.interrupted();
+        try {
+            // bytes written outside prudent mode, such as the header, go first
+            resilientFOS.flush();
+            ByteBuffer buffer = ByteBuffer.wrap(byteArray, 0, length);
+            while (buffer.hasRemaining()) {
+                fileChannel.write(buffer);
+            }
+        } catch (IOException e) {
+            resilientFOS.postIOFailure(e);
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
     private void safeWriteBytes(byte[] byteArray) {
         ResilientFileOutputStream resilientFOS = (ResilientFileOutputStream) getOutputStream();
         FileChannel fileChannel = resilientFOS.getChannel();
@@ -283,6 +502,10 @@ public class FileAppender<E> extends OutputStreamAppender<E> {
         } catch (IOException e) {
             // Mainly to catch FileLockInterruptionExceptions (see LOGBACK-875)
             resilientFOS.postIOFailure(e);
+        } catch (OverlappingFileLockException e) {
+            // the lock is held by another channel of this JVM, that is, another
+            // appender writing to the same file
+            addError("Failed to lock [" + getFile() + "], is another appender of this JVM writing to it?", e);
         } finally {
             releaseFileLock(fileLock);
 
@@ -32,6 +32,19 @@ public interface Layout<E> extends ContextAware, LifeCycle {
      */
     String doLayout(E event);
 
+    /**
+     * Append the formatted event to the given builder. The default implementation
+     * appends the result of {@link #doLayout(Object)}. Implementations may avoid
+     * creating the intermediate String.
+     *
+     * @param event The event to format
+     * @param sb    The builder to append to
+     * @since 1.5.7
+     */
+    default void doLayout(E event, StringBuilder sb) {
+        sb.append(doLayout(event));
+    }
+
     /**
      * Return the file header for this layout. The returned value may be null.
      * 
@@ -15,14 +15,23 @@ package ch.qos.logback.core;
 
 import static ch.qos.logback.core.CoreConstants.CODES_URL;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.channels.ClosedChannelException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
 
 import ch.qos.logback.core.encoder.Encoder;
+import ch.qos.logback.core.encoder.EncodingBuffer;
 import ch.qos.logback.core.encoder.LayoutWrappingEncoder;
 import ch.qos.logback.core.spi.DeferredProcessingAware;
 import ch.qos.logback.core.status.ErrorStatus;
+import ch.qos.logback.core.util.Duration;
+import ch.qos.logback.core.util.FileSize;
 
 /**
  * OutputStreamAppender appends events to a {@link OutputStream}. This class
@@ -31,9 +40,24 @@ import ch.qos.logback.core.status.ErrorStatus;
  * For more information about this appender, please refer to the online manual
  * at http://logback.qos.ch/manual/appenders.html#OutputStreamAppender
  * 
+ * <p>As a {@link BatchAppender}, this appender encodes a batch of events into a
+ * single buffer which is written under one lock acquisition and flushed at
+ * most once. Derived classes overriding {@link #subAppend(Object)} should
+ * also override {@link #subAppendBatch(List)}.
+ * 
+ * <p>If both <code>immediateFlush</code> and <code>groupCommit</code> are set,
+ * concurrent writers share flushes. Each writer writes under the lock and then
+ * waits until its bytes are flushed, by itself or by another writer, before
+ * returning. The flushing writer waits at most
+ * <code>groupCommitMaxLatency</code>, or until
+ * <code>groupCommitMaxBytes</code> are pending, so that more writers may join.
+ * With <code>groupCommitSync</code>, each group flush is followed by
+ * {@link #syncOutputStream()}, outside the lock. If a group flush fails, the
+ * writers it covers fail as well.
+ * 
  * @author Ceki G&uuml;lc&uuml;
  */
-public class OutputStreamAppender<E> extends UnsynchronizedAppenderBase<E> {
+public class OutputStreamAppender<E> extends UnsynchronizedAppenderBase<E> implements BatchAppender<E> {
 
     /**
      * It is the encoder which is ultimately responsible for writing the event to an
@@ -41,6 +65,12 @@ public class OutputStreamAppender<E> extends UnsynchronizedAppenderBase<E> {
      */
     protected Encoder<E> encoder;
 
+    /**
+     * Set at start if the encoder is a {@link LayoutWrappingEncoder} reusing
+     * per-thread buffers.
+     */
+    private LayoutWrappingEncoder<E> bufferReusingEncoder;
+
     /**
      * All synchronization in this class is done via the lock object.
      */
@@ -53,6 +83,31 @@ public class OutputStreamAppender<E> extends UnsynchronizedAppenderBase<E> {
 
     boolean immediateFlush = true;
 
+    boolean groupCommit = false;
+    Duration groupCommitMaxLatency = new Duration(0);
+    /**
+     * The default number of pending bytes which triggers a group flush
+     * without waiting for <code>groupCommitMaxLatency</code> to elapse.
+     */
+    public static final long DEFAULT_GROUP_COMMIT_MAX_BYTES = 64 * FileSize.KB_COEFFICIENT;
+    FileSize groupCommitMaxBytes = new FileSize(DEFAULT_GROUP_COMMIT_MAX_BYTES);
+    boolean groupCommitSync = false;
+
+    // written under streamWriteLock
+    long writeSequence;
+    volatile long unflushedBytes;
+
+    final ReentrantLock groupCommitLock = new ReentrantLock();
+    final Condition flushed = groupCommitLock.newCondition();
+    final Condition maxBytesReached = groupCommitLock.newCondition();
+    // guarded by groupCommitLock
+    long flushedSequence;
+    long failedSequence;
+    Exception flushFailure;
+    boolean flushInProgress;
+    // written by the flushing writer only
+    long groupFlushSequence;
+
     /**
      * The underlying output stream used by this appender.
      * 
@@ -79,6 +134,7 @@ public class OutputStreamAppender<E> extends UnsynchronizedAppenderBase<E> {
         }
         // only error free appenders should be activated
         if (errors == 0) {
+            bufferReusingEncoder = bufferReusingEncoder(encoder);
             super.start();
         }
     }
@@ -102,6 +158,15 @@ public class OutputStreamAppender<E> extends UnsynchronizedAppenderBase<E> {
         subAppend(eventObject);
     }
 
+    @Override
+    protected void appendBatch(List<E> events) {
+        if (!isStarted()) {
+            return;
+        }
+
+        subAppendBatch(events);
+    }
+
     /**
      * Stop this appender instance. The underlying stream or writer is also closed.
      * 
@@ -175,6 +240,62 @@ public class OutputStreamAppender<E> extends UnsynchronizedAppenderBase<E> {
         }
     }
 
+    /**
+     * Replace the output stream by an already opened one and return the previous
+     * stream without closing it, so that it can be closed outside the lock with
+     * {@link #closeDetachedOutputStream(OutputStream)}. The encoder's header is
+     * written to the new stream. With group commit, the previous stream is
+     * flushed, and synced if <code>groupCommitSync</code> is set, so that
+     * pending group commits cover the bytes written to it.
+     *
+     * @since 1.5.7
+     */
+    protected OutputStream swapOutputStream(OutputStream outputStream) {
+        streamWriteLock.lock();
+        try {
+            OutputStream previous = this.outputStream;
+            if (groupCommit && previous != null) {
+                try {
+                    previous.flush();
+                    if (groupCommitSync) {
+                        syncOutputStream();
+                    }
+                } catch (IOException e) {
+                    addStatus(new ErrorStatus("Could not flush output stream for OutputStreamAppender.", this, e));
+                }
+            }
+            this.outputStream = outputStream;
+            encoderInit();
+            return previous;
+        } finally {
+            streamWriteLock.unlock();
+        }
+    }
+
+    /**
+     * Write the footer to a stream returned by
+     * {@link #swapOutputStream(OutputStream)} and close it. The lock is not
+     * needed since the appender no longer writes to that stream.
+     *
+     * @since 1.5.7
+     */
+    protected void closeDetachedOutputStream(OutputStream detached) {
+        if (detached == null) {
+            return;
+        }
+        try {
+            if (encoder != null) {
+                byte[] footer = encoder.footerBytes();
+                if (footer != null && footer.length > 0) {
+                    detached.write(footer);
+                }
+            }
+            detached.close();
+        } catch (IOException e) {
+            addStatus(new ErrorStatus("Could not close output stream for OutputStreamAppender.", this, e));
+        }
+    }
+
     void encoderInit() {
         if (encoder != null && this.outputStream != null) {
             try {
@@ -189,14 +310,130 @@ public class OutputStreamAppender<E> extends UnsynchronizedAppenderBase<E> {
     }
 
     protected void writeOut(E event) throws IOException {
+        if (bufferReusingEncoder != null) {
+            EncodingBuffer buffer = bufferReusingEncoder.encodeToBuffer(event);
+            writeEncodedOut(buffer.getBytes(), 0, buffer.getLength());
+            return;
+        }
         byte[] byteArray = this.encoder.encode(event);
         writeBytes(byteArray);
     }
 
+    private LayoutWrappingEncoder<E> bufferReusingEncoder(Encoder<E> encoder) {
+        if (encoder instanceof LayoutWrappingEncoder) {
+            LayoutWrappingEncoder<E> lwe = (LayoutWrappingEncoder<E>) encoder;
+            if (lwe.isReuseBuffers()) {
+                return lwe;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Write a batch of events with a single call to the underlying stream.
+     *
+     * @since 1.5.7
+     */
+    protected void writeOutBatch(List<E> events) throws IOException {
+        byte[] byteArray = encodeBatch(events);
+        writeBytes(byteArray);
+    }
+
+    /**
+     * Encode the events into one contiguous byte array. Events are prepared for
+     * deferred processing beforehand, as in {@link #subAppend(Object)}. Events
+     * failing to be encoded are left out, see {@link #encodeBatchEvent(Object)}.
+     * With an encoder reusing its buffers, events are copied from the buffer
+     * into the result without an array per event.
+     *
+     * @since 1.5.7
+     */
+    protected byte[] encodeBatch(List<E> events) {
+        final int size = events.size();
+        if (size == 1) {
+            return encodeBatchEvent(events.get(0));
+        }
+        if (bufferReusingEncoder != null) {
+            ByteArrayOutputStream batchBytes = new ByteArrayOutputStream();
+            for (int i = 0; i < size; i++) {
+                EncodingBuffer buffer = encodeBatchEventToBuffer(events.get(i));
+                if (buffer != null) {
+                    batchBytes.write(buffer.getBytes(), 0, buffer.getLength());
+                }
+            }
+            return batchBytes.toByteArray();
+        }
+
+        byte[][] encoded = new byte[size][];
+        int totalLength = 0;
+        for (int i = 0; i < size; i++) {
+            byte[] bytes = encodeBatchEvent(events.get(i));
+            if (bytes != null) {
+                encoded[i] = bytes;
+                totalLength += bytes.length;
+            }
+        }
+
+        byte[] result = new byte[totalLength];
+        int offset = 0;
+        for (int i = 0; i < size; i++) {
+            byte[] bytes = encoded[i];
+            if (bytes != null) {
+                System.arraycopy(bytes, 0, result, offset, bytes.length);
+                offset += bytes.length;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Encode one event of a batch after preparing it for deferred processing.
+     * If encoding fails, the failure is reported and null is returned so that
+     * the other events of the batch are still written, as they would be if
+     * appended one at a time.
+     *
+     * @since 1.5.7
+     */
+    protected byte[] encodeBatchEvent(E event) {
+        if (bufferReusingEncoder != null) {
+            EncodingBuffer buffer = encodeBatchEventToBuffer(event);
+            return buffer == null ? null : Arrays.copyOf(buffer.getBytes(), buffer.getLength());
+        }
+        try {
+            prepareForDeferredProcessing(event);
+            return this.encoder.encode(event);
+        } catch (RuntimeException e) {
+            reportAppendFailure(e);
+            return null;
+        }
+    }
+
+    private EncodingBuffer encodeBatchEventToBuffer(E event) {
+        try {
+            prepareForDeferredProcessing(event);
+            return bufferReusingEncoder.encodeToBuffer(event);
+        } catch (RuntimeException e) {
+            reportAppendFailure(e);
+            return null;
+        }
+    }
+
+    private void prepareForDeferredProcessing(E event) {
+        // this step avoids LBCLASSIC-139
+        if (event instanceof DeferredProcessingAware) {
+            ((DeferredProcessingAware) event).prepareForDeferredProcessing();
+        }
+    }
+
     private void writeBytes(byte[] byteArray) throws IOException {
         if (byteArray == null || byteArray.length == 0)
             return;
 
+        if (isGroupCommitApplicable()) {
+            writeBytesAndAwaitGroupCommit(byteArray, 0, byteArray.length);
+            return;
+        }
+
         streamWriteLock.lock();
         try {
             writeByteArrayToOutputStreamWithPossibleFlush(byteArray);
@@ -205,6 +442,152 @@ public class OutputStreamAppender<E> extends UnsynchronizedAppenderBase<E> {
         }
     }
 
+    /**
+     * Group commit does not apply to writes made while holding the lock, for
+     * example headers written when the stream is replaced, since the flushing
+     * writer needs the lock.
+     */
+    private boolean isGroupCommitApplicable() {
+        return groupCommit && immediateFlush && !streamWriteLock.isHeldByCurrentThread();
+    }
+
+    private void writeBytesAndAwaitGroupCommit(byte[] bytes, int offset, int length) throws IOException {
+        long sequence;
+        streamWriteLock.lock();
+        try {
+            this.outputStream.write(bytes, offset, length);
+            sequence = ++writeSequence;
+            unflushedBytes += length;
+        } finally {
+            streamWriteLock.unlock();
+        }
+
+        if (unflushedBytes >= groupCommitMaxBytes.getSize()) {
+            groupCommitLock.lock();
+            try {
+                maxBytesReached.signal();
+            } finally {
+                groupCommitLock.unlock();
+            }
+        }
+        awaitGroupCommit(sequence);
+    }
+
+    /**
+     * Wait until the bytes written under the given sequence number are flushed.
+     * The first writer to find no flush in progress performs the next one. If
+     * the flush covering the sequence number fails, the failure is thrown to
+     * every writer it covers.
+     */
+    private void awaitGroupCommit(long sequence) throws IOException {
+        groupCommitLock.lock();
+        try {
+            while (flushedSequence < sequence) {
+                if (sequence <= failedSequence) {
+                    throw new IOException("Group flush failed", flushFailure);
+                }
+                if (flushInProgress) {
+                    flushed.awaitUninterruptibly();
+                    continue;
+                }
+                flushInProgress = true;
+                groupFlushSequence = sequence;
+                boolean success = false;
+                Exception failure = null;
+                try {
+                    awaitMoreWriters();
+                    groupCommitLock.unlock();
+                    try {
+                        groupFlush();
+                        success = true;
+                    } catch (IOException | RuntimeException e) {
+                        failure = e;
+                    } finally {
+                        groupCommitLock.lock();
+                    }
+                } finally {
+                    flushInProgress = false;
+                    if (success) {
+                        flushedSequence = Math.max(flushedSequence, groupFlushSequence);
+                    } else {
+                        failedSequence = Math.max(failedSequence, groupFlushSequence);
+                        flushFailure = failure;
+                    }
+                    flushed.signalAll();
+                }
+            }
+        } finally {
+            groupCommitLock.unlock();
+        }
+    }
+
+    private void awaitMoreWriters() {
+        long nanos = TimeUnit.MILLISECONDS.toNanos(groupCommitMaxLatency.getMilliseconds());
+        long maxBytes = groupCommitMaxBytes.getSize();
+        while (nanos > 0 && unflushedBytes < maxBytes) {
+            try {
+                nanos = maxBytesReached.awaitNanos(nanos);
+            } catch (InterruptedException e) {
+                // flush now and let the caller see the interruption
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Flush the stream under the lock and, if <code>groupCommitSync</code> is
+     * set, sync it outside the lock so that writers are not held up by the
+     * sync. Sets {@link #groupFlushSequence} to the sequence number of the last
+     * write covered by this flush.
+     */
+    private void groupFlush() throws IOException {
+        OutputStream flushedStream;
+        streamWriteLock.lock();
+        try {
+            groupFlushSequence = writeSequence;
+            flushedStream = this.outputStream;
+            if (flushedStream != null) {
+                flushedStream.flush();
+            }
+            unflushedBytes = 0;
+        } finally {
+            streamWriteLock.unlock();
+        }
+
+        if (groupCommitSync && flushedStream != null) {
+            try {
+                syncOutputStream();
+            } catch (ClosedChannelException e) {
+                // a replaced stream is synced by swapOutputStream before being closed
+                if (!isOutputStreamReplaced(flushedStream)) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private boolean isOutputStreamReplaced(OutputStream stream) {
+        streamWriteLock.lock();
+        try {
+            return this.outputStream != stream;
+        } finally {
+            streamWriteLock.unlock();
+        }
+    }
+
+    /**
+     * Force flushed bytes to the storage device. Invoked after each group flush
+     * if <code>groupCommitSync</code> is set, without holding the lock, so the
+     * stream may be replaced or closed concurrently. Also invoked under the
+     * lock on the previous stream when the stream is replaced. The default
+     * implementation does nothing.
+     *
+     * @since 1.5.7
+     */
+    protected void syncOutputStream() throws IOException {
+    }
+
     /**
      * A simple method to write to an outputStream and flush the stream if immediateFlush is set to true.
      *
@@ -230,10 +613,7 @@ public class OutputStreamAppender<E> extends UnsynchronizedAppenderBase<E> {
             return;
         }
         try {
-            // this step avoids LBCLASSIC-139
-            if (event instanceof DeferredProcessingAware) {
-                ((DeferredProcessingAware) event).prepareForDeferredProcessing();
-            }
+            prepareForDeferredProcessing(event);
             writeOut(event);
 
         } catch (IOException ioe) {
@@ -244,6 +624,71 @@ public class OutputStreamAppender<E> extends UnsynchronizedAppenderBase<E> {
         }
     }
 
+    /**
+     * Batch counterpart of {@link #subAppend(Object)}.
+     *
+     * @since 1.5.7
+     */
+    protected void subAppendBatch(List<E> events) {
+        if (!isStarted()) {
+            return;
+        }
+        try {
+            writeOutBatch(events);
+        } catch (IOException ioe) {
+            // as soon as an exception occurs, move to non-started state
+            // and add a single ErrorStatus to the SM.
+            this.started = false;
+            addStatus(new ErrorStatus("IO failure in appender", this, ioe));
+        }
+    }
+
+    /**
+     * Write bytes previously produced by this appender's encoder, possibly on
+     * another thread. Used by {@link AsyncAppenderBase} when events are encoded
+     * at enqueue time. Filters attached to this appender are not consulted.
+     *
+     * @since 1.5.7
+     */
+    protected void subAppendEncoded(byte[] bytes, int offset, int length) {
+        if (!isStarted()) {
+            return;
+        }
+        try {
+            writeEncodedOut(bytes, offset, length);
+        } catch (IOException ioe) {
+            // as soon as an exception occurs, move to non-started state
+            // and add a single ErrorStatus to the SM.
+            this.started = false;
+            addStatus(new ErrorStatus("IO failure in appender", this, ioe));
+        }
+    }
+
+    /**
+     * Write already encoded bytes with a single call to the underlying stream.
+     *
+     * @since 1.5.7
+     */
+    protected void writeEncodedOut(byte[] bytes, int offset, int length) throws IOException {
+        if (length == 0)
+            return;
+
+        if (isGroupCommitApplicable()) {
+            writeBytesAndAwaitGroupCommit(bytes, offset, length);
+            return;
+        }
+
+        streamWriteLock.lock();
+        try {
+            this.outputStream.write(bytes, offset, length);
+            if (immediateFlush) {
+                this.outputStream.flush();
+            }
+        } finally {
+            streamWriteLock.unlock();
+        }
+    }
+
     public Encoder<E> getEncoder() {
         return encoder;
     }
@@ -260,4 +705,62 @@ public class OutputStreamAppender<E> extends UnsynchronizedAppenderBase<E> {
         this.immediateFlush = immediateFlush;
     }
 
+    public boolean isGroupCommit() {
+        return groupCommit;
+    }
+
+    /**
+     * If true, and if <code>immediateFlush</code> is true, concurrent writers
+     * share flushes while each writer still returns only once its bytes are
+     * flushed. The default is false.
+     *
+     * @since 1.5.7
+     */
+    public void setGroupCommit(boolean groupCommit) {
+        this.groupCommit = groupCommit;
+    }
+
+    public Duration getGroupCommitMaxLatency() {
+        return groupCommitMaxLatency;
+    }
+
+    /**
+     * Sets how long a group flush may be delayed so that more writers join it.
+     * The default is 0, in which case only writers arriving while a flush is in
+     * progress are grouped.
+     *
+     * @since 1.5.7
+     */
+    public void setGroupCommitMaxLatency(Duration groupCommitMaxLatency) {
+        this.groupCommitMaxLatency = groupCommitMaxLatency;
+    }
+
+    public FileSize getGroupCommitMaxBytes() {
+        return groupCommitMaxBytes;
+    }
+
+    /**
+     * Sets the number of pending bytes which triggers a group flush before
+     * <code>groupCommitMaxLatency</code> elapses. The default is 64KB.
+     *
+     * @since 1.5.7
+     */
+    public void setGroupCommitMaxBytes(FileSize groupCommitMaxBytes) {
+        this.groupCommitMaxBytes = groupCommitMaxBytes;
+    }
+
+    public boolean isGroupCommitSync() {
+        return groupCommitSync;
+    }
+
+    /**
+     * If true, each group flush is followed by {@link #syncOutputStream()}, for
+     * example an fsync in the case of file appenders. The default is false.
+     *
+     * @since 1.5.7
+     */
+    public void setGroupCommitSync(boolean groupCommitSync) {
+        this.groupCommitSync = groupCommitSync;
+    }
+
 }
@@ -0,0 +1,380 @@
+/*
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2024, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import ch.qos.logback.core.async.AppenderQueueSettings;
+import ch.qos.logback.core.async.Partitioner;
+import ch.qos.logback.core.async.QueueType;
+import ch.qos.logback.core.async.ThreadPartitioner;
+import ch.qos.logback.core.spi.AppenderAttachable;
+import ch.qos.logback.core.spi.AppenderAttachableImpl;
+
+/**
+ * An asynchronous appender which fans events out to several attached
+ * appenders, each served by its own set of worker threads.
+ * <p>
+ * Events are mapped to one of <code>partitionCount</code> partitions by a
+ * {@link Partitioner}. Each attached appender owns one queue and one worker
+ * thread per partition. Thus, events mapped to the same partition reach each
+ * attached appender in the order they were appended, while a slow appender
+ * only delays events destined to itself.
+ * <p>
+ * The <code>queueSize</code>, <code>discardingThreshold</code>,
+ * <code>neverBlock</code> and <code>queueType</code> properties have the same
+ * meaning as in {@link AsyncAppenderBase} but apply to each queue separately.
+ * Consequently, events are discarded or dropped per attached appender. The
+ * <code>queueSize</code>, <code>discardingThreshold</code> and
+ * <code>neverBlock</code> properties can be overridden for the queues of a
+ * given attached appender, see {@link AppenderQueueSettings}.
+ * <p>
+ * Appenders must be attached before this appender is started.
+ *
+ * @param <E>
+ * @since 1.5.7
+ */
+public class PartitionedAsyncAppenderBase<E> extends UnsynchronizedAppenderBase<E> implements AppenderAttachable<E> {
+
+    AppenderAttachableImpl<E> aai = new AppenderAttachableImpl<E>();
+
+    /**
+     * The default number of partitions.
+     */
+    public static final int DEFAULT_PARTITION_COUNT = 4;
+    int partitionCount = DEFAULT_PARTITION_COUNT;
+
+    Partitioner<E> partitioner;
+
+    int queueSize = AsyncAppenderBase.DEFAULT_QUEUE_SIZE;
+    int discardingThreshold = AsyncAppenderBase.UNDEFINED;
+    boolean neverBlock = false;
+    int maxFlushTime = AsyncAppenderBase.DEFAULT_MAX_FLUSH_TIME;
+    int maxBatchSize = AsyncAppenderBase.DEFAULT_MAX_BATCH_SIZE;
+    QueueType queueType = QueueType.ARRAY_BLOCKING;
+
+    final List<AppenderQueueSettings> appenderQueueSettingsList = new ArrayList<AppenderQueueSettings>();
+
+    // lanes.get(appenderIndex).get(partition)
+    List<List<Lane<E>>> lanes;
+
+    /**
+     * Is the eventObject passed as parameter discardable? See
+     * {@link AsyncAppenderBase#isDiscardable(Object)}.
+     *
+     * @param eventObject
+     * @return - true if the event can be discarded, false otherwise
+     */
+    protected boolean isDiscardable(E eventObject) {
+        return false;
+    }
+
+    /**
+     * Invoked for each event which is not queued for one of the attached
+     * appenders. See {@link AsyncAppenderBase#discarded(Object)}.
+     *
+     * @param eventObject
+     */
+    protected void discarded(E eventObject) {
+    }
+
+    /**
+     * Pre-process the event prior to partitioning and queueing.
+     *
+     * @param eventObject
+     */
+    protected void preprocess(E eventObject) {
+    }
+
+    /**
+     * Returns the partitioner used when none is set.
+     */
+    protected Partitioner<E> defaultPartitioner() {
+        return new ThreadPartitioner<E>();
+    }
+
+    @Override
+    public void start() {
+        if (isStarted())
+            return;
+        List<Appender<E>> appenders = new ArrayList<Appender<E>>();
+        aai.iteratorForAppenders().forEachRemaining(appenders::add);
+        if (appenders.isEmpty()) {
+            addError("No attached appenders found.");
+            return;
+        }
+        if (partitionCount < 1) {
+            addError("Invalid partition count [" + partitionCount + "]");
+            return;
+        }
+        if (partitioner == null) {
+            partitioner = defaultPartitioner();
+            addInfo("No partitioner set, defaulting to " + partitioner.getClass().getSimpleName());
+        }
+
+        for (AppenderQueueSettings settings : appenderQueueSettingsList) {
+            if (aai.getAppender(settings.getAppenderName()) == null) {
+                addWarn("Queue settings for appender [" + settings.getAppenderName()
+                        + "] which is not attached will be ignored.");
+            }
+        }
+
+        List<List<Lane<E>>> newLanes = new ArrayList<List<Lane<E>>>(appenders.size());
+        for (Appender<E> appender : appenders) {
+            List<Lane<E>> lanesOfAppender = new ArrayList<Lane<E>>(partitionCount);
+            newLanes.add(lanesOfAppender);
+            AppenderQueueSettings settings = getAppenderQueueSettings(appender.getName());
+            for (int p = 0; p < partitionCount; p++) {
+                Lane<E> lane = buildLane(appender, p, settings);
+                lane.start();
+                if (!lane.isStarted()) {
+                    addError("Failed to start queue for appender [" + appender.getName() + "]");
+                    stopLanes(newLanes);
+                    return;
+                }
+                lanesOfAppender.add(lane);
+            }
+        }
+        lanes = newLanes;
+        super.start();
+    }
+
+    private AppenderQueueSettings getAppenderQueueSettings(String appenderName) {
+        for (AppenderQueueSettings settings : appenderQueueSettingsList) {
+            if (appenderName != null && appenderName.equals(settings.getAppenderName())) {
+                return settings;
+            }
+        }
+        // inherit everything
+        return new AppenderQueueSettings();
+    }
+
+    private Lane<E> buildLane(Appender<E> appender, int partition, AppenderQueueSettings settings) {
+        Lane<E> lane = new Lane<E>(this);
+        lane.setContext(context);
+        lane.setName(getName() + "-" + appender.getName() + "-" + partition);
+        lane.setQueueSize(settings.getQueueSize() == null ? queueSize : settings.getQueueSize());
+        lane.setDiscardingThreshold(
+                settings.getDiscardingThreshold() == null ? discardingThreshold : settings.getDiscardingThreshold());
+        lane.setNeverBlock(settings.getNeverBlock() == null ? neverBlock : settings.getNeverBlock());
+        lane.setMaxFlushTime(maxFlushTime);
+        lane.setMaxBatchSize(maxBatchSize);
+        lane.setQueueType(queueType);
+        lane.stopAppendersOnWorkerExit = false;
+        lane.addAppender(appender);
+        return lane;
+    }
+
+    @Override
+    public void stop() {
+        if (!isStarted())
+            return;
+        super.stop();
+        // each lane flushes its own queue
+        stopLanes(lanes);
+        aai.detachAndStopAllAppenders();
+    }
+
+    /**
+     * All lanes are signalled before any is waited for, so that they flush
+     * their queues concurrently within a single <code>maxFlushTime</code>.
+     */
+    private void stopLanes(List<List<Lane<E>>> lanesToStop) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxFlushTime);
+        List<Lane<E>> stopping = new ArrayList<Lane<E>>();
+        for (List<Lane<E>> lanesOfAppender : lanesToStop) {
+            for (Lane<E> lane : lanesOfAppender) {
+                if (lane.isStarted()) {
+                    lane.signalStop();
+                    stopping.add(lane);
+                }
+            }
+        }
+        for (Lane<E> lane : stopping) {
+            lane.awaitStop(deadline);
+        }
+    }
+
+    @Override
+    protected void append(E eventObject) {
+        preprocess(eventObject);
+        int partition = Math.floorMod(partitioner.partition(eventObject, partitionCount), partitionCount);
+        final List<List<Lane<E>>> localLanes = lanes;
+        final int size = localLanes.size();
+        for (int a = 0; a < size; a++) {
+            localLanes.get(a).get(partition).append(eventObject);
+        }
+    }
+
+    public int getPartitionCount() {
+        return partitionCount;
+    }
+
+    /**
+     * Sets the number of partitions, i.e. the number of worker threads per
+     * attached appender.
+     *
+     * @param partitionCount
+     */
+    public void setPartitionCount(int partitionCount) {
+        this.partitionCount = partitionCount;
+    }
+
+    public Partitioner<E> getPartitioner() {
+        return partitioner;
+    }
+
+    public void setPartitioner(Partitioner<E> partitioner) {
+        this.partitioner = partitioner;
+    }
+
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    /**
+     * Sets the capacity of each queue.
+     *
+     * @param queueSize
+     */
+    public void setQueueSize(int queueSize) {
+        this.queueSize = queueSize;
+    }
+
+    public int getDiscardingThreshold() {
+        return discardingThreshold;
+    }
+
+    public void setDiscardingThreshold(int discardingThreshold) {
+        this.discardingThreshold = discardingThreshold;
+    }
+
+    public boolean isNeverBlock() {
+        return neverBlock;
+    }
+
+    public void setNeverBlock(boolean neverBlock) {
+        this.neverBlock = neverBlock;
+    }
+
+    public int getMaxFlushTime() {
+        return maxFlushTime;
+    }
+
+    public void setMaxFlushTime(int maxFlushTime) {
+        this.maxFlushTime = maxFlushTime;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public void setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public QueueType getQueueType() {
+        return queueType;
+    }
+
+    public void setQueueType(QueueType queueType) {
+        this.queueType = queueType;
+    }
+
+    /**
+     * Overrides the queue settings of this appender for the queues of one
+     * attached appender. Must be invoked before this appender is started.
+     *
+     * @param settings
+     */
+    public void addAppenderQueueSettings(AppenderQueueSettings settings) {
+        appenderQueueSettingsList.add(settings);
+    }
+
+    /**
+     * Returns the number of events currently queued, across all queues.
+     *
+     * @return number of queued events
+     */
+    public int getNumberOfElementsInQueue() {
+        int total = 0;
+        final List<List<Lane<E>>> localLanes = lanes;
+        if (localLanes == null) {
+            return 0;
+        }
+        for (List<Lane<E>> lanesOfAppender : localLanes) {
+            for (Lane<E> lane : lanesOfAppender) {
+                total += lane.getNumberOfElementsInQueue();
+            }
+        }
+        return total;
+    }
+
+    public void addAppender(Appender<E> newAppender) {
+        if (isStarted()) {
+            addWarn("Appender [" + newAppender.getName() + "] attached after start will be ignored.");
+        }
+        addInfo("Attaching appender named [" + newAppender.getName() + "] to " + getClass().getSimpleName() + ".");
+        aai.addAppender(newAppender);
+    }
+
+    public Iterator<Appender<E>> iteratorForAppenders() {
+        return aai.iteratorForAppenders();
+    }
+
+    public Appender<E> getAppender(String name) {
+        return aai.getAppender(name);
+    }
+
+    public boolean isAttached(Appender<E> eAppender) {
+        return aai.isAttached(eAppender);
+    }
+
+    public void detachAndStopAllAppenders() {
+        aai.detachAndStopAllAppenders();
+    }
+
+    public boolean detachAppender(Appender<E> eAppender) {
+        return aai.detachAppender(eAppender);
+    }
+
+    public boolean detachAppender(String name) {
+        return aai.detachAppender(name);
+    }
+
+    /**
+     * The queue and worker thread serving one partition of one attached
+     * appender.
+     */
+    static class Lane<E> extends AsyncAppenderBase<E> {
+        final PartitionedAsyncAppenderBase<E> owner;
+
+        Lane(PartitionedAsyncAppenderBase<E> owner) {
+            this.owner = owner;
+        }
+
+        @Override
+        protected boolean isDiscardable(E eventObject) {
+            return owner.isDiscardable(eventObject);
+        }
+
+        @Override
+        protected void discarded(E eventObject) {
+            owner.discarded(eventObject);
+        }
+    }
+}
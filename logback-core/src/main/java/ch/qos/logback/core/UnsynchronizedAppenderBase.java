@@ -13,6 +13,7 @@
  */
 package ch.qos.logback.core;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import ch.qos.logback.core.filter.Filter;
@@ -85,9 +86,7 @@ abstract public class UnsynchronizedAppenderBase<E> extends ContextAwareBase imp
             this.append(eventObject);
 
         } catch (Exception e) {
-            if (exceptionCount++ < ALLOWED_REPEATS) {
-                addError("Appender [" + name + "] failed to append.", e);
-            }
+            reportAppendFailure(e);
         } finally {
             guard.set(Boolean.FALSE);
         }
@@ -95,6 +94,109 @@ abstract public class UnsynchronizedAppenderBase<E> extends ContextAwareBase imp
 
     abstract protected void append(E eventObject);
 
+    /**
+     * Batch counterpart of {@link #doAppend(Object)}. Events denied by the filter
+     * chain are removed and the remaining events are passed to
+     * {@link #appendBatch(List)}. As with {@link #doAppend(Object)}, an event
+     * whose filtering or appending fails is reported and does not prevent the
+     * other events of the batch from being appended.
+     *
+     * <p>This class does not implement {@link BatchAppender}, derived classes
+     * wishing to receive batches need to declare it.
+     *
+     * @param events
+     * @since 1.5.7
+     */
+    public void doAppendBatch(List<E> events) {
+        // prevent re-entry.
+        if (Boolean.TRUE.equals(guard.get())) {
+            return;
+        }
+
+        try {
+            guard.set(Boolean.TRUE);
+
+            if (!this.started) {
+                if (statusRepeatCount++ < ALLOWED_REPEATS) {
+                    addStatus(new WarnStatus("Attempted to append to non started appender [" + name + "].", this));
+                }
+                return;
+            }
+
+            List<E> accepted = filterBatch(events);
+            if (!accepted.isEmpty()) {
+                this.appendBatch(accepted);
+            }
+        } catch (Exception e) {
+            reportAppendFailure(e);
+        } finally {
+            guard.set(Boolean.FALSE);
+        }
+    }
+
+    /**
+     * Report an exception thrown while appending an event. Only the first few
+     * exceptions are reported.
+     *
+     * @since 1.5.7
+     */
+    protected void reportAppendFailure(Exception e) {
+        if (exceptionCount++ < ALLOWED_REPEATS) {
+            addError("Appender [" + name + "] failed to append.", e);
+        }
+    }
+
+    /**
+     * Returns the events accepted by the filter chain. The list passed as
+     * parameter is returned as is unless at least one event is denied or fails
+     * to be filtered.
+     */
+    List<E> filterBatch(List<E> events) {
+        List<E> accepted = null;
+        final int size = events.size();
+        for (int i = 0; i < size; i++) {
+            E event = events.get(i);
+            if (!isAcceptedInBatch(event)) {
+                if (accepted == null) {
+                    accepted = new ArrayList<E>(events.subList(0, i));
+                }
+            } else if (accepted != null) {
+                accepted.add(event);
+            }
+        }
+        return accepted == null ? events : accepted;
+    }
+
+    private boolean isAcceptedInBatch(E event) {
+        try {
+            return getFilterChainDecision(event) != FilterReply.DENY;
+        } catch (Exception e) {
+            reportAppendFailure(e);
+            return false;
+        }
+    }
+
+    /**
+     * Append a batch of events which passed the filter chain. The default
+     * implementation invokes {@link #append(Object)} for each event. Derived
+     * classes implementing {@link BatchAppender} override this method, and
+     * should report the failure of an event with
+     * {@link #reportAppendFailure(Exception)} rather than abandon the batch.
+     *
+     * @param events
+     * @since 1.5.7
+     */
+    protected void appendBatch(List<E> events) {
+        final int size = events.size();
+        for (int i = 0; i < size; i++) {
+            try {
+                this.append(events.get(i));
+            } catch (Exception e) {
+                reportAppendFailure(e);
+            }
+        }
+    }
+
     /**
      * Set the name of this appender.
      */
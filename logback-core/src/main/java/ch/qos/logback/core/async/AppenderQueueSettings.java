@@ -0,0 +1,75 @@
+/*
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2024, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.async;
+
+/**
+ * Queue settings of one appender attached to a
+ * {@link ch.qos.logback.core.PartitionedAsyncAppenderBase}, overriding those of
+ * the partitioned appender for the queues of that appender. Settings which are
+ * not set, returned as <code>null</code>, are inherited. For example:
+ *
+ * <pre>
+ * &lt;appenderQueueSettings&gt;
+ *   &lt;appenderName&gt;NETWORK&lt;/appenderName&gt;
+ *   &lt;queueSize&gt;4096&lt;/queueSize&gt;
+ *   &lt;neverBlock&gt;true&lt;/neverBlock&gt;
+ * &lt;/appenderQueueSettings&gt;
+ * </pre>
+ *
+ * @since 1.5.7
+ */
+public class AppenderQueueSettings {
+
+    String appenderName;
+    Integer queueSize;
+    Integer discardingThreshold;
+    Boolean neverBlock;
+
+    public String getAppenderName() {
+        return appenderName;
+    }
+
+    /**
+     * Sets the name of the attached appender these settings apply to.
+     *
+     * @param appenderName
+     */
+    public void setAppenderName(String appenderName) {
+        this.appenderName = appenderName;
+    }
+
+    public Integer getQueueSize() {
+        return queueSize;
+    }
+
+    public void setQueueSize(int queueSize) {
+        this.queueSize = queueSize;
+    }
+
+    public Integer getDiscardingThreshold() {
+        return discardingThreshold;
+    }
+
+    public void setDiscardingThreshold(int discardingThreshold) {
+        this.discardingThreshold = discardingThreshold;
+    }
+
+    public Boolean getNeverBlock() {
+        return neverBlock;
+    }
+
+    public void setNeverBlock(boolean neverBlock) {
+        this.neverBlock = neverBlock;
+    }
+}
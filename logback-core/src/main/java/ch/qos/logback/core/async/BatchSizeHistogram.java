@@ -0,0 +1,113 @@
+/*
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2024, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.async;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of the sizes of batches drained from a queue. Bucket
+ * <code>i</code> counts batches whose size lies in the range
+ * [2<sup>i</sup>, 2<sup>i+1</sup>).
+ *
+ * <p>Batches are recorded by a single thread, typically the worker thread of
+ * an {@link ch.qos.logback.core.AsyncAppenderBase}, and can be read from any
+ * thread. Recording does not allocate.
+ *
+ * @since 1.5.7
+ */
+public class BatchSizeHistogram {
+
+    public static final int BUCKET_COUNT = 32;
+
+    // updated by a single writer, hence lazySet instead of incrementAndGet
+    final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    final AtomicLongArray totals = new AtomicLongArray(2);
+
+    static final int BATCH_COUNT_INDEX = 0;
+    static final int EVENT_COUNT_INDEX = 1;
+
+    /**
+     * Record a batch of the given size. Must not be called concurrently.
+     *
+     * @param size the number of events in the batch, ignored if less than 1
+     */
+    public void record(int size) {
+        if (size < 1) {
+            return;
+        }
+        int bucket = bucketOf(size);
+        buckets.lazySet(bucket, buckets.get(bucket) + 1);
+        totals.lazySet(BATCH_COUNT_INDEX, totals.get(BATCH_COUNT_INDEX) + 1);
+        totals.lazySet(EVENT_COUNT_INDEX, totals.get(EVENT_COUNT_INDEX) + size);
+    }
+
+    static int bucketOf(int size) {
+        return 31 - Integer.numberOfLeadingZeros(size);
+    }
+
+    /**
+     * Returns a snapshot of the bucket counts.
+     */
+    public long[] getCounts() {
+        long[] result = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            result[i] = buckets.get(i);
+        }
+        return result;
+    }
+
+    public long getBatchCount() {
+        return totals.get(BATCH_COUNT_INDEX);
+    }
+
+    public long getEventCount() {
+        return totals.get(EVENT_COUNT_INDEX);
+    }
+
+    public double getMeanBatchSize() {
+        long batchCount = getBatchCount();
+        if (batchCount == 0) {
+            return 0;
+        }
+        return (double) getEventCount() / batchCount;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("batches=").append(getBatchCount());
+        sb.append(", events=").append(getEventCount());
+        sb.append(", buckets={");
+        boolean first = true;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long count = buckets.get(i);
+            if (count == 0) {
+                continue;
+            }
+            if (!first) {
+                sb.append(", ");
+            }
+            first = false;
+            long low = 1L << i;
+            long high = (1L << (i + 1)) - 1;
+            sb.append(low);
+            if (high != low) {
+                sb.append('-').append(high);
+            }
+            sb.append(':').append(count);
+        }
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,311 @@
+/*
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2024, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.async;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded queue of byte records stored outside of the Java heap, in a direct
+ * {@link ByteBuffer} used as a ring. Each record is stored as a 4 byte length
+ * followed by its content.
+ *
+ * <p>The queue is bounded both in bytes and in number of records. Since the
+ * records only live off-heap, the heap footprint of the queue does not depend
+ * on the number of records it holds. The buffer may also be a memory-mapped
+ * file, see {@link #mapFile(File, int, int)}.
+ *
+ * <p>Records are consumed by a single thread, in bulk, via
+ * {@link #take(byte[][])} and {@link #poll(byte[][])}.
+ *
+ * @since 1.5.7
+ */
+public class DirectByteRingBuffer {
+
+    static final int LENGTH_PREFIX = Integer.BYTES;
+
+    final ByteBuffer buffer;
+    final int byteCapacity;
+    final int maxRecords;
+
+    final ReentrantLock lock = new ReentrantLock();
+    final Condition notEmpty = lock.newCondition();
+    final Condition notFull = lock.newCondition();
+
+    // guarded by lock
+    int readPosition;
+    int writePosition;
+    int usedBytes;
+    // written under lock, volatile so that size() does not need to lock
+    volatile int recordCount;
+
+    public DirectByteRingBuffer(int byteCapacity, int maxRecords) {
+        this(ByteBuffer.allocateDirect(checkByteCapacity(byteCapacity)), maxRecords);
+    }
+
+    DirectByteRingBuffer(ByteBuffer buffer, int maxRecords) {
+        if (maxRecords < 1) {
+            throw new IllegalArgumentException("Invalid maximum record count [" + maxRecords + "]");
+        }
+        this.buffer = buffer;
+        this.byteCapacity = checkByteCapacity(buffer.capacity());
+        this.maxRecords = maxRecords;
+    }
+
+    /**
+     * Create a buffer backed by the given file, mapped in memory. The file is
+     * created if necessary. Record boundaries are only kept in memory, so the
+     * file content cannot be read back after the buffer is discarded. The file
+     * remains mapped until the buffer is garbage collected.
+     */
+    public static DirectByteRingBuffer mapFile(File file, int byteCapacity, int maxRecords) throws IOException {
+        checkByteCapacity(byteCapacity);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            // the mapping remains valid once the channel is closed
+            return new DirectByteRingBuffer(channel.map(FileChannel.MapMode.READ_WRITE, 0, byteCapacity), maxRecords);
+        }
+    }
+
+    static int checkByteCapacity(int byteCapacity) {
+        if (byteCapacity <= LENGTH_PREFIX) {
+            throw new IllegalArgumentException("Invalid byte capacity [" + byteCapacity + "]");
+        }
+        return byteCapacity;
+    }
+
+    /**
+     * Returns true if a record of the given length can ever fit in this buffer.
+     */
+    public boolean accepts(int length) {
+        return length + LENGTH_PREFIX <= byteCapacity;
+    }
+
+    /**
+     * Insert the record if there is room for it.
+     *
+     * @return true if inserted, false if the buffer is full or the record too
+     *         large
+     */
+    public boolean offer(byte[] record) {
+        if (!accepts(record.length)) {
+            return false;
+        }
+        lock.lock();
+        try {
+            if (!hasRoomFor(record.length)) {
+                return false;
+            }
+            write(record);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Insert the record, waiting for room if necessary.
+     *
+     * @return true if inserted, false if the record can never fit
+     */
+    public boolean put(byte[] record) throws InterruptedException {
+        if (!accepts(record.length)) {
+            return false;
+        }
+        lock.lockInterruptibly();
+        try {
+            while (!hasRoomFor(record.length)) {
+                notFull.await();
+            }
+            write(record);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Move as many records as possible into <code>holder[0]</code>, waiting
+     * until at least one record is available. If the first record does not fit,
+     * <code>holder[0]</code> is replaced by a large enough array.
+     *
+     * @return the number of bytes copied
+     */
+    public int take(byte[][] holder) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (recordCount == 0) {
+                notEmpty.await();
+            }
+            return drain(holder);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Same as {@link #take(byte[][])} but returns 0 immediately if the buffer
+     * is empty.
+     */
+    public int poll(byte[][] holder) {
+        lock.lock();
+        try {
+            if (recordCount == 0) {
+                return 0;
+            }
+            return drain(holder);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Same as {@link #take(byte[][])} but waits at most the given time for a
+     * record to become available.
+     *
+     * @return the number of bytes copied, 0 if the wait timed out
+     */
+    public int poll(byte[][] holder, long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (recordCount == 0) {
+                if (nanos <= 0) {
+                    return 0;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return drain(holder);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        return recordCount;
+    }
+
+    public boolean isEmpty() {
+        return recordCount == 0;
+    }
+
+    /**
+     * Returns the number of bytes currently used, including length prefixes.
+     */
+    public int getUsedBytes() {
+        lock.lock();
+        try {
+            return usedBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getByteCapacity() {
+        return byteCapacity;
+    }
+
+    /**
+     * Returns the number of additional records this buffer accepts, ignoring
+     * byte capacity.
+     */
+    public int remainingCapacity() {
+        return maxRecords - size();
+    }
+
+    private boolean hasRoomFor(int length) {
+        return recordCount < maxRecords && usedBytes + LENGTH_PREFIX + length <= byteCapacity;
+    }
+
+    private void write(byte[] record) {
+        writeInt(record.length);
+        writeBytes(record, 0, record.length);
+        usedBytes += LENGTH_PREFIX + record.length;
+        recordCount++;
+        notEmpty.signal();
+    }
+
+    private int drain(byte[][] holder) {
+        byte[] dest = holder[0];
+        int copied = 0;
+        while (recordCount > 0) {
+            int length = peekInt();
+            if (copied + length > dest.length) {
+                if (copied > 0) {
+                    break;
+                }
+                dest = new byte[length];
+                holder[0] = dest;
+            }
+            readPosition = advance(readPosition, LENGTH_PREFIX);
+            readBytes(dest, copied, length);
+            copied += length;
+            usedBytes -= LENGTH_PREFIX + length;
+            recordCount--;
+        }
+        notFull.signalAll();
+        return copied;
+    }
+
+    private void writeInt(int value) {
+        for (int shift = 24; shift >= 0; shift -= 8) {
+            buffer.put(writePosition, (byte) (value >>> shift));
+            writePosition = advance(writePosition, 1);
+        }
+    }
+
+    private int peekInt() {
+        int value = 0;
+        int position = readPosition;
+        for (int i = 0; i < LENGTH_PREFIX; i++) {
+            value = (value << 8) | (buffer.get(position) & 0xFF);
+            position = advance(position, 1);
+        }
+        return value;
+    }
+
+    private void writeBytes(byte[] src, int offset, int length) {
+        int firstPart = Math.min(length, byteCapacity - writePosition);
+        // all accesses happen under the lock, so the buffer's own position can be used
+        buffer.position(writePosition);
+        buffer.put(src, offset, firstPart);
+        if (firstPart < length) {
+            buffer.position(0);
+            buffer.put(src, offset + firstPart, length - firstPart);
+        }
+        writePosition = advance(writePosition, length);
+    }
+
+    private void readBytes(byte[] dest, int offset, int length) {
+        int firstPart = Math.min(length, byteCapacity - readPosition);
+        buffer.position(readPosition);
+        buffer.get(dest, offset, firstPart);
+        if (firstPart < length) {
+            buffer.position(0);
+            buffer.get(dest, offset + firstPart, length - firstPart);
+        }
+        readPosition = advance(readPosition, length);
+    }
+
+    private int advance(int position, int delta) {
+        int next = position + delta;
+        return next >= byteCapacity ? next - byteCapacity : next;
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2024, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.async;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts dropped events per key, typically a logger name, and per category,
+ * typically a level. Recording is lock-free and, once a key has been seen,
+ * allocation-free.
+ *
+ * @since 1.5.7
+ */
+public class DropCounter {
+
+    /**
+     * Receives the counts harvested by {@link DropCounter#drain(Visitor)}.
+     */
+    public interface Visitor {
+        void visit(String key, int category, long count);
+    }
+
+    final int categoryCount;
+    final Map<String, LongAdder[]> counters = new ConcurrentHashMap<String, LongAdder[]>();
+
+    public DropCounter(int categoryCount) {
+        if (categoryCount < 1) {
+            throw new IllegalArgumentException("Invalid category count [" + categoryCount + "]");
+        }
+        this.categoryCount = categoryCount;
+    }
+
+    public void record(String key, int category) {
+        add(key, category, 1);
+    }
+
+    public void add(String key, int category, long count) {
+        LongAdder[] adders = counters.get(key);
+        if (adders == null) {
+            adders = counters.computeIfAbsent(key, k -> newAdders());
+        }
+        adders[category].add(count);
+    }
+
+    private LongAdder[] newAdders() {
+        LongAdder[] adders = new LongAdder[categoryCount];
+        for (int i = 0; i < categoryCount; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    /**
+     * Returns the current count for the given key and category.
+     */
+    public long get(String key, int category) {
+        LongAdder[] adders = counters.get(key);
+        return adders == null ? 0 : adders[category].sum();
+    }
+
+    /**
+     * Hand all non-zero counts to the visitor and reset them. Drops recorded
+     * concurrently are either included or kept for the next invocation: the
+     * harvested count is subtracted rather than reset, since
+     * {@link LongAdder#sumThenReset()} may lose concurrent additions.
+     */
+    public void drain(Visitor visitor) {
+        for (Map.Entry<String, LongAdder[]> entry : counters.entrySet()) {
+            LongAdder[] adders = entry.getValue();
+            for (int i = 0; i < categoryCount; i++) {
+                long count = adders[i].sum();
+                if (count > 0) {
+                    adders[i].add(-count);
+                    visitor.visit(entry.getKey(), i, count);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,288 @@
+/*
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2024, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.async;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A bounded, preallocated, lock-free multi-producer/single-consumer queue.
+ *
+ * <p>Producers claim a slot by advancing the tail sequence with a CAS and then
+ * publish the element into the slot. The single consumer reads slots in order,
+ * clears them and advances the head sequence. Neither side ever takes a lock.
+ *
+ * <p>The backing array is sized to the next power of two so that slot indexes
+ * can be computed by masking, but the queue never holds more than the
+ * requested capacity. Thus, {@link #remainingCapacity()} behaves exactly as for
+ * an {@link java.util.concurrent.ArrayBlockingQueue} of the same capacity.
+ *
+ * <p>The methods {@link #poll()}, {@link #take()}, {@link #drainTo(Collection)}
+ * and their variants may only be invoked by a single consumer thread at a
+ * time. All other methods are safe to invoke from any thread.
+ *
+ * @param <E> the type of elements held in this queue
+ * @since 1.5.7
+ */
+public class MpscRingBuffer<E> extends AbstractQueue<E> implements BlockingQueue<E> {
+
+    /**
+     * Time producers park when the buffer is full, before trying again.
+     */
+    static final long PRODUCER_PARK_NANOS = 50_000L;
+
+    final int capacity;
+    final int mask;
+    final AtomicReferenceArray<E> buffer;
+
+    final PaddedSequence tail = new PaddedSequence(0);
+    final PaddedSequence head = new PaddedSequence(0);
+
+    // the consumer thread, if parked waiting for an element
+    volatile Thread waitingConsumer;
+
+    public MpscRingBuffer(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Invalid capacity [" + capacity + "]");
+        }
+        this.capacity = capacity;
+        int actualSize = ceilingPowerOfTwo(capacity);
+        this.mask = actualSize - 1;
+        this.buffer = new AtomicReferenceArray<E>(actualSize);
+    }
+
+    static int ceilingPowerOfTwo(int x) {
+        if (x > (1 << 30)) {
+            throw new IllegalArgumentException("Capacity [" + x + "] is too large");
+        }
+        return 1 << (32 - Integer.numberOfLeadingZeros(x - 1));
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    @Override
+    public boolean offer(E e) {
+        Objects.requireNonNull(e);
+        long current;
+        do {
+            current = tail.get();
+            if (current - head.get() >= capacity) {
+                return false;
+            }
+        } while (!tail.compareAndSet(current, current + 1));
+
+        // a volatile store is required here, see take()
+        buffer.set(slot(current), e);
+        signalConsumer();
+        return true;
+    }
+
+    @Override
+    public void put(E e) throws InterruptedException {
+        while (!offer(e)) {
+            LockSupport.parkNanos(this, PRODUCER_PARK_NANOS);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+
+    @Override
+    public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (!offer(e)) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            LockSupport.parkNanos(this, Math.min(remaining, PRODUCER_PARK_NANOS));
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public E poll() {
+        long current = head.get();
+        int index = slot(current);
+        E e = buffer.get(index);
+        if (e == null) {
+            if (current == tail.get()) {
+                return null;
+            }
+            // a producer has claimed the slot but not yet published into it
+            do {
+                Thread.onSpinWait();
+                e = buffer.get(index);
+            } while (e == null);
+        }
+        buffer.lazySet(index, null);
+        head.lazySet(current + 1);
+        return e;
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        E e;
+        while ((e = poll()) == null) {
+            // Register as waiting and check again. Producers publish with a
+            // volatile store before reading waitingConsumer, so either we see
+            // the element or they see us.
+            waitingConsumer = Thread.currentThread();
+            try {
+                e = poll();
+                if (e != null) {
+                    return e;
+                }
+                LockSupport.park(this);
+            } finally {
+                waitingConsumer = null;
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+        return e;
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        E e;
+        while ((e = poll()) == null) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return null;
+            }
+            waitingConsumer = Thread.currentThread();
+            try {
+                e = poll();
+                if (e != null) {
+                    return e;
+                }
+                LockSupport.parkNanos(this, remaining);
+            } finally {
+                waitingConsumer = null;
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+        return e;
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        Objects.requireNonNull(c);
+        if (c == this) {
+            throw new IllegalArgumentException();
+        }
+        long current = head.get();
+        long available = Math.min(tail.get() - current, maxElements);
+        for (long i = 0; i < available; i++) {
+            int index = slot(current);
+            E e;
+            while ((e = buffer.get(index)) == null) {
+                Thread.onSpinWait();
+            }
+            buffer.lazySet(index, null);
+            head.lazySet(++current);
+            c.add(e);
+        }
+        return (int) available;
+    }
+
+    @Override
+    public E peek() {
+        long current = head.get();
+        if (current == tail.get()) {
+            return null;
+        }
+        return buffer.get(slot(current));
+    }
+
+    @Override
+    public int size() {
+        // read head first so that the result is never negative
+        long currentHead = head.get();
+        long currentTail = tail.get();
+        long size = currentTail - currentHead;
+        return (int) Math.max(0, Math.min(size, capacity));
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return head.get() == tail.get();
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return capacity - size();
+    }
+
+    /**
+     * Returns a weakly consistent iterator over a snapshot of the elements
+     * currently in the queue. Removal is not supported.
+     */
+    @Override
+    public Iterator<E> iterator() {
+        List<E> snapshot = new ArrayList<E>();
+        long currentHead = head.get();
+        long currentTail = tail.get();
+        for (long i = currentHead; i < currentTail; i++) {
+            E e = buffer.get(slot(i));
+            if (e != null) {
+                snapshot.add(e);
+            }
+        }
+        Iterator<E> delegate = snapshot.iterator();
+        return new Iterator<E>() {
+            public boolean hasNext() {
+                return delegate.hasNext();
+            }
+
+            public E next() {
+                return delegate.next();
+            }
+        };
+    }
+
+    private int slot(long sequence) {
+        return (int) sequence & mask;
+    }
+
+    private void signalConsumer() {
+        Thread consumer = waitingConsumer;
+        if (consumer != null) {
+            LockSupport.unpark(consumer);
+        }
+    }
+}
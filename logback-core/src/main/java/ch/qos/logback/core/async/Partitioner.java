@@ -0,0 +1,56 @@
+/*
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2024, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.async;
+
+/**
+ * Maps an event to one of the partitions of a
+ * {@link ch.qos.logback.core.PartitionedAsyncAppenderBase}. Events mapped to
+ * the same partition are delivered in the order they were appended.
+ *
+ * <p>The partition is computed on the logging thread, before the event is
+ * queued.
+ *
+ * @param <E> the event type
+ * @since 1.5.7
+ */
+public interface Partitioner<E> {
+
+    /**
+     * Returns the partition of the event.
+     *
+     * @param event the event being appended
+     * @param partitionCount the number of partitions, always positive
+     * @return a value between 0 (inclusive) and partitionCount (exclusive)
+     */
+    int partition(E event, int partitionCount);
+
+    /**
+     * Maps a key to a partition, <code>null</code> keys going to partition 0.
+     */
+    static int partitionOf(Object key, int partitionCount) {
+        if (key == null) {
+            return 0;
+        }
+        return partitionOfHash(key.hashCode(), partitionCount);
+    }
+
+    /**
+     * Maps a hash code to a partition.
+     */
+    static int partitionOfHash(int hash, int partitionCount) {
+        // spread the higher bits, as in HashMap
+        int h = hash ^ (hash >>> 16);
+        return Math.floorMod(h, partitionCount);
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2024, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.async;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * The kind of queue used by {@link ch.qos.logback.core.AsyncAppenderBase} to
+ * buffer events between producers and the worker thread.
+ *
+ * @since 1.5.7
+ */
+public enum QueueType {
+
+    /**
+     * An {@link ArrayBlockingQueue}, guarded by a single lock. This is the
+     * default.
+     */
+    ARRAY_BLOCKING {
+        @Override
+        public <E> BlockingQueue<E> newQueue(int capacity) {
+            return new ArrayBlockingQueue<E>(capacity);
+        }
+    },
+
+    /**
+     * A lock-free, preallocated {@link MpscRingBuffer}. Recommended when many
+     * threads log concurrently.
+     */
+    RING_BUFFER {
+        @Override
+        public <E> BlockingQueue<E> newQueue(int capacity) {
+            return new MpscRingBuffer<E>(capacity);
+        }
+    };
+
+    public abstract <E> BlockingQueue<E> newQueue(int capacity);
+}
@@ -0,0 +1,28 @@
+/*
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2024, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.async;
+
+/**
+ * Partitions events by the identity of the logging thread, thus preserving the
+ * order of events logged by any given thread.
+ *
+ * @since 1.5.7
+ */
+public class ThreadPartitioner<E> implements Partitioner<E> {
+
+    @Override
+    public int partition(E event, int partitionCount) {
+        return Partitioner.partitionOfHash(Long.hashCode(Thread.currentThread().getId()), partitionCount);
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2024, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.async;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * How a thread waits on a queue, either as consumer waiting for an element to
+ * become available or as producer waiting for free capacity.
+ *
+ * <p>Strategies other than {@link #BLOCKING} trade CPU for lower hand-off
+ * latency. They only make sense when a core can be dedicated to the waiting
+ * thread.
+ *
+ * <p>All strategies honor thread interruption by throwing
+ * {@link InterruptedException}.
+ *
+ * @since 1.5.7
+ */
+public enum WaitStrategy {
+
+    /**
+     * Block in {@link BlockingQueue#take()} or {@link BlockingQueue#put(Object)}.
+     * This is the default.
+     */
+    BLOCKING {
+        @Override
+        public <E> E take(BlockingQueue<E> queue, int spinTries, long parkNanos) throws InterruptedException {
+            return queue.take();
+        }
+
+        @Override
+        public <E> void put(BlockingQueue<E> queue, E e, int spinTries, long parkNanos) throws InterruptedException {
+            queue.put(e);
+        }
+    },
+
+    /**
+     * Spin for <code>spinTries</code> iterations and then yield the processor
+     * between attempts.
+     */
+    SPIN_YIELD {
+        @Override
+        public <E> E take(BlockingQueue<E> queue, int spinTries, long parkNanos) throws InterruptedException {
+            int tries = 0;
+            E e;
+            while ((e = queue.poll()) == null) {
+                checkInterrupted();
+                if (tries < spinTries) {
+                    tries++;
+                    Thread.onSpinWait();
+                } else {
+                    Thread.yield();
+                }
+            }
+            return e;
+        }
+
+        @Override
+        public <E> void put(BlockingQueue<E> queue, E e, int spinTries, long parkNanos) throws InterruptedException {
+            int tries = 0;
+            while (!queue.offer(e)) {
+                checkInterrupted();
+                if (tries < spinTries) {
+                    tries++;
+                    Thread.onSpinWait();
+                } else {
+                    Thread.yield();
+                }
+            }
+        }
+    },
+
+    /**
+     * Spin for <code>spinTries</code> iterations and then wait on the queue for
+     * at most <code>parkNanos</code> nanoseconds between attempts.
+     */
+    SPIN_PARK {
+        @Override
+        public <E> E take(BlockingQueue<E> queue, int spinTries, long parkNanos) throws InterruptedException {
+            for (int tries = 0; tries < spinTries; tries++) {
+                E e = queue.poll();
+                if (e != null) {
+                    return e;
+                }
+                checkInterrupted();
+                Thread.onSpinWait();
+            }
+            E e;
+            while ((e = queue.poll(parkNanos, TimeUnit.NANOSECONDS)) == null) {
+                // timed out, try again
+            }
+            return e;
+        }
+
+        @Override
+        public <E> void put(BlockingQueue<E> queue, E e, int spinTries, long parkNanos) throws InterruptedException {
+            for (int tries = 0; tries < spinTries; tries++) {
+                if (queue.offer(e)) {
+                    return;
+                }
+                checkInterrupted();
+                Thread.onSpinWait();
+            }
+            while (!queue.offer(e, parkNanos, TimeUnit.NANOSECONDS)) {
+                // timed out, try again
+            }
+        }
+    },
+
+    /**
+     * Spin without ever giving up the processor. Lowest latency, highest CPU
+     * usage.
+     */
+    BUSY_SPIN {
+        @Override
+        public <E> E take(BlockingQueue<E> queue, int spinTries, long parkNanos) throws InterruptedException {
+            E e;
+            while ((e = queue.poll()) == null) {
+                checkInterrupted();
+                Thread.onSpinWait();
+            }
+            return e;
+        }
+
+        @Override
+        public <E> void put(BlockingQueue<E> queue, E e, int spinTries, long parkNanos) throws InterruptedException {
+            while (!queue.offer(e)) {
+                checkInterrupted();
+                Thread.onSpinWait();
+            }
+        }
+    };
+
+    /**
+     * Wait until an element is available and return it.
+     */
+    public abstract <E> E take(BlockingQueue<E> queue, int spinTries, long parkNanos) throws InterruptedException;
+
+    /**
+     * Wait until there is room in the queue and insert the element.
+     */
+    public abstract <E> void put(BlockingQueue<E> queue, E e, int spinTries, long parkNanos)
+            throws InterruptedException;
+
+    static void checkInterrupted() throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2024, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.encoder;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * A reusable buffer in which an event is first formatted as characters and
+ * then encoded as bytes. Encoding goes through a {@link CharsetEncoder}, so
+ * that neither an intermediate <code>String</code> nor a fresh
+ * <code>byte[]</code> is created per event.
+ *
+ * <p>Instances are not thread-safe. They are meant to be owned by a single
+ * thread, see {@link LayoutWrappingEncoder#setReuseBuffers(boolean)}.
+ *
+ * @since 1.5.7
+ */
+public class EncodingBuffer {
+
+    static final int INITIAL_CAPACITY = 256;
+    /**
+     * Buffers grown beyond this capacity, typically by events with large stack
+     * traces, are not reused for subsequent events.
+     */
+    static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+
+    final StringBuilder stringBuilder = new StringBuilder(INITIAL_CAPACITY);
+
+    char[] chars = new char[INITIAL_CAPACITY];
+    CharBuffer charBuffer = CharBuffer.wrap(chars);
+    byte[] bytes = new byte[INITIAL_CAPACITY];
+    ByteBuffer byteBuffer = ByteBuffer.wrap(bytes);
+    int length;
+
+    Charset charset;
+    CharsetEncoder charsetEncoder;
+
+    /**
+     * Returns the string builder, emptied, into which the event is to be
+     * formatted.
+     */
+    public StringBuilder clearStringBuilder() {
+        if (stringBuilder.capacity() > MAX_RETAINED_CAPACITY) {
+            stringBuilder.setLength(INITIAL_CAPACITY);
+            stringBuilder.trimToSize();
+        }
+        stringBuilder.setLength(0);
+        return stringBuilder;
+    }
+
+    /**
+     * Encode the content of the string builder with the given charset. The result
+     * is available through {@link #getBytes()} and {@link #getLength()}.
+     *
+     * @param charset the charset to use, the system's default charset if null
+     */
+    public void encode(Charset charset) {
+        if (charset == null) {
+            charset = Charset.defaultCharset();
+        }
+        CharsetEncoder ce = charsetEncoderFor(charset);
+
+        int charCount = stringBuilder.length();
+        ensureCharCapacity(charCount);
+        stringBuilder.getChars(0, charCount, chars, 0);
+        charBuffer.clear();
+        charBuffer.limit(charCount);
+
+        resetByteBuffer((int) (charCount * ce.averageBytesPerChar()));
+        ce.reset();
+        CoderResult result = ce.encode(charBuffer, byteBuffer, true);
+        while (result.isOverflow()) {
+            growByteBuffer();
+            result = ce.encode(charBuffer, byteBuffer, true);
+        }
+        while (ce.flush(byteBuffer).isOverflow()) {
+            growByteBuffer();
+        }
+        length = byteBuffer.position();
+    }
+
+    /**
+     * Returns the array holding the encoded bytes. Only the first
+     * {@link #getLength()} bytes are meaningful.
+     */
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    private CharsetEncoder charsetEncoderFor(Charset charset) {
+        if (charsetEncoder == null || !charset.equals(this.charset)) {
+            this.charset = charset;
+            // same behavior as String.getBytes(Charset)
+            this.charsetEncoder = charset.newEncoder().onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        }
+        return charsetEncoder;
+    }
+
+    private void ensureCharCapacity(int charCount) {
+        if (chars.length < charCount || chars.length > MAX_RETAINED_CAPACITY) {
+            chars = new char[Math.max(charCount, INITIAL_CAPACITY)];
+            charBuffer = CharBuffer.wrap(chars);
+        }
+    }
+
+    private void resetByteBuffer(int expectedLength) {
+        if (bytes.length < expectedLength || bytes.length > MAX_RETAINED_CAPACITY) {
+            bytes = new byte[Math.max(expectedLength, INITIAL_CAPACITY)];
+            byteBuffer = ByteBuffer.wrap(bytes);
+        }
+        byteBuffer.clear();
+    }
+
+    private void growByteBuffer() {
+        byte[] grown = new byte[bytes.length * 2];
+        int position = byteBuffer.position();
+        System.arraycopy(bytes, 0, grown, 0, position);
+        bytes = grown;
+        byteBuffer = ByteBuffer.wrap(bytes);
+        byteBuffer.position(position);
+    }
+}
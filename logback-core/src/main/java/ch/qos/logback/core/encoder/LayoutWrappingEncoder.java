@@ -35,6 +35,9 @@ public class LayoutWrappingEncoder<E> extends EncoderBase<E> {
     ContextAware parent;
     Boolean immediateFlush = null;
 
+    boolean reuseBuffers = false;
+    final ThreadLocal<EncodingBuffer> threadLocalBuffer = ThreadLocal.withInitial(EncodingBuffer::new);
+
     public Layout<E> getLayout() {
         return layout;
     }
@@ -115,6 +118,37 @@ public class LayoutWrappingEncoder<E> extends EncoderBase<E> {
         return convertToBytes(txt);
     }
 
+    /**
+     * Encode the event into a buffer owned by the calling thread. The returned
+     * buffer is only valid until the next invocation by the same thread.
+     *
+     * @since 1.5.7
+     */
+    public EncodingBuffer encodeToBuffer(E event) {
+        EncodingBuffer buffer = threadLocalBuffer.get();
+        layout.doLayout(event, buffer.clearStringBuilder());
+        buffer.encode(charset);
+        return buffer;
+    }
+
+    public boolean isReuseBuffers() {
+        return reuseBuffers;
+    }
+
+    /**
+     * If true, an {@link OutputStreamAppender} using this encoder formats and
+     * encodes events into per-thread buffers which are reused across events,
+     * instead of allocating a String and a byte array per event. Each logging
+     * thread then retains a buffer of the size of its largest recent event, up
+     * to 64KB. The default is false.
+     *
+     * @param reuseBuffers
+     * @since 1.5.7
+     */
+    public void setReuseBuffers(boolean reuseBuffers) {
+        this.reuseBuffers = reuseBuffers;
+    }
+
     public boolean isStarted() {
         return started;
     }
@@ -111,12 +111,33 @@ abstract public class PatternLayoutBase<E> extends LayoutBase<E> {
 
     protected String writeLoopOnConverters(E event) {
         StringBuilder strBuilder = new StringBuilder(INTIAL_STRING_BUILDER_SIZE);
+        writeLoopOnConverters(strBuilder, event);
+        return strBuilder.toString();
+    }
+
+    /**
+     * @since 1.5.7
+     */
+    protected void writeLoopOnConverters(StringBuilder strBuilder, E event) {
         Converter<E> c = head;
         while (c != null) {
             c.write(strBuilder, event);
             c = c.getNext();
         }
-        return strBuilder.toString();
+    }
+
+    /**
+     * Formats the event directly into the given builder. Sub-classes which
+     * override {@link #doLayout(Object)} should override this method as well.
+     *
+     * @since 1.5.7
+     */
+    @Override
+    public void doLayout(E event, StringBuilder sb) {
+        if (!isStarted()) {
+            return;
+        }
+        writeLoopOnConverters(sb, event);
     }
 
     public String getPattern() {
@@ -0,0 +1,46 @@
+/*
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2024, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.recovery;
+
+/**
+ * How {@link ResilientFileOutputStream} writes to its file.
+ *
+ * @since 1.5.7
+ */
+public enum FileOutputMode {
+
+    /**
+     * A {@link java.io.BufferedOutputStream} over a
+     * {@link java.io.FileOutputStream}. This is the default.
+     */
+    STREAM,
+
+    /**
+     * A {@link java.nio.channels.FileChannel} written from a direct buffer, which
+     * saves a copy per write on most platforms. Writes larger than the buffer go
+     * straight to the channel.
+     */
+    CHANNEL,
+
+    /**
+     * Regions of the file mapped in memory. Writes are plain memory copies, the
+     * file grows by whole regions and is truncated to its actual size when
+     * closed. Until then, readers may see trailing zeros. If the process ends
+     * without closing the file, the zeros remain, and they are overwritten when
+     * the file is next opened for appending in this mode. Regions are unmapped
+     * once garbage collected. On some platforms, notably Windows, a file cannot
+     * be renamed or deleted while mapped.
+     */
+    MAPPED;
+}
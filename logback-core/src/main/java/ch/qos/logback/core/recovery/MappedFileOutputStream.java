@@ -0,0 +1,153 @@
+/*
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2024, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.recovery;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Writes into successive regions of a file mapped in memory. The file is
+ * truncated to the number of bytes actually written when the stream is closed.
+ * If the process ends without closing the stream, the file keeps the unused
+ * zeros of its last region, see {@link #lengthWithoutTrailingZeros(FileChannel, long)}.
+ *
+ * <p>Regions are not unmapped explicitly, the mappings are released once
+ * garbage collected.
+ *
+ * <p>Mapped bytes are visible to other readers of the file without flushing.
+ * Hence {@link #flush()} does nothing while {@link #force()} writes them to the
+ * storage device.
+ *
+ * @since 1.5.7
+ */
+class MappedFileOutputStream extends OutputStream {
+
+    final FileChannel channel;
+    final int regionSize;
+
+    MappedByteBuffer region;
+    // position in the file of the first byte of the region
+    long regionStart;
+
+    MappedFileOutputStream(FileChannel channel, long position, int regionSize) throws IOException {
+        this.channel = channel;
+        this.regionSize = regionSize;
+        map(position);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        if (!region.hasRemaining()) {
+            mapNext();
+        }
+        region.put((byte) b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        while (len > 0) {
+            if (!region.hasRemaining()) {
+                mapNext();
+            }
+            int n = Math.min(len, region.remaining());
+            region.put(b, off, n);
+            off += n;
+            len -= n;
+        }
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    /**
+     * Forces the bytes written so far to the storage device.
+     */
+    void force() throws IOException {
+        if (region != null) {
+            region.force();
+        }
+        channel.force(false);
+    }
+
+    /**
+     * Returns the number of bytes of the file, not counting the unused part of
+     * the current region.
+     */
+    long position() {
+        return regionStart + (region == null ? 0 : region.position());
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (region == null) {
+            return;
+        }
+        long size = position();
+        region = null;
+        try {
+            channel.truncate(size);
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Returns the length of the file without its trailing zero bytes, looking
+     * at most at its last <code>maxZeros</code> bytes, i.e. the unused part of a
+     * region left by a stream which was not closed. Writing from there
+     * overwrites the zeros. Written bytes which happen to be zeros at the end of
+     * the file are overwritten as well.
+     */
+    static long lengthWithoutTrailingZeros(FileChannel channel, long maxZeros) throws IOException {
+        long end = channel.size();
+        long limit = Math.max(0, end - maxZeros);
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        while (end > limit) {
+            int length = (int) Math.min(buffer.capacity(), end - limit);
+            long start = end - length;
+            buffer.clear();
+            buffer.limit(length);
+            while (buffer.hasRemaining() && channel.read(buffer, start + buffer.position()) >= 0) {
+            }
+            for (int i = buffer.position() - 1; i >= 0; i--) {
+                if (buffer.get(i) != 0) {
+                    return start + i + 1;
+                }
+            }
+            end = start;
+        }
+        return end;
+    }
+
+    private void mapNext() throws IOException {
+        map(regionStart + region.position());
+    }
+
+    private void map(long position) throws IOException {
+        region = channel.map(FileChannel.MapMode.READ_WRITE, position, regionSize);
+        regionStart = position;
+    }
+
+    private void ensureOpen() throws IOException {
+        if (region == null) {
+            throw new IOException("Stream closed");
+        }
+    }
+}
@@ -15,30 +15,125 @@ package ch.qos.logback.core.recovery;
 
 import java.io.*;
 import java.nio.channels.FileChannel;
+import java.nio.file.OpenOption;
+import java.nio.file.StandardOpenOption;
 
 public class ResilientFileOutputStream extends ResilientOutputStreamBase {
 
+    /**
+     * The minimum size of the regions mapped in {@link FileOutputMode#MAPPED}
+     * mode.
+     */
+    public static final int MIN_MAPPED_REGION_SIZE = 1024 * 1024;
+
     private File file;
     private FileOutputStream fos;
+    private FileOutputMode outputMode = FileOutputMode.STREAM;
+    private int bufferSize;
+    private FileChannel channel;
 
     public ResilientFileOutputStream(File file, boolean append, long bufferSize) throws FileNotFoundException {
         this.file = file;
         fos = new FileOutputStream(file, append);
         this.os = new BufferedOutputStream(fos, (int) bufferSize);
+        this.byteCount = append ? file.length() : 0;
+        this.presumedClean = true;
+    }
+
+    /**
+     * @param bufferSize the size of the buffer, or of the mapped regions in
+     *                   {@link FileOutputMode#MAPPED} mode, which are at least
+     *                   {@link #MIN_MAPPED_REGION_SIZE} bytes long
+     * @since 1.5.7
+     */
+    public ResilientFileOutputStream(File file, boolean append, long bufferSize, FileOutputMode outputMode)
+            throws IOException {
+        this.file = file;
+        this.outputMode = outputMode;
+        this.bufferSize = (int) bufferSize;
+        if (outputMode == FileOutputMode.STREAM) {
+            fos = new FileOutputStream(file, append);
+            this.os = new BufferedOutputStream(fos, (int) bufferSize);
+            this.byteCount = append ? file.length() : 0;
+        } else {
+            this.os = openChannelOutputStream(append);
+        }
         this.presumedClean = true;
     }
 
+    private OutputStream openChannelOutputStream(boolean append) throws IOException {
+        if (outputMode == FileOutputMode.CHANNEL) {
+            OpenOption mode = append ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING;
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, mode);
+            byteCount = channel.size();
+            return new FileChannelOutputStream(channel, bufferSize);
+        }
+        // mapping requires read access and is incompatible with APPEND
+        if (append) {
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+        } else {
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        }
+        try {
+            int regionSize = Math.max(bufferSize, MIN_MAPPED_REGION_SIZE);
+            // mapping extends the file, the size must be read beforehand. A file
+            // left unclosed ends with the zeros of its last mapped region
+            byteCount = append ? MappedFileOutputStream.lengthWithoutTrailingZeros(channel, regionSize) : 0;
+            return new MappedFileOutputStream(channel, byteCount, regionSize);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
     public FileChannel getChannel() {
         if (os == null) {
             return null;
         }
+        if (channel != null) {
+            return channel;
+        }
         return fos.getChannel();
     }
 
+    public FileOutputMode getOutputMode() {
+        return outputMode;
+    }
+
+    /**
+     * Forces the bytes flushed so far to the storage device.
+     *
+     * @since 1.5.7
+     */
+    public void force() throws IOException {
+        if (os instanceof MappedFileOutputStream) {
+            ((MappedFileOutputStream) os).force();
+            return;
+        }
+        FileChannel fileChannel = getChannel();
+        if (fileChannel != null) {
+            fileChannel.force(false);
+        }
+    }
+
     public File getFile() {
         return file;
     }
 
+    /**
+     * Returns the length of the file, as known from the bytes written through
+     * this stream, without querying the file system. Bytes still buffered are
+     * included. In {@link FileOutputMode#MAPPED} mode, the regions mapped ahead
+     * are not included.
+     *
+     * @since 1.5.7
+     */
+    public long getLength() {
+        return byteCount;
+    }
+
     @Override
     String getDescription() {
         return "file [" + file + "]";
@@ -46,8 +141,13 @@ public class ResilientFileOutputStream extends ResilientOutputStreamBase {
 
     @Override
     OutputStream openNewOutputStream() throws IOException {
+        if (outputMode != FileOutputMode.STREAM) {
+            return openChannelOutputStream(true);
+        }
         // see LOGBACK-765
         fos = new FileOutputStream(file, true);
+        // bytes may have been lost or partially written
+        byteCount = file.length();
         return new BufferedOutputStream(fos);
     }
 
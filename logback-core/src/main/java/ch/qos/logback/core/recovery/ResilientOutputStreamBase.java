@@ -37,6 +37,10 @@ abstract public class ResilientOutputStreamBase extends OutputStream {
     protected OutputStream os;
     protected boolean presumedClean = true;
 
+    // bytes successfully handed to the underlying stream, writes are expected
+    // to be serialized by the caller
+    protected volatile long byteCount;
+
     List<RecoveryListener> recoveryListeners = new ArrayList<>(0);
     
     private boolean isPresumedInError() {
@@ -62,6 +66,7 @@ abstract public class ResilientOutputStreamBase extends OutputStream {
 
         try {
             os.write(b, off, len);
+            byteCount += len;
             postSuccessfulWrite();
         } catch (IOException e) {
             postIOFailure(e);
@@ -78,6 +83,7 @@ abstract public class ResilientOutputStreamBase extends OutputStream {
         }
         try {
             os.write(b);
+            byteCount++;
             postSuccessfulWrite();
         } catch (IOException e) {
             postIOFailure(e);
@@ -96,6 +102,16 @@ abstract public class ResilientOutputStreamBase extends OutputStream {
         }
     }
 
+    /**
+     * Returns the number of bytes successfully written through this stream,
+     * including the bytes still buffered.
+     *
+     * @since 1.5.7
+     */
+    public long getByteCount() {
+        return byteCount;
+    }
+
     abstract String getDescription();
 
     abstract OutputStream openNewOutputStream() throws IOException;
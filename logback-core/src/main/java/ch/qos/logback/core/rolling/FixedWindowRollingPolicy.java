@@ -101,6 +101,7 @@ public class FixedWindowRollingPolicy extends RollingPolicyBase {
         }
         compressor = new Compressor(compressionMode);
         compressor.setContext(this.context);
+        configureCompressor(compressor);
         super.start();
     }
 
@@ -151,6 +152,14 @@ public class FixedWindowRollingPolicy extends RollingPolicyBase {
                 util.rename(getActiveFileName(), fileNamePattern.convertInt(minIndex));
                 break;
             case GZ:
+                if (activeFileCompressed) {
+                    util.rename(getActiveFileName(), fileNamePattern.convertInt(minIndex));
+                } else {
+                    compressor.compress(getActiveFileName(), fileNamePattern.convertInt(minIndex), null);
+                }
+                break;
+            case LZ4:
+            case CODEC:
                 compressor.compress(getActiveFileName(), fileNamePattern.convertInt(minIndex), null);
                 break;
             case ZIP:
@@ -16,16 +16,25 @@ import static ch.qos.logback.core.CoreConstants.MORE_INFO_PREFIX;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
 import ch.qos.logback.core.CoreConstants;
 import ch.qos.logback.core.FileAppender;
+import ch.qos.logback.core.recovery.ResilientFileOutputStream;
 import ch.qos.logback.core.rolling.helper.CompressionMode;
+import ch.qos.logback.core.rolling.helper.DeflateStrategy;
 import ch.qos.logback.core.rolling.helper.FileNamePattern;
+import ch.qos.logback.core.rolling.helper.GZIPSegmentOutputStream;
 import ch.qos.logback.core.util.ContextUtil;
+import ch.qos.logback.core.util.FileSize;
 
 /**
  * <code>RollingFileAppender</code> extends {@link FileAppender} to back up the
@@ -35,16 +44,48 @@ import ch.qos.logback.core.util.ContextUtil;
  * For more information about this appender, please refer to the online manual
  * at http://logback.qos.ch/manual/appenders.html#RollingFileAppender
  *
+ * <p>
+ * If <code>compressOnTheFly</code> is set and the rolling policy uses gz
+ * compression, the active file is written as a sequence of gzip members, see
+ * {@link GZIPSegmentOutputStream}. Rollover then merely renames the active
+ * file, instead of compressing it in a second pass. Note that the active file
+ * keeps its uncompressed name until rolled over, and that size based triggering
+ * policies then see its compressed length.
+ *
+ * <p>
+ * If <code>preOpenNextFile</code> is set, the files which may become active at
+ * the next rollover are opened ahead of time on a background thread. Rollover
+ * then swaps the stream of the next file in under the lock, while closing the
+ * previous file and compressing it take place after releasing the lock. This
+ * requires a {@link TimeBasedRollingPolicy} without the file property, so that
+ * the active file is replaced rather than renamed. Files opened ahead of time
+ * but not needed are deleted again, unless they existed beforehand.
+ *
  * @author Heinz Richter
  * @author Ceki G&uuml;lc&uuml;
  */
 public class RollingFileAppender<E> extends FileAppender<E> {
-    File currentlyActiveFile;
+    volatile File currentlyActiveFile;
     TriggeringPolicy<E> triggeringPolicy;
     RollingPolicy rollingPolicy;
 
     Lock triggeringPolicyLock = new ReentrantLock();
 
+    public static final long DEFAULT_COMPRESSION_SEGMENT_SIZE = 64 * 1024;
+
+    boolean compressOnTheFly = false;
+    FileSize compressionSegmentSize = new FileSize(DEFAULT_COMPRESSION_SEGMENT_SIZE);
+    ResilientFileOutputStream activeFileStream;
+
+    boolean preOpenNextFile = false;
+    final Map<String, PreparedFile> preparedFiles = new ConcurrentHashMap<>();
+    volatile Future<?> preparationFuture;
+    // set while a rollover to a pre-opened file is being completed
+    volatile boolean rolloverCompletionPending = false;
+    // guarded by triggeringPolicyLock
+    boolean nullEventFailureReported = false;
+    OutputStream detachedOutputStream;
+
     static private String RFA_NO_TP_URL = CODES_URL + "#rfa_no_tp";
     static private String RFA_NO_RP_URL = CODES_URL + "#rfa_no_rp";
     static private String COLLISION_URL = CODES_URL + "#rfa_collision";
@@ -98,9 +139,30 @@ public class RollingFileAppender<E> extends FileAppender<E> {
             }
         }
 
+        if (compressOnTheFly) {
+            if (!(rollingPolicy instanceof RollingPolicyBase)
+                    || rollingPolicy.getCompressionMode() != CompressionMode.GZ) {
+                addError("Compression on the fly requires a rolling policy with gz compression. Aborting");
+                return;
+            }
+            ((RollingPolicyBase) rollingPolicy).activeFileCompressed = true;
+            addInfo("Will write the active file as gzip segments of " + compressionSegmentSize);
+        }
+
+        if (preOpenNextFile && (!(rollingPolicy instanceof TimeBasedRollingPolicy) || rawFileProperty() != null
+                || isPrudent())) {
+            addWarn("Pre-opening the next file requires a TimeBasedRollingPolicy, no file property and no prudent mode.");
+            addWarn("Files will be opened at rollover time.");
+            preOpenNextFile = false;
+        }
+
         currentlyActiveFile = new File(getFile());
         addInfo("Active log file name: " + getFile());
         super.start();
+
+        if (preOpenNextFile && isStarted()) {
+            prepareNextFile();
+        }
     }
 
     private boolean checkForFileAndPatternCollisions() {
@@ -154,6 +216,7 @@ public class RollingFileAppender<E> extends FileAppender<E> {
             return;
         }
         super.stop();
+        discardPreparedFiles();
 
         if (rollingPolicy != null)
             rollingPolicy.stop();
@@ -186,6 +249,19 @@ public class RollingFileAppender<E> extends FileAppender<E> {
      * Implemented by delegating most of the rollover work to a rolling policy.
      */
     public void rollover() {
+        boolean swapped;
+        triggeringPolicyLock.lock();
+        try {
+            swapped = beginRollover();
+        } finally {
+            triggeringPolicyLock.unlock();
+        }
+        if (swapped) {
+            completeRollover();
+        }
+    }
+
+    private void rolloverInPlace() {
         streamWriteLock.lock();
         try {
             // Note: This method needs to be synchronized because it needs exclusive
@@ -194,11 +270,145 @@ public class RollingFileAppender<E> extends FileAppender<E> {
             // make sure to close the hereto active log file! Renaming under windows
             // does not work for open files.
             this.closeOutputStream();
+            // set again once the next file is opened
+            activeFileStream = null;
             attemptRollover();
             attemptOpenFile();
         } finally {
             streamWriteLock.unlock();
         }
+        if (preOpenNextFile) {
+            prepareNextFile();
+        }
+    }
+
+    /**
+     * Rolls over up to the point where the stream must be swapped. Returns true
+     * if a pre-opened file was swapped in, in which case
+     * {@link #completeRollover()} must be invoked after releasing
+     * triggeringPolicyLock.
+     */
+    private boolean beginRollover() {
+        if (swapInPreparedFile()) {
+            return true;
+        }
+        rolloverInPlace();
+        return false;
+    }
+
+    private boolean swapInPreparedFile() {
+        if (!preOpenNextFile) {
+            return false;
+        }
+        Future<?> future = preparationFuture;
+        if (future != null && !future.isDone()) {
+            // do not wait for the background thread while holding
+            // triggeringPolicyLock, roll over in place instead
+            return false;
+        }
+        awaitPreparation(future);
+        PreparedFile next = preparedFiles.remove(rollingPolicy.getActiveFileName());
+        if (next == null) {
+            return false;
+        }
+        streamWriteLock.lock();
+        try {
+            detachedOutputStream = swapOutputStream(next.outputStream);
+            activeFileStream = next.resilientFos;
+            currentlyActiveFile = next.file;
+        } finally {
+            streamWriteLock.unlock();
+        }
+        // no further rollover until this one is completed
+        rolloverCompletionPending = true;
+        return true;
+    }
+
+    /**
+     * Closes the previous file and lets the rolling policy compress it, without
+     * holding any lock.
+     */
+    private void completeRollover() {
+        try {
+            closeDetachedOutputStream(detachedOutputStream);
+            detachedOutputStream = null;
+            attemptRollover();
+            prepareNextFile();
+        } finally {
+            rolloverCompletionPending = false;
+        }
+    }
+
+    private void prepareNextFile() {
+        List<String> candidates = ((TimeBasedRollingPolicy<?>) rollingPolicy).getNextActiveFileNameCandidates();
+        Future<?> previous = preparationFuture;
+        preparationFuture = context.getExecutorService().submit(() -> {
+            // the previous preparation may still run after a rollover in place
+            awaitPreparation(previous);
+            openPreparedFiles(candidates);
+        });
+    }
+
+    void openPreparedFiles(List<String> candidates) {
+        // files prepared for a rollover which took another course
+        for (String fileName : preparedFiles.keySet()) {
+            if (!candidates.contains(fileName)) {
+                discardPreparedFile(preparedFiles.remove(fileName));
+            }
+        }
+        for (String fileName : candidates) {
+            File file = new File(fileName);
+            // a late preparation must leave a file opened in place alone
+            if (preparedFiles.containsKey(fileName) || file.equals(currentlyActiveFile)) {
+                continue;
+            }
+            try {
+                boolean created = !file.exists();
+                ResilientFileOutputStream resilientFos = openResilientFileOutputStream(file);
+                preparedFiles.put(fileName,
+                        new PreparedFile(file, created, resilientFos, wrapFileOutputStream(resilientFos)));
+            } catch (IOException e) {
+                addWarn("Failed to open [" + fileName + "] ahead of time.", e);
+            }
+        }
+    }
+
+    private void awaitPreparation(Future<?> future) {
+        if (future == null) {
+            return;
+        }
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            addWarn("Failed to open the next file ahead of time.", e.getCause());
+        }
+    }
+
+    private void discardPreparedFiles() {
+        if (!preOpenNextFile) {
+            return;
+        }
+        awaitPreparation(preparationFuture);
+        for (String fileName : preparedFiles.keySet()) {
+            discardPreparedFile(preparedFiles.remove(fileName));
+        }
+    }
+
+    private void discardPreparedFile(PreparedFile preparedFile) {
+        if (preparedFile == null) {
+            return;
+        }
+        try {
+            preparedFile.outputStream.close();
+        } catch (IOException e) {
+            addWarn("Failed to close [" + preparedFile.file + "].", e);
+        }
+        // a late preparation may have created a file since opened in place
+        if (preparedFile.created && !preparedFile.file.equals(currentlyActiveFile) && !preparedFile.file.delete()) {
+            addWarn("Failed to delete unused file [" + preparedFile.file + "].");
+        }
     }
 
     private void attemptOpenFile() {
@@ -237,18 +447,274 @@ public class RollingFileAppender<E> extends FileAppender<E> {
         // The roll-over check must precede actual writing. This is the
         // only correct behavior for time driven triggers.
 
+        boolean swapped = false;
         triggeringPolicyLock.lock();
         try {
-            if (triggeringPolicy.isTriggeringEvent(currentlyActiveFile, event)) {
-                rollover();
+            if (isTriggeringEvent(event)) {
+                swapped = beginRollover();
             }
         } finally {
             triggeringPolicyLock.unlock();
         }
+        if (swapped) {
+            completeRollover();
+        }
 
         super.subAppend(event);
     }
 
+    /**
+     * The triggering policy is consulted for each event of the batch, with a
+     * file length including the events of the batch which precede it and are
+     * not written yet. Those events are written before rolling over.
+     *
+     * <p>In prudent mode, where the length of the file is not tracked, each
+     * event is appended on its own.
+     */
+    @Override
+    protected void subAppendBatch(List<E> events) {
+        if (isPrudent()) {
+            for (E event : events) {
+                subAppend(event);
+            }
+            return;
+        }
+
+        final int size = events.size();
+        byte[][] encoded = new byte[size][];
+        int start = 0;
+        long pendingLength = 0;
+        for (int i = 0; i < size; i++) {
+            E event = events.get(i);
+            boolean swapped = false;
+            triggeringPolicyLock.lock();
+            try {
+                if (isTriggeringEvent(event, pendingLength)) {
+                    writeEncodedEvents(encoded, start, i, pendingLength);
+                    start = i;
+                    pendingLength = 0;
+                    swapped = beginRollover();
+                }
+            } finally {
+                triggeringPolicyLock.unlock();
+            }
+            if (swapped) {
+                completeRollover();
+            }
+
+            byte[] bytes = encodeBatchEvent(event);
+            if (bytes != null) {
+                encoded[i] = bytes;
+                pendingLength += bytes.length;
+            }
+        }
+        writeEncodedEvents(encoded, start, size, pendingLength);
+    }
+
+    private void writeEncodedEvents(byte[][] encoded, int from, int to, long length) {
+        if (length == 0) {
+            return;
+        }
+        byte[] bytes = new byte[(int) length];
+        int offset = 0;
+        for (int i = from; i < to; i++) {
+            if (encoded[i] != null) {
+                System.arraycopy(encoded[i], 0, bytes, offset, encoded[i].length);
+                offset += encoded[i].length;
+            }
+        }
+        super.subAppendEncoded(bytes, 0, offset);
+    }
+
+    /**
+     * Events are not available once encoded. The triggering policy is consulted
+     * once per chunk with a <code>null</code> event and a file length including
+     * the chunk, which suits policies based on time or file size, such as those
+     * shipped with logback. See
+     * {@link TriggeringPolicy#isTriggeringEvent(java.io.File, Object)}.
+     */
+    @Override
+    protected void subAppendEncoded(byte[] bytes, int offset, int length) {
+        boolean swapped = false;
+        triggeringPolicyLock.lock();
+        try {
+            if (isTriggeringNullEvent(length)) {
+                swapped = beginRollover();
+            }
+        } finally {
+            triggeringPolicyLock.unlock();
+        }
+        if (swapped) {
+            completeRollover();
+        }
+
+        super.subAppendEncoded(bytes, offset, length);
+    }
+
+    /**
+     * Must be invoked while holding triggeringPolicyLock. Events arriving while
+     * a rollover is being completed go to the already swapped in file.
+     */
+    private boolean isTriggeringEvent(E event) {
+        return isTriggeringEvent(event, 0);
+    }
+
+    /**
+     * Must be invoked while holding triggeringPolicyLock. A policy failing on a
+     * <code>null</code> event does not trigger, the first failure is reported.
+     */
+    private boolean isTriggeringNullEvent(long pendingLength) {
+        try {
+            return isTriggeringEvent(null, pendingLength);
+        } catch (RuntimeException e) {
+            if (!nullEventFailureReported) {
+                nullEventFailureReported = true;
+                addError("Triggering policy [" + triggeringPolicy
+                        + "] failed on encoded events, which are passed as null.", e);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * In compress-on-the-fly mode, the length seen by the triggering policy is
+     * the compressed length written to the active file so far. The compressed
+     * length of pending bytes is not known before they are flushed, so they are
+     * not counted, and the file may exceed <code>maxFileSize</code> by the
+     * output of one flush, as it does for single events.
+     *
+     * @param pendingLength the length of uncompressed bytes about to be written
+     *                      to the active file, added to its tracked length
+     */
+    private boolean isTriggeringEvent(E event, long pendingLength) {
+        if (rolloverCompletionPending) {
+            return false;
+        }
+        long activeFileLength = getActiveFileLength();
+        if (activeFileLength >= 0 && !compressOnTheFly) {
+            activeFileLength += pendingLength;
+        }
+        return triggeringPolicy.isTriggeringEvent(currentlyActiveFile, event, activeFileLength);
+    }
+
+    /**
+     * In compress-on-the-fly mode, wrap the stream so that the active file is
+     * written as gzip members.
+     */
+    @Override
+    protected OutputStream decorateFileOutputStream(ResilientFileOutputStream resilientFos) {
+        activeFileStream = resilientFos;
+        return wrapFileOutputStream(resilientFos);
+    }
+
+    private OutputStream wrapFileOutputStream(ResilientFileOutputStream resilientFos) {
+        if (!compressOnTheFly) {
+            return resilientFos;
+        }
+        RollingPolicyBase base = (RollingPolicyBase) rollingPolicy;
+        return new GZIPSegmentOutputStream(resilientFos, base.getCompressionLevel(), getDeflateStrategyValue(),
+                compressionSegmentSize.getSize());
+    }
+
+    private int getDeflateStrategyValue() {
+        DeflateStrategy strategy = ((RollingPolicyBase) rollingPolicy).getDeflateStrategy();
+        return strategy == null ? DeflateStrategy.DEFAULT.getValue() : strategy.getValue();
+    }
+
+    /**
+     * In compress-on-the-fly mode, a process which ended without closing the
+     * active file may have left it inside a gzip member. Complete that member
+     * before appending, otherwise readers would fail on the members which
+     * follow it.
+     */
+    @Override
+    protected ResilientFileOutputStream openResilientFileOutputStream(File file) throws IOException {
+        if (compressOnTheFly && isAppend()) {
+            completeLastMember(file);
+        }
+        return super.openResilientFileOutputStream(file);
+    }
+
+    private void completeLastMember(File file) {
+        try {
+            long recovered = GZIPSegmentOutputStream.completeLastMember(file,
+                    ((RollingPolicyBase) rollingPolicy).getCompressionLevel(), getDeflateStrategyValue());
+            if (recovered >= 0) {
+                addWarn("Completed the gzip member left unfinished at the end of [" + file + "], " + recovered
+                        + " bytes were recovered.");
+            }
+        } catch (IOException e) {
+            addError("Failed to complete the last gzip member of [" + file + "]", e);
+        }
+    }
+
+    @Override
+    protected void syncOutputStream() throws IOException {
+        if (compressOnTheFly && activeFileStream != null) {
+            activeFileStream.force();
+        } else {
+            super.syncOutputStream();
+        }
+    }
+
+    /**
+     * Returns the length of the active file as tracked from the bytes written to
+     * it, or -1 in prudent mode where other processes may write to the file.
+     *
+     * @since 1.5.7
+     */
+    public long getActiveFileLength() {
+        ResilientFileOutputStream stream = activeFileStream;
+        if (stream == null || isPrudent()) {
+            return -1;
+        }
+        return stream.getLength();
+    }
+
+    public boolean isCompressOnTheFly() {
+        return compressOnTheFly;
+    }
+
+    /**
+     * If true and the rolling policy uses gz compression, the active file is
+     * written compressed and rollover only renames it.
+     *
+     * @since 1.5.7
+     */
+    public void setCompressOnTheFly(boolean compressOnTheFly) {
+        this.compressOnTheFly = compressOnTheFly;
+    }
+
+    public FileSize getCompressionSegmentSize() {
+        return compressionSegmentSize;
+    }
+
+    /**
+     * In compress-on-the-fly mode, a flush completes the current gzip member once
+     * it holds at least this many uncompressed bytes. Smaller flushes are sync
+     * flushes within the member. Defaults to 64KB.
+     *
+     * @since 1.5.7
+     */
+    public void setCompressionSegmentSize(FileSize compressionSegmentSize) {
+        this.compressionSegmentSize = compressionSegmentSize;
+    }
+
+    public boolean isPreOpenNextFile() {
+        return preOpenNextFile;
+    }
+
+    /**
+     * If true, the files which may become active at the next rollover are opened
+     * ahead of time, so that rollover only swaps streams under the lock. Requires
+     * a {@link TimeBasedRollingPolicy} without the file property.
+     *
+     * @since 1.5.7
+     */
+    public void setPreOpenNextFile(boolean preOpenNextFile) {
+        this.preOpenNextFile = preOpenNextFile;
+    }
+
     public RollingPolicy getRollingPolicy() {
         return rollingPolicy;
     }
@@ -291,4 +757,19 @@ public class RollingFileAppender<E> extends FileAppender<E> {
             rollingPolicy = (RollingPolicy) policy;
         }
     }
+
+    static class PreparedFile {
+        final File file;
+        // whether the file was created when opened ahead of time
+        final boolean created;
+        final ResilientFileOutputStream resilientFos;
+        final OutputStream outputStream;
+
+        PreparedFile(File file, boolean created, ResilientFileOutputStream resilientFos, OutputStream outputStream) {
+            this.file = file;
+            this.created = created;
+            this.resilientFos = resilientFos;
+            this.outputStream = outputStream;
+        }
+    }
 }
@@ -14,9 +14,16 @@
 package ch.qos.logback.core.rolling;
 
 import ch.qos.logback.core.FileAppender;
+import java.util.zip.Deflater;
+
+import ch.qos.logback.core.rolling.helper.CompressionCodec;
 import ch.qos.logback.core.rolling.helper.CompressionMode;
+import ch.qos.logback.core.rolling.helper.Compressor;
+import ch.qos.logback.core.rolling.helper.DeflateStrategy;
+import ch.qos.logback.core.rolling.helper.LZ4FrameCodec;
 import ch.qos.logback.core.rolling.helper.FileNamePattern;
 import ch.qos.logback.core.spi.ContextAwareBase;
+import ch.qos.logback.core.util.FileSize;
 
 /**
  * Implements methods common to most, it not all, rolling policies. Currently
@@ -33,6 +40,15 @@ public abstract class RollingPolicyBase extends ContextAwareBase implements Roll
 
     private FileAppender<?> parent;
 
+    int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+    FileSize compressionChunkSize;
+    DeflateStrategy deflateStrategy = DeflateStrategy.DEFAULT;
+    FileSize compressionBufferSize;
+    protected CompressionCodec compressionCodec;
+
+    // set by RollingFileAppender when the active file is written compressed
+    boolean activeFileCompressed;
+
     // use to name files within zip file, i.e. the zipEntry
     FileNamePattern zipEntryFileNamePattern;
     private boolean started;
@@ -40,17 +56,25 @@ public abstract class RollingPolicyBase extends ContextAwareBase implements Roll
     /**
      * Given the FileNamePattern string, this method determines the compression mode
      * depending on last letters of the fileNamePatternStr. Patterns ending with .gz
-     * imply GZIP compression, endings with '.zip' imply ZIP compression. Otherwise
+     * imply GZIP compression, endings with '.zip' imply ZIP compression and
+     * endings with '.lz4' imply LZ4 compression. If a compression codec is set,
+     * patterns ending with its suffix imply compression by that codec. Otherwise
      * and by default, there is no compression.
      * 
      */
     protected void determineCompressionMode() {
-        if (fileNamePatternStr.endsWith(".gz")) {
+        if (compressionCodec != null && fileNamePatternStr.endsWith(compressionCodec.getFileNameSuffix())) {
+            addInfo("Will use compression codec " + compressionCodec.getClass().getName());
+            compressionMode = CompressionMode.CODEC;
+        } else if (fileNamePatternStr.endsWith(".gz")) {
             addInfo("Will use gz compression");
             compressionMode = CompressionMode.GZ;
         } else if (fileNamePatternStr.endsWith(".zip")) {
             addInfo("Will use zip compression");
             compressionMode = CompressionMode.ZIP;
+        } else if (fileNamePatternStr.endsWith(LZ4FrameCodec.SUFFIX)) {
+            addInfo("Will use lz4 compression");
+            compressionMode = CompressionMode.LZ4;
         } else {
             addInfo("No compression will be used");
             compressionMode = CompressionMode.NONE;
@@ -69,6 +93,102 @@ public abstract class RollingPolicyBase extends ContextAwareBase implements Roll
         return compressionMode;
     }
 
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    /**
+     * Sets the deflate compression level of archives, from 0 to 9, or -1 for the
+     * default level.
+     *
+     * @since 1.5.7
+     */
+    public void setCompressionLevel(int compressionLevel) {
+        this.compressionLevel = compressionLevel;
+    }
+
+    public FileSize getCompressionChunkSize() {
+        return compressionChunkSize;
+    }
+
+    /**
+     * If set, gz archives are compressed in parallel, in chunks of the given size.
+     * By default, archives are compressed sequentially.
+     *
+     * @since 1.5.7
+     */
+    public void setCompressionChunkSize(FileSize compressionChunkSize) {
+        this.compressionChunkSize = compressionChunkSize;
+    }
+
+    public DeflateStrategy getDeflateStrategy() {
+        return deflateStrategy;
+    }
+
+    /**
+     * Sets the deflate strategy of gz and zip archives. Defaults to DEFAULT.
+     *
+     * @since 1.5.7
+     */
+    public void setDeflateStrategy(DeflateStrategy deflateStrategy) {
+        this.deflateStrategy = deflateStrategy;
+    }
+
+    public FileSize getCompressionBufferSize() {
+        return compressionBufferSize;
+    }
+
+    /**
+     * Sets the size of the I/O buffers used while compressing archives.
+     *
+     * @since 1.5.7
+     */
+    public void setCompressionBufferSize(FileSize compressionBufferSize) {
+        this.compressionBufferSize = compressionBufferSize;
+    }
+
+    public CompressionCodec getCompressionCodec() {
+        return compressionCodec;
+    }
+
+    /**
+     * Sets a codec used to compress archives whose file name pattern ends with the
+     * suffix of the codec.
+     *
+     * @since 1.5.7
+     */
+    public void setCompressionCodec(CompressionCodec compressionCodec) {
+        this.compressionCodec = compressionCodec;
+    }
+
+    /**
+     * Apply the compression properties of this policy to the given compressor.
+     *
+     * @since 1.5.7
+     */
+    protected void configureCompressor(Compressor compressor) {
+        if (compressionLevel < Deflater.DEFAULT_COMPRESSION || compressionLevel > Deflater.BEST_COMPRESSION) {
+            addWarn("Invalid compressionLevel [" + compressionLevel + "], using the default level.");
+            compressionLevel = Deflater.DEFAULT_COMPRESSION;
+        }
+        compressor.setCompressionLevel(compressionLevel);
+        if (deflateStrategy != null) {
+            compressor.setDeflateStrategy(deflateStrategy);
+        }
+        if (compressionBufferSize != null) {
+            long size = compressionBufferSize.getSize();
+            if (size <= 0 || size > Integer.MAX_VALUE) {
+                addWarn("Invalid compressionBufferSize [" + compressionBufferSize + "], using the default size.");
+            } else {
+                compressor.setBufferSize((int) size);
+            }
+        }
+        compressor.setCodec(compressionCodec);
+        if (compressionChunkSize != null) {
+            compressor.setParallelChunkSize(compressionChunkSize.getSize());
+        }
+    }
+
     public boolean isStarted() {
         return started;
     }
@@ -14,14 +14,18 @@ package ch.qos.logback.core.rolling;
 import static ch.qos.logback.core.CoreConstants.MANUAL_URL_PREFIX;
 
 import java.io.File;
+import java.io.IOException;
 import java.time.Instant;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
 
 import ch.qos.logback.core.CoreConstants;
 import ch.qos.logback.core.joran.spi.NoAutoStart;
 import ch.qos.logback.core.rolling.helper.ArchiveRemover;
 import ch.qos.logback.core.rolling.helper.CompressionMode;
 import ch.qos.logback.core.rolling.helper.FileFilterUtil;
+import ch.qos.logback.core.rolling.helper.FileNamePattern;
 import ch.qos.logback.core.rolling.helper.SizeAndTimeBasedArchiveRemover;
 import ch.qos.logback.core.util.Duration;
 import ch.qos.logback.core.util.FileSize;
@@ -130,13 +134,22 @@ public class SizeAndTimeBasedFNATP<E> extends TimeBasedFileNamingAndTriggeringPo
         File file = new File(getCurrentPeriodsFileNameWithoutCompressionSuffix());
         File parentDir = file.getParentFile();
 
-        File[] matchingFileArray = FileFilterUtil.filesInFolderMatchingStemRegex(parentDir, stemRegex);
+        int highestCounter;
+        try {
+            highestCounter = FileFilterUtil.findHighestCounterInFolder(parentDir, computeCurrentPeriodsStemPrefix(),
+                    stemRegex);
+        } catch (IOException e) {
+            addWarn("Failed to stream folder [" + parentDir + "], listing it instead.", e);
+            File[] matchingFileArray = FileFilterUtil.filesInFolderMatchingStemRegex(parentDir, stemRegex);
+            highestCounter = (matchingFileArray == null || matchingFileArray.length == 0) ? -1
+                    : FileFilterUtil.findHighestCounter(matchingFileArray, stemRegex);
+        }
 
-        if (matchingFileArray == null || matchingFileArray.length == 0) {
+        if (highestCounter < 0) {
             currentPeriodsCounter = 0;
             return;
         }
-        currentPeriodsCounter = FileFilterUtil.findHighestCounter(matchingFileArray, stemRegex);
+        currentPeriodsCounter = highestCounter;
 
         // if parent raw file property is not null, then the next
         // counter is max found counter+1
@@ -146,8 +159,24 @@ public class SizeAndTimeBasedFNATP<E> extends TimeBasedFileNamingAndTriggeringPo
         }
     }
 
+    /**
+     * The part of the current period's file names preceding the integer token,
+     * shared by all the files of the period.
+     */
+    String computeCurrentPeriodsStemPrefix() {
+        FileNamePattern fileNamePattern = tbrp.fileNamePattern;
+        String name0 = FileFilterUtil.afterLastSlash(fileNamePattern.convertMultipleArguments(dateInCurrentPeriod, 0));
+        String name1 = FileFilterUtil.afterLastSlash(fileNamePattern.convertMultipleArguments(dateInCurrentPeriod, 1));
+        return FileFilterUtil.commonPrefix(name0, name1);
+    }
+
     @Override
     public boolean isTriggeringEvent(File activeFile, final E event) {
+        return isTriggeringEvent(activeFile, event, -1);
+    }
+
+    @Override
+    public boolean isTriggeringEvent(File activeFile, final E event, long activeFileLength) {
 
         long currentTime = getCurrentTime();
         long localNextCheck = atomicNextCheck.get();
@@ -165,12 +194,12 @@ public class SizeAndTimeBasedFNATP<E> extends TimeBasedFileNamingAndTriggeringPo
             return true;
         }
 
-        return checkSizeBasedTrigger(activeFile, currentTime);
+        return checkSizeBasedTrigger(activeFile, activeFileLength, currentTime);
     }
 
-    private boolean checkSizeBasedTrigger(File activeFile, long currentTime) {
-        // next check for roll-over based on size
-        if (invocationGate.isTooSoon(currentTime)) {
+    private boolean checkSizeBasedTrigger(File activeFile, long activeFileLength, long currentTime) {
+        // next check for roll-over based on size, a known length is cheap to check
+        if (activeFileLength < 0 && invocationGate.isTooSoon(currentTime)) {
             return false;
         }
 
@@ -182,7 +211,8 @@ public class SizeAndTimeBasedFNATP<E> extends TimeBasedFileNamingAndTriggeringPo
             addWarn("maxFileSize = null");
             return false;
         }
-        if (activeFile.length() >= maxFileSize.getSize()) {
+        long length = activeFileLength < 0 ? activeFile.length() : activeFileLength;
+        if (length >= maxFileSize.getSize()) {
 
             elapsedPeriodsFileName = tbrp.fileNamePatternWithoutCompSuffix.convertMultipleArguments(dateInCurrentPeriod,
                     currentPeriodsCounter);
@@ -207,6 +237,19 @@ public class SizeAndTimeBasedFNATP<E> extends TimeBasedFileNamingAndTriggeringPo
                 currentPeriodsCounter);
     }
 
+    /**
+     * The next file of the current period in case of a size based rollover, and
+     * the first file of the next period.
+     */
+    @Override
+    public List<String> getNextActiveFileNameCandidates() {
+        Instant nextPeriod = Instant.ofEpochMilli(atomicNextCheck.get());
+        return Arrays.asList(
+                tbrp.fileNamePatternWithoutCompSuffix.convertMultipleArguments(dateInCurrentPeriod,
+                        currentPeriodsCounter + 1),
+                tbrp.fileNamePatternWithoutCompSuffix.convertMultipleArguments(nextPeriod, 0));
+    }
+
     public void setMaxFileSize(FileSize aMaxFileSize) {
         this.maxFileSize = aMaxFileSize;
     }
@@ -62,6 +62,18 @@ public class SizeBasedTriggeringPolicy<E> extends TriggeringPolicyBase<E> {
         return (activeFile.length() >= maxFileSize.getSize());
     }
 
+    /**
+     * If the length of the active file is known, it is compared on every call,
+     * regardless of <code>checkIncrement</code>.
+     */
+    @Override
+    public boolean isTriggeringEvent(final File activeFile, final E event, long activeFileLength) {
+        if (activeFileLength < 0) {
+            return isTriggeringEvent(activeFile, event);
+        }
+        return activeFileLength >= maxFileSize.getSize();
+    }
+
     public FileSize getMaxFileSize() {
         return this.maxFileSize;
     }
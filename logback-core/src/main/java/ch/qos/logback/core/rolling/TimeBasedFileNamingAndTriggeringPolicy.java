@@ -13,6 +13,9 @@
  */
 package ch.qos.logback.core.rolling;
 
+import java.util.Collections;
+import java.util.List;
+
 import ch.qos.logback.core.rolling.helper.ArchiveRemover;
 import ch.qos.logback.core.spi.ContextAware;
 
@@ -54,6 +57,18 @@ public interface TimeBasedFileNamingAndTriggeringPolicy<E> extends TriggeringPol
      */
     String getCurrentPeriodsFileNameWithoutCompressionSuffix();
 
+    /**
+     * Return the names the active file may take after the next rollover, so that
+     * it can be opened ahead of time. The default implementation returns an empty
+     * list.
+     *
+     * @return candidate names of the next active file (without compression suffix)
+     * @since 1.5.7
+     */
+    default List<String> getNextActiveFileNameCandidates() {
+        return Collections.emptyList();
+    }
+
     /**
      * Return the archive remover appropriate for this instance.
      */
@@ -17,7 +17,9 @@ import static ch.qos.logback.core.CoreConstants.CODES_URL;
 
 import java.io.File;
 import java.time.Instant;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
 import java.util.Locale;
 import java.util.TimeZone;
 import java.util.concurrent.atomic.AtomicLong;
@@ -117,6 +119,15 @@ abstract public class TimeBasedFileNamingAndTriggeringPolicyBase<E> extends Cont
         return tbrp.fileNamePatternWithoutCompSuffix.convert(dateInCurrentPeriod);
     }
 
+    /**
+     * The active file of the next period, assuming events keep flowing.
+     */
+    @Override
+    public List<String> getNextActiveFileNameCandidates() {
+        Instant nextPeriod = Instant.ofEpochMilli(atomicNextCheck.get());
+        return Collections.singletonList(tbrp.fileNamePatternWithoutCompSuffix.convert(nextPeriod));
+    }
+
     protected void setDateInCurrentPeriod(long timestamp) {
         dateInCurrentPeriod = Instant.ofEpochMilli(timestamp);
     }
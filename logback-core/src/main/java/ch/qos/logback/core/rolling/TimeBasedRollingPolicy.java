@@ -18,18 +18,22 @@ import static ch.qos.logback.core.CoreConstants.UNBOUNDED_TOTAL_SIZE_CAP;
 
 import java.io.File;
 import java.time.Instant;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
 import ch.qos.logback.core.CoreConstants;
+import ch.qos.logback.core.rolling.helper.ArchiveMaintenanceService;
 import ch.qos.logback.core.rolling.helper.ArchiveRemover;
 import ch.qos.logback.core.rolling.helper.CompressionMode;
 import ch.qos.logback.core.rolling.helper.Compressor;
 import ch.qos.logback.core.rolling.helper.FileFilterUtil;
 import ch.qos.logback.core.rolling.helper.FileNamePattern;
 import ch.qos.logback.core.rolling.helper.RenameUtil;
+import ch.qos.logback.core.rolling.helper.TimeBasedArchiveRemover;
 import ch.qos.logback.core.util.FileSize;
 
 /**
@@ -61,6 +65,7 @@ public class TimeBasedRollingPolicy<E> extends RollingPolicyBase implements Trig
     TimeBasedFileNamingAndTriggeringPolicy<E> timeBasedFileNamingAndTriggeringPolicy;
 
     boolean cleanHistoryOnStart = false;
+    boolean sharedArchiveMaintenance = false;
 
     public void start() {
         // set the LR for our utility object
@@ -78,10 +83,13 @@ public class TimeBasedRollingPolicy<E> extends RollingPolicyBase implements Trig
 
         compressor = new Compressor(compressionMode);
         compressor.setContext(context);
+        configureCompressor(compressor);
 
         // wcs : without compression suffix
         fileNamePatternWithoutCompSuffix = new FileNamePattern(
-                Compressor.computeFileNameStrWithoutCompSuffix(fileNamePatternStr, compressionMode), this.context);
+                Compressor.computeFileNameStrWithoutCompSuffix(fileNamePatternStr, compressionMode,
+                        compressionCodec),
+                this.context);
 
         addInfo("Will use the pattern " + fileNamePatternWithoutCompSuffix + " for the active file");
 
@@ -109,6 +117,15 @@ public class TimeBasedRollingPolicy<E> extends RollingPolicyBase implements Trig
             archiveRemover = timeBasedFileNamingAndTriggeringPolicy.getArchiveRemover();
             archiveRemover.setMaxHistory(maxHistory);
             archiveRemover.setTotalSizeCap(totalSizeCap.getSize());
+            if (sharedArchiveMaintenance) {
+                if (archiveRemover instanceof TimeBasedArchiveRemover) {
+                    ((TimeBasedArchiveRemover) archiveRemover)
+                            .setMaintenanceService(ArchiveMaintenanceService.getInstance(context));
+                } else {
+                    addWarn("Archive remover of type " + archiveRemover.getClass().getName()
+                            + " does not support shared archive maintenance.");
+                }
+            }
             if (cleanHistoryOnStart) {
                 addInfo("Cleaning on start up");
                 Instant now = Instant.ofEpochMilli(timeBasedFileNamingAndTriggeringPolicy.getCurrentTime());
@@ -174,6 +191,11 @@ public class TimeBasedRollingPolicy<E> extends RollingPolicyBase implements Trig
                 renameUtil.rename(getParentsRawFileProperty(), elapsedPeriodsFileName);
             } // else { nothing to do if CompressionMode == NONE and parentsRawFileProperty ==
               // null }
+        } else if (activeFileCompressed) {
+            // the active file already consists of gzip members, renaming suffices
+            String activeFileName = getParentsRawFileProperty() != null ? getParentsRawFileProperty()
+                    : elapsedPeriodsFileName;
+            renameUtil.rename(activeFileName, elapsedPeriodsFileName + ".gz");
         } else {
             if (getParentsRawFileProperty() == null) {
                 compressionFuture = compressor.asyncCompress(elapsedPeriodsFileName, elapsedPeriodsFileName,
@@ -227,6 +249,20 @@ public class TimeBasedRollingPolicy<E> extends RollingPolicyBase implements Trig
         }
     }
 
+    /**
+     * Return the names the active file may take after the next rollover. The
+     * list is empty if the file property is set, since the active file is then
+     * renamed rather than replaced.
+     *
+     * @since 1.5.7
+     */
+    public List<String> getNextActiveFileNameCandidates() {
+        if (getParentsRawFileProperty() != null) {
+            return Collections.emptyList();
+        }
+        return timeBasedFileNamingAndTriggeringPolicy.getNextActiveFileNameCandidates();
+    }
+
     /**
      * Delegates to the underlying timeBasedFileNamingAndTriggeringPolicy.
      *
@@ -238,6 +274,11 @@ public class TimeBasedRollingPolicy<E> extends RollingPolicyBase implements Trig
         return timeBasedFileNamingAndTriggeringPolicy.isTriggeringEvent(activeFile, event);
     }
 
+    @Override
+    public boolean isTriggeringEvent(File activeFile, final E event, long activeFileLength) {
+        return timeBasedFileNamingAndTriggeringPolicy.isTriggeringEvent(activeFile, event, activeFileLength);
+    }
+
     /**
      * Get the number of archive files to keep.
      * 
@@ -271,6 +312,20 @@ public class TimeBasedRollingPolicy<E> extends RollingPolicyBase implements Trig
         this.cleanHistoryOnStart = cleanHistoryOnStart;
     }
 
+    public boolean isSharedArchiveMaintenance() {
+        return sharedArchiveMaintenance;
+    }
+
+    /**
+     * Should archive removal be delegated to the {@link ArchiveMaintenanceService}
+     * shared by the rolling policies of the context? Default is false.
+     *
+     * @since 1.5.7
+     */
+    public void setSharedArchiveMaintenance(boolean sharedArchiveMaintenance) {
+        this.sharedArchiveMaintenance = sharedArchiveMaintenance;
+    }
+
     @Override
     public String toString() {
         return "c.q.l.core.rolling.TimeBasedRollingPolicy@" + this.hashCode();
@@ -29,10 +29,34 @@ public interface TriggeringPolicy<E> extends LifeCycle {
 
     /**
      * Should roll-over be triggered at this time?
+     *
+     * <p>The event is <code>null</code> when {@link RollingFileAppender} writes
+     * bytes encoded ahead of time, for example by an asynchronous appender
+     * encoding events off-heap, in which case the decision may only depend on
+     * time or on the active file. Implementations which need the event should
+     * return false for a <code>null</code> event. Failures of such invocations
+     * are reported once and treated as false.
      * 
      * @param activeFile A reference to the currently active log file.
-     * @param event      A reference to the current event.
+     * @param event      A reference to the current event, possibly
+     *                   <code>null</code>.
      * @return true if a roll-over should occur.
      */
     boolean isTriggeringEvent(final File activeFile, final E event);
+
+    /**
+     * Variant of {@link #isTriggeringEvent(File, Object)} for callers which keep
+     * track of the length of the active file, sparing size based policies a call
+     * to {@link File#length()}. By default, the length is ignored.
+     *
+     * @param activeFile       A reference to the currently active log file.
+     * @param event            A reference to the current event, possibly
+     *                         <code>null</code>.
+     * @param activeFileLength The length of the active file, or -1 if unknown.
+     * @return true if a roll-over should occur.
+     * @since 1.5.7
+     */
+    default boolean isTriggeringEvent(final File activeFile, final E event, long activeFileLength) {
+        return isTriggeringEvent(activeFile, event);
+    }
 }
@@ -0,0 +1,246 @@
+/*
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2024, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.rolling.helper;
+
+import java.io.File;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import ch.qos.logback.core.Context;
+import ch.qos.logback.core.CoreConstants;
+import ch.qos.logback.core.spi.ContextAwareBase;
+
+/**
+ * Runs the asynchronous cleanups of the archive removers of a context, instead
+ * of each remover submitting its own task.
+ *
+ * <p>
+ * Requests are coalesced: a remover with a request still waiting is cleaned
+ * only once, as of the latest request. Waiting requests are run as one batch at
+ * a time, on at most <code>maxThreads</code> threads of the context's alternate
+ * executor. Within a batch, each folder is listed once and the listing is
+ * shared by all removers. Deletions can be limited to
+ * <code>deletesPerSecond</code> across all threads.
+ *
+ * <p>
+ * The service is kept in the context's object map. When first requested, its
+ * settings are read from the context properties {@value #MAX_THREADS_PROPERTY}
+ * and {@value #DELETES_PER_SECOND_PROPERTY}.
+ *
+ * @since 1.5.7
+ */
+public class ArchiveMaintenanceService extends ContextAwareBase {
+
+    public static final String MAX_THREADS_PROPERTY = "logback.archiveMaintenance.maxThreads";
+    public static final String DELETES_PER_SECOND_PROPERTY = "logback.archiveMaintenance.deletesPerSecond";
+
+    public static final int DEFAULT_MAX_THREADS = 2;
+
+    int maxThreads = DEFAULT_MAX_THREADS;
+    // zero or less stands for no limit
+    int deletesPerSecond = 0;
+
+    // guarded by pendingRequests
+    final Map<TimeBasedArchiveRemover, Instant> pendingRequests = new LinkedHashMap<>();
+    CompletableFuture<Void> pendingBatch;
+    boolean batchRunning = false;
+
+    final Object deletePermitLock = new Object();
+    long nextDeletePermitNanos;
+
+    /**
+     * Returns the service of the given context, creating it if necessary.
+     */
+    public static ArchiveMaintenanceService getInstance(Context context) {
+        synchronized (ArchiveMaintenanceService.class) {
+            ArchiveMaintenanceService service = (ArchiveMaintenanceService) context
+                    .getObject(CoreConstants.ARCHIVE_MAINTENANCE_SERVICE);
+            if (service == null) {
+                service = new ArchiveMaintenanceService();
+                service.setContext(context);
+                service.setMaxThreads(service.intProperty(MAX_THREADS_PROPERTY, DEFAULT_MAX_THREADS));
+                service.setDeletesPerSecond(service.intProperty(DELETES_PER_SECOND_PROPERTY, 0));
+                context.putObject(CoreConstants.ARCHIVE_MAINTENANCE_SERVICE, service);
+            }
+            return service;
+        }
+    }
+
+    private int intProperty(String key, int defaultValue) {
+        String value = context.getProperty(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            addWarn("Invalid value [" + value + "] for property " + key + ", using " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Request the cleanup of the given remover as of <code>now</code>.
+     *
+     * @return a future completing once the batch covering the request is done
+     */
+    public Future<?> submit(TimeBasedArchiveRemover remover, Instant now) {
+        synchronized (pendingRequests) {
+            pendingRequests.merge(remover, now, (previous, latest) -> latest.isAfter(previous) ? latest : previous);
+            if (pendingBatch == null) {
+                pendingBatch = new CompletableFuture<>();
+            }
+            CompletableFuture<Void> future = pendingBatch;
+            if (!batchRunning) {
+                startNextBatch();
+            }
+            return future;
+        }
+    }
+
+    // invoked while holding the pendingRequests lock
+    private void startNextBatch() {
+        Map<TimeBasedArchiveRemover, Instant> requests = new LinkedHashMap<>(pendingRequests);
+        CompletableFuture<Void> batch = pendingBatch;
+        pendingRequests.clear();
+        pendingBatch = null;
+        batchRunning = true;
+        try {
+            context.getAlternateExecutorService().execute(() -> runBatch(requests, batch));
+        } catch (RejectedExecutionException e) {
+            batchRunning = false;
+            addWarn("Failed to submit archive maintenance batch.", e);
+            batch.completeExceptionally(e);
+        }
+    }
+
+    void runBatch(Map<TimeBasedArchiveRemover, Instant> requests, CompletableFuture<Void> batch) {
+        try {
+            cleanAll(requests);
+            batch.complete(null);
+        } catch (RuntimeException e) {
+            batch.completeExceptionally(e);
+        } finally {
+            synchronized (pendingRequests) {
+                batchRunning = false;
+                if (!pendingRequests.isEmpty()) {
+                    startNextBatch();
+                }
+            }
+        }
+    }
+
+    private void cleanAll(Map<TimeBasedArchiveRemover, Instant> requests) {
+        Map<File, File[]> folderListings = new ConcurrentHashMap<>();
+        Queue<Entry<TimeBasedArchiveRemover, Instant>> queue = new ConcurrentLinkedQueue<>(requests.entrySet());
+        CountDownLatch done = new CountDownLatch(requests.size());
+        Runnable worker = () -> {
+            Entry<TimeBasedArchiveRemover, Instant> request;
+            while ((request = queue.poll()) != null) {
+                try {
+                    request.getKey().runMaintenance(request.getValue(), folderListings);
+                } catch (RuntimeException e) {
+                    addError("Archive maintenance failed for " + request.getKey(), e);
+                } finally {
+                    done.countDown();
+                }
+            }
+        };
+
+        // the current thread counts as one of the maxThreads. It takes any request
+        // not picked up by helpers, so that helpers not yet started are not waited for.
+        ExecutorService executorService = context.getAlternateExecutorService();
+        int helpers = Math.min(maxThreads, requests.size()) - 1;
+        for (int i = 0; i < helpers; i++) {
+            try {
+                executorService.execute(worker);
+            } catch (RejectedExecutionException e) {
+                break;
+            }
+        }
+        worker.run();
+
+        boolean interrupted = false;
+        while (done.getCount() > 0) {
+            try {
+                done.await();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Blocks until the next deletion is allowed by <code>deletesPerSecond</code>.
+     */
+    void awaitDeletePermit() {
+        int limit = deletesPerSecond;
+        if (limit <= 0) {
+            return;
+        }
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / limit;
+        long waitNanos;
+        synchronized (deletePermitLock) {
+            long now = System.nanoTime();
+            long permit = Math.max(now, nextDeletePermitNanos);
+            nextDeletePermitNanos = permit + intervalNanos;
+            waitNanos = permit - now;
+        }
+        if (waitNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public int getMaxThreads() {
+        return maxThreads;
+    }
+
+    public void setMaxThreads(int maxThreads) {
+        this.maxThreads = Math.max(1, maxThreads);
+    }
+
+    public int getDeletesPerSecond() {
+        return deletesPerSecond;
+    }
+
+    /**
+     * Limits the number of deletions per second across all threads. Zero or less,
+     * the default, stands for no limit.
+     */
+    public void setDeletesPerSecond(int deletesPerSecond) {
+        this.deletesPerSecond = deletesPerSecond;
+    }
+
+    public String toString() {
+        return "c.q.l.core.rolling.helper.ArchiveMaintenanceService";
+    }
+}
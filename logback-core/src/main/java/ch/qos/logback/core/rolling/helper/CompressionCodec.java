@@ -0,0 +1,40 @@
+/*
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2024, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.rolling.helper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A codec used by {@link Compressor} to compress rolled files into a
+ * single-file archive format. Implementations must have a public no-argument
+ * constructor so that they can be set in configuration files.
+ *
+ * @since 1.5.7
+ */
+public interface CompressionCodec {
+
+    /**
+     * The suffix of archives produced by this codec, for example ".lz4". File
+     * name patterns ending with this suffix select the codec.
+     */
+    String getFileNameSuffix();
+
+    /**
+     * Returns a stream compressing the bytes written to it into the given
+     * stream. Closing the returned stream must close the given stream.
+     */
+    OutputStream newCompressingStream(OutputStream os) throws IOException;
+
+}
@@ -13,6 +13,10 @@
  */
 package ch.qos.logback.core.rolling.helper;
 
+/**
+ * LZ4 compresses with the built-in {@link LZ4FrameCodec}, CODEC with a
+ * user-supplied {@link CompressionCodec}.
+ */
 public enum CompressionMode {
-    NONE, GZ, ZIP;
+    NONE, GZ, ZIP, LZ4, CODEC;
 }
@@ -14,11 +14,21 @@
 package ch.qos.logback.core.rolling.helper;
 
 import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.Future;
+import java.util.zip.Deflater;
 import java.util.zip.GZIPOutputStream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
@@ -31,7 +41,14 @@ import ch.qos.logback.core.util.FileUtil;
 
 /**
  * The <code>Compression</code> class implements ZIP and GZ file
- * compression/decompression methods.
+ * compression/decompression methods. In LZ4 and CODEC modes, compression is
+ * delegated to a {@link CompressionCodec}.
+ *
+ * <p>In GZ mode, if <code>parallelChunkSize</code> is positive, the file is cut
+ * into chunks of that size which are compressed in parallel on the common
+ * {@link ForkJoinPool}. Each chunk becomes a gzip member and members are
+ * written in order, yielding a multi-member gzip file which standard tools
+ * read as a whole.
  *
  * @author Ceki G&uuml;lc&uuml;
  */
@@ -41,10 +58,93 @@ public class Compressor extends ContextAwareBase {
 
     static final int BUFFER_SIZE = 8192;
 
+    int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+    DeflateStrategy deflateStrategy = DeflateStrategy.DEFAULT;
+    int bufferSize = BUFFER_SIZE;
+    long parallelChunkSize = 0;
+    CompressionCodec codec;
+
     public Compressor(CompressionMode compressionMode) {
         this.compressionMode = compressionMode;
     }
 
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    /**
+     * Sets the deflate compression level, from 0 to 9, or -1 for the default
+     * level.
+     *
+     * @since 1.5.7
+     */
+    public void setCompressionLevel(int compressionLevel) {
+        this.compressionLevel = compressionLevel;
+    }
+
+    public DeflateStrategy getDeflateStrategy() {
+        return deflateStrategy;
+    }
+
+    /**
+     * Sets the deflate strategy used in GZ and ZIP modes.
+     *
+     * @since 1.5.7
+     */
+    public void setDeflateStrategy(DeflateStrategy deflateStrategy) {
+        this.deflateStrategy = deflateStrategy;
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * Sets the size of the buffers used to read and write files. Defaults to
+     * 8KB.
+     *
+     * @since 1.5.7
+     */
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * Returns the codec used in LZ4 and CODEC modes. In LZ4 mode, defaults to
+     * {@link LZ4FrameCodec}.
+     *
+     * @since 1.5.7
+     */
+    public CompressionCodec getCodec() {
+        if (codec == null && compressionMode == CompressionMode.LZ4) {
+            codec = new LZ4FrameCodec();
+        }
+        return codec;
+    }
+
+    /**
+     * Sets the codec used in CODEC mode.
+     *
+     * @since 1.5.7
+     */
+    public void setCodec(CompressionCodec codec) {
+        this.codec = codec;
+    }
+
+    public long getParallelChunkSize() {
+        return parallelChunkSize;
+    }
+
+    /**
+     * Sets the size of the chunks compressed in parallel in GZ mode. The default,
+     * 0, disables parallel compression.
+     *
+     * @since 1.5.7
+     */
+    public void setParallelChunkSize(long parallelChunkSize) {
+        this.parallelChunkSize = parallelChunkSize;
+    }
+
     /**
      * @param nameOfFile2Compress
      * @param nameOfCompressedFile
@@ -59,6 +159,10 @@ public class Compressor extends ContextAwareBase {
         case ZIP:
             zipCompress(nameOfFile2Compress, nameOfCompressedFile, innerEntryName);
             break;
+        case LZ4:
+        case CODEC:
+            codecCompress(nameOfFile2Compress, nameOfCompressedFile);
+            break;
         case NONE:
             throw new UnsupportedOperationException("compress method called in NONE compression mode");
         }
@@ -94,13 +198,13 @@ public class Compressor extends ContextAwareBase {
         addInfo("ZIP compressing [" + file2zip + "] as [" + zippedFile + "]");
         createMissingTargetDirsIfNecessary(zippedFile);
 
-        try (BufferedInputStream bis = new BufferedInputStream(new FileInputStream(nameOfFile2zip));
-                ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(nameOfZippedFile))) {
+        try (BufferedInputStream bis = new BufferedInputStream(new FileInputStream(nameOfFile2zip), bufferSize);
+                ZipOutputStream zos = newZipOutputStream(new FileOutputStream(nameOfZippedFile))) {
 
             ZipEntry zipEntry = computeZipEntry(innerEntryName);
             zos.putNextEntry(zipEntry);
 
-            byte[] inbuf = new byte[BUFFER_SIZE];
+            byte[] inbuf = new byte[bufferSize];
             int n;
 
             while ((n = bis.read(inbuf)) != -1) {
@@ -166,10 +270,23 @@ public class Compressor extends ContextAwareBase {
         addInfo("GZ compressing [" + file2gz + "] as [" + gzedFile + "]");
         createMissingTargetDirsIfNecessary(gzedFile);
 
-        try (BufferedInputStream bis = new BufferedInputStream(new FileInputStream(nameOfFile2gz));
-                GZIPOutputStream gzos = new GZIPOutputStream(new FileOutputStream(nameOfgzedFile))) {
+        if (parallelChunkSize > 0) {
+            parallelGzCompress(file2gz, gzedFile);
+        } else {
+            sequentialGzCompress(file2gz, gzedFile);
+        }
+
+        if (!file2gz.delete()) {
+            addStatus(new WarnStatus("Could not delete [" + nameOfFile2gz + "].", this));
+        }
+
+    }
+
+    private void sequentialGzCompress(File file2gz, File gzedFile) {
+        try (BufferedInputStream bis = new BufferedInputStream(new FileInputStream(file2gz), bufferSize);
+                GZIPOutputStream gzos = newGZIPOutputStream(new FileOutputStream(gzedFile))) {
 
-            byte[] inbuf = new byte[BUFFER_SIZE];
+            byte[] inbuf = new byte[bufferSize];
             int n;
 
             while ((n = bis.read(inbuf)) != -1) {
@@ -178,19 +295,132 @@ public class Compressor extends ContextAwareBase {
 
             addInfo("Done GZ compressing [" + file2gz + "] as [" + gzedFile + "]");
         } catch (Exception e) {
-            addStatus(new ErrorStatus(
-                    "Error occurred while compressing [" + nameOfFile2gz + "] into [" + nameOfgzedFile + "].", this,
-                    e));
+            addStatus(new ErrorStatus("Error occurred while compressing [" + file2gz + "] into [" + gzedFile + "].",
+                    this, e));
         }
+    }
 
-        if (!file2gz.delete()) {
-            addStatus(new WarnStatus("Could not delete [" + nameOfFile2gz + "].", this));
+    /**
+     * The calling thread reads chunks and writes compressed members in order,
+     * keeping at most one chunk per worker of the pool in flight.
+     */
+    private void parallelGzCompress(File file2gz, File gzedFile) {
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        int maxInFlight = Math.max(1, pool.getParallelism());
+        int chunkSize = (int) Math.min(parallelChunkSize, Integer.MAX_VALUE - 8);
+        Deque<ForkJoinTask<byte[]>> inFlight = new ArrayDeque<>(maxInFlight);
+
+        try (InputStream is = new FileInputStream(file2gz); OutputStream os = new FileOutputStream(gzedFile)) {
+            byte[] chunk;
+            while ((chunk = is.readNBytes(chunkSize)).length > 0) {
+                final byte[] input = chunk;
+                inFlight.addLast(pool.submit(() -> gzMember(input)));
+                if (inFlight.size() >= maxInFlight) {
+                    os.write(inFlight.removeFirst().get());
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                os.write(inFlight.removeFirst().get());
+            }
+            addInfo("Done GZ compressing [" + file2gz + "] as [" + gzedFile + "] in parallel");
+        } catch (Exception e) {
+            inFlight.forEach(task -> task.cancel(true));
+            Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+            addStatus(new ErrorStatus("Error occurred while compressing [" + file2gz + "] into [" + gzedFile + "].",
+                    this, cause));
+        }
+    }
+
+    byte[] gzMember(byte[] input) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(input.length / 4 + 64);
+        try (GZIPOutputStream gzos = newGZIPOutputStream(baos)) {
+            gzos.write(input);
+        }
+        return baos.toByteArray();
+    }
+
+    private GZIPOutputStream newGZIPOutputStream(OutputStream os) throws IOException {
+        final int level = compressionLevel;
+        final int strategy = deflateStrategy.getValue();
+        return new GZIPOutputStream(os, bufferSize) {
+            {
+                def.setLevel(level);
+                def.setStrategy(strategy);
+            }
+        };
+    }
+
+    private ZipOutputStream newZipOutputStream(OutputStream os) {
+        ZipOutputStream zos = new ZipOutputStream(os) {
+            {
+                def.setStrategy(deflateStrategy.getValue());
+            }
+        };
+        zos.setLevel(compressionLevel);
+        return zos;
+    }
+
+    private void codecCompress(String nameOfFile2Compress, String nameOfCompressedFile) {
+        CompressionCodec codec = getCodec();
+        if (codec == null) {
+            addError("No codec set for compression mode " + compressionMode);
+            return;
+        }
+        File file2Compress = new File(nameOfFile2Compress);
+
+        if (!file2Compress.exists()) {
+            addStatus(new WarnStatus("The file to compress named [" + nameOfFile2Compress + "] does not exist.", this));
+            return;
+        }
+
+        String suffix = codec.getFileNameSuffix();
+        if (!nameOfCompressedFile.endsWith(suffix)) {
+            nameOfCompressedFile = nameOfCompressedFile + suffix;
+        }
+
+        File compressedFile = new File(nameOfCompressedFile);
+
+        if (compressedFile.exists()) {
+            addWarn("The target compressed file named [" + nameOfCompressedFile
+                    + "] exist already. Aborting file compression.");
+            return;
+        }
+
+        addInfo(compressionMode + " compressing [" + file2Compress + "] as [" + compressedFile + "]");
+        createMissingTargetDirsIfNecessary(compressedFile);
+
+        try (InputStream is = new FileInputStream(file2Compress);
+                OutputStream os = codec.newCompressingStream(new FileOutputStream(compressedFile))) {
+
+            byte[] inbuf = new byte[bufferSize];
+            int n;
+
+            while ((n = is.read(inbuf)) != -1) {
+                os.write(inbuf, 0, n);
+            }
+
+            addInfo("Done " + compressionMode + " compressing [" + file2Compress + "] as [" + compressedFile + "]");
+        } catch (Exception e) {
+            addStatus(new ErrorStatus(
+                    "Error occurred while compressing [" + file2Compress + "] into [" + compressedFile + "].", this, e));
         }
 
+        if (!file2Compress.delete()) {
+            addStatus(new WarnStatus("Could not delete [" + nameOfFile2Compress + "].", this));
+        }
     }
 
     static public String computeFileNameStrWithoutCompSuffix(String fileNamePatternStr,
             CompressionMode compressionMode) {
+        return computeFileNameStrWithoutCompSuffix(fileNamePatternStr, compressionMode, null);
+    }
+
+    /**
+     * @param codec the codec used in CODEC mode, may be null in other modes
+     * @since 1.5.7
+     */
+    static public String computeFileNameStrWithoutCompSuffix(String fileNamePatternStr,
+            CompressionMode compressionMode, CompressionCodec codec) {
         int len = fileNamePatternStr.length();
         switch (compressionMode) {
         case GZ:
@@ -203,6 +433,16 @@ public class Compressor extends ContextAwareBase {
                 return fileNamePatternStr.substring(0, len - 4);
             else
                 return fileNamePatternStr;
+        case LZ4:
+            if (fileNamePatternStr.endsWith(LZ4FrameCodec.SUFFIX))
+                return fileNamePatternStr.substring(0, len - LZ4FrameCodec.SUFFIX.length());
+            else
+                return fileNamePatternStr;
+        case CODEC:
+            if (codec != null && fileNamePatternStr.endsWith(codec.getFileNameSuffix()))
+                return fileNamePatternStr.substring(0, len - codec.getFileNameSuffix().length());
+            else
+                return fileNamePatternStr;
         case NONE:
             return fileNamePatternStr;
         }
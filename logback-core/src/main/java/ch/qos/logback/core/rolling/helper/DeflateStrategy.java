@@ -0,0 +1,35 @@
+/*
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2024, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.rolling.helper;
+
+import java.util.zip.Deflater;
+
+/**
+ * Deflate strategies applicable to GZ and ZIP compression.
+ *
+ * @since 1.5.7
+ */
+public enum DeflateStrategy {
+    DEFAULT(Deflater.DEFAULT_STRATEGY), FILTERED(Deflater.FILTERED), HUFFMAN_ONLY(Deflater.HUFFMAN_ONLY);
+
+    final int value;
+
+    DeflateStrategy(int value) {
+        this.value = value;
+    }
+
+    public int getValue() {
+        return value;
+    }
+}
@@ -15,6 +15,10 @@ package ch.qos.logback.core.rolling.helper;
 
 import java.io.File;
 import java.io.FilenameFilter;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.regex.Matcher;
@@ -95,6 +99,47 @@ public class FileFilterUtil {
         return max;
     }
 
+    /**
+     * Returns the highest counter among the files of the folder matching the stem
+     * regex, or -1 if there are none. The folder is streamed and only the names
+     * starting with <code>namePrefix</code> are matched against the regex, which
+     * is compiled once.
+     *
+     * @since 1.5.7
+     */
+    static public int findHighestCounterInFolder(File folder, String namePrefix, final String stemRegex)
+            throws IOException {
+        if (folder == null || !folder.isDirectory()) {
+            return -1;
+        }
+        Pattern pattern = Pattern.compile(stemRegex);
+        DirectoryStream.Filter<Path> prefixFilter = path -> path.getFileName().toString().startsWith(namePrefix);
+        int max = -1;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder.toPath(), prefixFilter)) {
+            for (Path path : stream) {
+                Matcher m = pattern.matcher(path.getFileName().toString());
+                if (m.matches()) {
+                    max = Math.max(max, Integer.parseInt(m.group(1)));
+                }
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Returns the longest common prefix of the two strings.
+     *
+     * @since 1.5.7
+     */
+    static public String commonPrefix(String a, String b) {
+        int len = Math.min(a.length(), b.length());
+        int i = 0;
+        while (i < len && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        return a.substring(0, i);
+    }
+
     static public int extractCounter(File file, final String stemRegex) {
         Pattern p = Pattern.compile(stemRegex);
         String lastFileName = file.getName();
@@ -0,0 +1,285 @@
+/*
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2024, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.rolling.helper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compresses the bytes written to it as a sequence of gzip members, which
+ * standard gzip readers decompress as a single stream.
+ *
+ * <p>On {@link #flush()}, the current member is completed if it holds at least
+ * <code>segmentSize</code> uncompressed bytes. Otherwise, the deflater is
+ * sync-flushed so that the bytes written so far can be recovered from the
+ * partial member. The deflater is reused from one member to the next. A
+ * partial member left by a process which ended without closing the stream can
+ * be completed with {@link #completeLastMember(File, int, int)} before
+ * appending to the file.
+ *
+ * @since 1.5.7
+ */
+public class GZIPSegmentOutputStream extends OutputStream {
+
+    static final int GZIP_MAGIC = 0x8b1f;
+    static final int OS_UNKNOWN = 255;
+    static final int BUFFER_SIZE = 8192;
+    static final byte[] HEADER = { (byte) GZIP_MAGIC, (byte) (GZIP_MAGIC >> 8), Deflater.DEFLATED, 0, 0, 0, 0, 0, 0,
+            (byte) OS_UNKNOWN };
+
+    final OutputStream out;
+    final long segmentSize;
+    final Deflater deflater;
+    final CRC32 crc = new CRC32();
+    final byte[] buf = new byte[BUFFER_SIZE];
+    final byte[] singleByte = new byte[1];
+
+    boolean inMember;
+    long memberBytes;
+    boolean closed;
+
+    public GZIPSegmentOutputStream(OutputStream out, int level, int strategy, long segmentSize) {
+        this.out = out;
+        this.segmentSize = segmentSize;
+        this.deflater = new Deflater(level, true);
+        this.deflater.setStrategy(strategy);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        singleByte[0] = (byte) b;
+        write(singleByte, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        if (len == 0) {
+            return;
+        }
+        if (!inMember) {
+            out.write(HEADER);
+            inMember = true;
+        }
+        crc.update(b, off, len);
+        deflater.setInput(b, off, len);
+        while (!deflater.needsInput()) {
+            deflate(Deflater.NO_FLUSH);
+        }
+        memberBytes += len;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (inMember) {
+            if (memberBytes >= segmentSize) {
+                endMember();
+            } else {
+                while (deflate(Deflater.SYNC_FLUSH) == buf.length) {
+                    // the buffer was filled, more output may be pending
+                }
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * Completes the current member, if any, without flushing the underlying
+     * stream.
+     */
+    public void endMember() throws IOException {
+        if (!inMember) {
+            return;
+        }
+        deflater.finish();
+        while (!deflater.finished()) {
+            deflate(Deflater.NO_FLUSH);
+        }
+        writeIntLE((int) crc.getValue());
+        writeIntLE((int) memberBytes);
+        deflater.reset();
+        crc.reset();
+        memberBytes = 0;
+        inMember = false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            endMember();
+        } finally {
+            deflater.end();
+            out.close();
+        }
+    }
+
+    /**
+     * Completes the last member of the given gzip file if the file does not end
+     * on a complete member, such as after a crash. The incomplete member is
+     * decompressed as far as possible, truncated and written again as a complete
+     * member, so that bytes appended later in new members remain readable.
+     *
+     * <p>Files which do not exist, are empty or do not start with a member as
+     * written by this class are left untouched.
+     *
+     * @return the number of uncompressed bytes recovered from the incomplete
+     *         member, or -1 if the file was left untouched
+     */
+    public static long completeLastMember(File file, int level, int strategy) throws IOException {
+        if (!file.isFile() || file.length() == 0) {
+            return -1;
+        }
+        MemberScanner scanner = new MemberScanner();
+        try (InputStream in = new FileInputStream(file)) {
+            if (!scanner.scan(in)) {
+                return -1;
+            }
+        } finally {
+            scanner.inflater.end();
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(scanner.memberStart);
+        }
+        byte[] recovered = scanner.partial.toByteArray();
+        try (GZIPSegmentOutputStream gzos = new GZIPSegmentOutputStream(new FileOutputStream(file, true), level,
+                strategy, Long.MAX_VALUE)) {
+            gzos.write(recovered);
+        }
+        return recovered.length;
+    }
+
+    /**
+     * Walks the members of a gzip file, keeping the start offset and the
+     * uncompressed bytes of the current member.
+     */
+    static class MemberScanner {
+        final Inflater inflater = new Inflater(true);
+        final ByteArrayOutputStream partial = new ByteArrayOutputStream();
+        final byte[] buf = new byte[BUFFER_SIZE];
+        final byte[] out = new byte[BUFFER_SIZE];
+        InputStream in;
+        long bufStart;
+        int bufPos;
+        int bufLen;
+        long memberStart;
+
+        /**
+         * @return true if the stream ends inside a member, false if it ends on a
+         *         complete member or holds something other than members without
+         *         extra header fields
+         */
+        boolean scan(InputStream in) throws IOException {
+            this.in = in;
+            while (true) {
+                memberStart = bufStart + bufPos;
+                partial.reset();
+                int b = readByte();
+                if (b != (HEADER[0] & 0xFF)) {
+                    return false;
+                }
+                for (int i = 1; i < HEADER.length; i++) {
+                    int expected = i < 4 ? HEADER[i] & 0xFF : -1;
+                    int read = readByte();
+                    if (read < 0) {
+                        return true;
+                    }
+                    if (expected >= 0 && read != expected) {
+                        return false;
+                    }
+                }
+                if (!inflateMember()) {
+                    return true;
+                }
+                for (int i = 0; i < 8; i++) {
+                    if (readByte() < 0) {
+                        return true;
+                    }
+                }
+            }
+        }
+
+        private boolean inflateMember() throws IOException {
+            inflater.reset();
+            try {
+                while (!inflater.finished()) {
+                    if (inflater.needsInput()) {
+                        if (!fill()) {
+                            return false;
+                        }
+                        inflater.setInput(buf, bufPos, bufLen - bufPos);
+                        bufPos = bufLen;
+                    }
+                    int n = inflater.inflate(out);
+                    partial.write(out, 0, n);
+                }
+            } catch (DataFormatException e) {
+                return false;
+            }
+            bufPos = bufLen - inflater.getRemaining();
+            return true;
+        }
+
+        private int readByte() throws IOException {
+            if (!fill()) {
+                return -1;
+            }
+            return buf[bufPos++] & 0xFF;
+        }
+
+        private boolean fill() throws IOException {
+            while (bufPos == bufLen) {
+                bufStart += bufLen;
+                bufPos = 0;
+                bufLen = 0;
+                int n = in.read(buf);
+                if (n < 0) {
+                    return false;
+                }
+                bufLen = n;
+            }
+            return true;
+        }
+    }
+
+    private int deflate(int flushMode) throws IOException {
+        int n = deflater.deflate(buf, 0, buf.length, flushMode);
+        if (n > 0) {
+            out.write(buf, 0, n);
+        }
+        return n;
+    }
+
+    private void writeIntLE(int i) throws IOException {
+        out.write(i & 0xFF);
+        out.write((i >>> 8) & 0xFF);
+        out.write((i >>> 16) & 0xFF);
+        out.write((i >>> 24) & 0xFF);
+    }
+}
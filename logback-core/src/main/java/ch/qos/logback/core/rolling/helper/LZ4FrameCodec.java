@@ -0,0 +1,41 @@
+/*
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2024, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.rolling.helper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Compresses files in the <a href="https://github.com/lz4/lz4/blob/dev/doc/lz4_Frame_format.md">LZ4
+ * frame format</a> which trades compression ratio for speed. The
+ * implementation is pure Java. Archives can be read with the <code>lz4</code>
+ * command line tool.
+ *
+ * @since 1.5.7
+ */
+public class LZ4FrameCodec implements CompressionCodec {
+
+    public static final String SUFFIX = ".lz4";
+
+    @Override
+    public String getFileNameSuffix() {
+        return SUFFIX;
+    }
+
+    @Override
+    public OutputStream newCompressingStream(OutputStream os) throws IOException {
+        return new LZ4FrameOutputStream(os);
+    }
+
+}
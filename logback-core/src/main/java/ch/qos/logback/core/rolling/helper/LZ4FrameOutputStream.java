@@ -0,0 +1,265 @@
+/*
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2024, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.rolling.helper;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Writes an LZ4 frame made of independent blocks of at most 64KB, without
+ * content checksum. Blocks are compressed with a single-probe hash table,
+ * favoring speed over ratio. Blocks which do not shrink are stored
+ * uncompressed.
+ *
+ * @since 1.5.7
+ */
+class LZ4FrameOutputStream extends FilterOutputStream {
+
+    static final int MAGIC = 0x184D2204;
+    static final int BLOCK_SIZE = 64 * 1024;
+    // version 01, independent blocks, no checksums, no content size
+    static final int FLG = 0x60;
+    // maximum block size of 64KB
+    static final int BD = 4 << 4;
+    static final int UNCOMPRESSED_FLAG = 0x80000000;
+
+    static final int MIN_MATCH = 4;
+    // the last match must start at least 12 bytes before the end of the block
+    static final int MF_LIMIT = 12;
+    // the last 5 bytes of a block are always literals
+    static final int LAST_LITERALS = 5;
+    static final int MAX_OFFSET = 65535;
+    static final int HASH_LOG = 14;
+
+    static final int PRIME32_1 = 0x9E3779B1;
+    static final int PRIME32_2 = 0x85EBCA77;
+    static final int PRIME32_3 = 0xC2B2AE3D;
+    static final int PRIME32_4 = 0x27D4EB2F;
+    static final int PRIME32_5 = 0x165667B1;
+
+    final byte[] buffer = new byte[BLOCK_SIZE];
+    final byte[] compressed = new byte[maxCompressedLength(BLOCK_SIZE)];
+    final int[] hashTable = new int[1 << HASH_LOG];
+    final byte[] intBuffer = new byte[4];
+    int count;
+    boolean closed;
+
+    LZ4FrameOutputStream(OutputStream os) throws IOException {
+        super(os);
+        byte[] descriptor = { (byte) FLG, (byte) BD };
+        writeIntLE(MAGIC);
+        out.write(descriptor);
+        out.write((xxHash32(descriptor, 0, descriptor.length, 0) >>> 8) & 0xFF);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (count == BLOCK_SIZE) {
+            writeBlock();
+        }
+        buffer[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            int n = Math.min(len, BLOCK_SIZE - count);
+            System.arraycopy(b, off, buffer, count, n);
+            count += n;
+            off += n;
+            len -= n;
+            if (count == BLOCK_SIZE) {
+                writeBlock();
+            }
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writeBlock();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            writeBlock();
+            // end mark
+            writeIntLE(0);
+        } finally {
+            out.close();
+        }
+    }
+
+    void writeBlock() throws IOException {
+        if (count == 0) {
+            return;
+        }
+        int n = compressBlock(buffer, count, compressed, hashTable);
+        if (n >= count) {
+            writeIntLE(count | UNCOMPRESSED_FLAG);
+            out.write(buffer, 0, count);
+        } else {
+            writeIntLE(n);
+            out.write(compressed, 0, n);
+        }
+        count = 0;
+    }
+
+    private void writeIntLE(int i) throws IOException {
+        intBuffer[0] = (byte) i;
+        intBuffer[1] = (byte) (i >>> 8);
+        intBuffer[2] = (byte) (i >>> 16);
+        intBuffer[3] = (byte) (i >>> 24);
+        out.write(intBuffer);
+    }
+
+    static int maxCompressedLength(int length) {
+        return length + length / 255 + 16;
+    }
+
+    /**
+     * Compresses <code>src[0..srcLen)</code> as an LZ4 block into
+     * <code>dst</code>, which must hold at least
+     * {@link #maxCompressedLength(int)} bytes.
+     *
+     * @return the compressed length
+     */
+    static int compressBlock(byte[] src, int srcLen, byte[] dst, int[] hashTable) {
+        Arrays.fill(hashTable, -1);
+        int anchor = 0;
+        int d = 0;
+        int mfLimit = srcLen - MF_LIMIT;
+        int matchLimit = srcLen - LAST_LITERALS;
+
+        int ip = 0;
+        while (ip <= mfLimit) {
+            int sequence = readInt(src, ip);
+            int h = hash(sequence);
+            int ref = hashTable[h];
+            hashTable[h] = ip;
+            if (ref < 0 || ip - ref > MAX_OFFSET || readInt(src, ref) != sequence) {
+                // step further as misses accumulate, incompressible data is skipped quickly
+                ip += 1 + ((ip - anchor) >>> 6);
+                continue;
+            }
+
+            int matchLength = MIN_MATCH;
+            while (ip + matchLength < matchLimit && src[ip + matchLength] == src[ref + matchLength]) {
+                matchLength++;
+            }
+            while (ip > anchor && ref > 0 && src[ip - 1] == src[ref - 1]) {
+                ip--;
+                ref--;
+                matchLength++;
+            }
+
+            d = writeSequence(src, anchor, ip - anchor, dst, d, ip - ref, matchLength);
+            ip += matchLength;
+            anchor = ip;
+            if (ip <= mfLimit) {
+                hashTable[hash(readInt(src, ip - 2))] = ip - 2;
+            }
+        }
+
+        return writeLastLiterals(src, anchor, srcLen - anchor, dst, d);
+    }
+
+    private static int writeSequence(byte[] src, int literalStart, int literalLength, byte[] dst, int d, int offset,
+            int matchLength) {
+        int tokenIndex = d++;
+        int token;
+        if (literalLength >= 15) {
+            token = 15 << 4;
+            d = writeLength(literalLength - 15, dst, d);
+        } else {
+            token = literalLength << 4;
+        }
+        System.arraycopy(src, literalStart, dst, d, literalLength);
+        d += literalLength;
+
+        dst[d++] = (byte) offset;
+        dst[d++] = (byte) (offset >>> 8);
+
+        int ml = matchLength - MIN_MATCH;
+        if (ml >= 15) {
+            token |= 15;
+            d = writeLength(ml - 15, dst, d);
+        } else {
+            token |= ml;
+        }
+        dst[tokenIndex] = (byte) token;
+        return d;
+    }
+
+    private static int writeLastLiterals(byte[] src, int literalStart, int literalLength, byte[] dst, int d) {
+        if (literalLength >= 15) {
+            dst[d++] = (byte) (15 << 4);
+            d = writeLength(literalLength - 15, dst, d);
+        } else {
+            dst[d++] = (byte) (literalLength << 4);
+        }
+        System.arraycopy(src, literalStart, dst, d, literalLength);
+        return d + literalLength;
+    }
+
+    private static int writeLength(int length, byte[] dst, int d) {
+        while (length >= 255) {
+            dst[d++] = (byte) 255;
+            length -= 255;
+        }
+        dst[d++] = (byte) length;
+        return d;
+    }
+
+    private static int readInt(byte[] b, int i) {
+        return (b[i] & 0xFF) | (b[i + 1] & 0xFF) << 8 | (b[i + 2] & 0xFF) << 16 | (b[i + 3] & 0xFF) << 24;
+    }
+
+    private static int hash(int sequence) {
+        return (sequence * PRIME32_1) >>> (32 - HASH_LOG);
+    }
+
+    /**
+     * xxHash32 of inputs shorter than 16 bytes, which is all the frame descriptor
+     * checksum requires.
+     */
+    static int xxHash32(byte[] b, int off, int len, int seed) {
+        if (len >= 16) {
+            throw new IllegalArgumentException("Only inputs shorter than 16 bytes are supported");
+        }
+        int end = off + len;
+        int h = seed + PRIME32_5 + len;
+        for (; off + 4 <= end; off += 4) {
+            h += readInt(b, off) * PRIME32_3;
+            h = Integer.rotateLeft(h, 17) * PRIME32_4;
+        }
+        for (; off < end; off++) {
+            h += (b[off] & 0xFF) * PRIME32_5;
+            h = Integer.rotateLeft(h, 11) * PRIME32_1;
+        }
+        h ^= h >>> 15;
+        h *= PRIME32_2;
+        h ^= h >>> 13;
+        h *= PRIME32_3;
+        h ^= h >>> 16;
+        return h;
+    }
+}
@@ -18,6 +18,9 @@ import java.time.Instant;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -33,10 +36,35 @@ public class SizeAndTimeBasedArchiveRemover extends TimeBasedArchiveRemover {
         File archive0 = new File(fileNamePattern.convertMultipleArguments(instantOfPeriodToClean, 0));
         File parentDir = getParentDir(archive0);
         String stemRegex = createStemRegex(instantOfPeriodToClean);
+        if (folderListings != null) {
+            Pattern pattern = Pattern.compile(stemRegex);
+            return Arrays.stream(listFiles(parentDir)).filter(f -> pattern.matcher(f.getName()).matches())
+                    .toArray(File[]::new);
+        }
         File[] matchingFileArray = FileFilterUtil.filesInFolderMatchingStemRegex(parentDir, stemRegex);
         return matchingFileArray;
     }
 
+    /**
+     * Lists each folder once, then matches the listing against the stem regex of
+     * each period. Within a maintenance batch, listings are shared with the other
+     * removers.
+     */
+    @Override
+    protected Map<Instant, File[]> getFilesInPeriods(List<Instant> periods) {
+        Map<File, File[]> listingsByFolder = new HashMap<>();
+        Map<Instant, File[]> filesByPeriod = new HashMap<>();
+        for (Instant period : periods) {
+            File archive0 = new File(fileNamePattern.convertMultipleArguments(period, 0));
+            File parentDir = getParentDir(archive0);
+            File[] listing = listingsByFolder.computeIfAbsent(parentDir, this::listFiles);
+            Pattern pattern = Pattern.compile(createStemRegex(period));
+            filesByPeriod.put(period,
+                    Arrays.stream(listing).filter(f -> pattern.matcher(f.getName()).matches()).toArray(File[]::new));
+        }
+        return filesByPeriod;
+    }
+
     private String createStemRegex(final Instant instantOfPeriodToClean) {
         String regex = fileNamePattern.toRegexForFixedDate(instantOfPeriodToClean);
         return FileFilterUtil.afterLastSlash(regex);
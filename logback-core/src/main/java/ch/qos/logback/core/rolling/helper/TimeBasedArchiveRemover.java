@@ -15,6 +15,14 @@ import static ch.qos.logback.core.CoreConstants.UNBOUNDED_TOTAL_SIZE_CAP;
 
 import java.io.File;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 
@@ -24,6 +32,19 @@ import ch.qos.logback.core.pattern.LiteralConverter;
 import ch.qos.logback.core.spi.ContextAwareBase;
 import ch.qos.logback.core.util.FileSize;
 
+/**
+ * Removes archives older than <code>maxHistory</code> periods and, if
+ * <code>totalSizeCap</code> is set, the oldest archives exceeding the cap.
+ *
+ * <p>In order to enforce <code>totalSizeCap</code>, the files of the last
+ * <code>maxHistory</code> periods are kept in an in-memory index along with
+ * their size. The index is seeded at the first cleanup and only the periods
+ * elapsed since the previous cleanup are looked up afterwards, along with the
+ * most recent periods whose archives may have been compressed since.
+ *
+ * <p>If an {@link ArchiveMaintenanceService} is set, asynchronous cleanups are
+ * delegated to it.
+ */
 public class TimeBasedArchiveRemover extends ContextAwareBase implements ArchiveRemover {
 
     static protected final long UNINITIALIZED = -1;
@@ -39,6 +60,16 @@ public class TimeBasedArchiveRemover extends ContextAwareBase implements Archive
     final boolean parentClean;
     long lastHeartBeat = UNINITIALIZED;
 
+    // files within the last maxHistory periods, keyed by the start of their
+    // period, each list sorted newest first
+    final NavigableMap<Instant, List<ArchivedFile>> archiveIndex = new TreeMap<>();
+    long indexedTotalSize = 0;
+    Instant lastIndexedPeriod;
+
+    ArchiveMaintenanceService maintenanceService;
+    // folder listings shared with the other removers of a maintenance batch
+    volatile Map<File, File[]> folderListings;
+
     public TimeBasedArchiveRemover(FileNamePattern fileNamePattern, RollingCalendar rc) {
         this.fileNamePattern = fileNamePattern;
         this.rc = rc;
@@ -48,12 +79,28 @@ public class TimeBasedArchiveRemover extends ContextAwareBase implements Archive
     int callCount = 0;
 
     public Future<?> cleanAsynchronously(Instant now) {
+        if (maintenanceService != null) {
+            return maintenanceService.submit(this, now);
+        }
         ArchiveRemoverRunnable runnable = new ArchiveRemoverRunnable(now);
         ExecutorService alternateExecutorService = context.getAlternateExecutorService();
         Future<?> future = alternateExecutorService.submit(runnable);
         return future;
     }
 
+    /**
+     * Invoked by the {@link ArchiveMaintenanceService}, the given folder listings
+     * being shared by the removers of a batch.
+     */
+    void runMaintenance(Instant now, Map<File, File[]> folderListings) {
+        this.folderListings = folderListings;
+        try {
+            new ArchiveRemoverRunnable(now).run();
+        } finally {
+            this.folderListings = null;
+        }
+    }
+
     /**
      * Called from the cleaning thread.
      *
@@ -92,6 +139,23 @@ public class TimeBasedArchiveRemover extends ContextAwareBase implements Archive
         return file2Delete.exists() && file2Delete.isFile();
     }
 
+    /**
+     * Lists the given folder, or returns the listing made earlier in the same
+     * maintenance batch.
+     */
+    protected File[] listFiles(File dir) {
+        Map<File, File[]> listings = folderListings;
+        if (listings == null) {
+            return listFolder(dir);
+        }
+        return listings.computeIfAbsent(dir.getAbsoluteFile(), TimeBasedArchiveRemover::listFolder);
+    }
+
+    static File[] listFolder(File dir) {
+        File[] listing = dir.listFiles();
+        return listing == null ? new File[0] : listing;
+    }
+
     public void cleanPeriod(Instant instantOfPeriodToClean) {
         File[] matchingFileArray = getFilesInPeriod(instantOfPeriodToClean);
 
@@ -115,6 +179,11 @@ public class TimeBasedArchiveRemover extends ContextAwareBase implements Archive
             return false;
         }
 
+        ArchiveMaintenanceService service = maintenanceService;
+        if (service != null) {
+            service.awaitDeletePermit();
+        }
+
         boolean result = f.delete();
         if (!result) {
             addWarn("Failed to delete file " + f.toString());
@@ -122,30 +191,40 @@ public class TimeBasedArchiveRemover extends ContextAwareBase implements Archive
         return result;
     }
 
+    /**
+     * Keeping the newest files whose cumulated size does not exceed the cap is
+     * achieved by deleting the oldest files until the total size falls under the
+     * cap.
+     */
     void capTotalSize(Instant now) {
-        long totalSize = 0;
         long totalRemoved = 0;
         int successfulDeletions = 0;
         int failedDeletions = 0;
 
-        for (int offset = 0; offset < maxHistory; offset++) {
-            Instant instant = rc.getEndOfNextNthPeriod(now, -offset);
-            File[] matchingFileArray = getFilesInPeriod(instant);
-            descendingSort(matchingFileArray, instant);
-            for (File f : matchingFileArray) {
-                long size = f.length();
-                totalSize += size;
-                if (totalSize > totalSizeCap) {
-                    addInfo("Deleting [" + f + "]" + " of size " + new FileSize(size));
+        synchronized (archiveIndex) {
+            updateIndex(now);
 
-                    boolean success = checkAndDeleteFile(f);
+            Iterator<List<ArchivedFile>> periodIterator = archiveIndex.values().iterator();
+            while (indexedTotalSize > totalSizeCap && periodIterator.hasNext()) {
+                List<ArchivedFile> filesInPeriod = periodIterator.next();
+                ListIterator<ArchivedFile> fileIterator = filesInPeriod.listIterator(filesInPeriod.size());
+                while (indexedTotalSize > totalSizeCap && fileIterator.hasPrevious()) {
+                    ArchivedFile archivedFile = fileIterator.previous();
+                    fileIterator.remove();
+                    indexedTotalSize -= archivedFile.size;
+                    addInfo("Deleting [" + archivedFile.file + "]" + " of size " + new FileSize(archivedFile.size));
+
+                    boolean success = checkAndDeleteFile(archivedFile.file);
                     if (success) {
                         successfulDeletions++;
-                        totalRemoved += size;
+                        totalRemoved += archivedFile.size;
                     } else {
                         failedDeletions++;
                     }
                 }
+                if (filesInPeriod.isEmpty()) {
+                    periodIterator.remove();
+                }
             }
         }
         if ((successfulDeletions + failedDeletions) == 0) {
@@ -162,6 +241,75 @@ public class TimeBasedArchiveRemover extends ContextAwareBase implements Archive
         // nothing to do in super class
     }
 
+    /**
+     * Brings the index up to date with the last <code>maxHistory</code> periods
+     * before <code>now</code>. Only the periods elapsed since the previous update,
+     * including the period then current and the one before it, are looked up on
+     * disk.
+     */
+    void updateIndex(Instant now) {
+        Instant currentPeriod = rc.getEndOfNextNthPeriod(now, 0);
+        int periodsToLookUp;
+        if (lastIndexedPeriod == null || currentPeriod.isBefore(lastIndexedPeriod)) {
+            archiveIndex.clear();
+            indexedTotalSize = 0;
+            periodsToLookUp = maxHistory;
+        } else {
+            long periodsElapsed = rc.periodBarriersCrossed(lastIndexedPeriod.toEpochMilli(), now.toEpochMilli());
+            // the period preceding the previously current one is looked up again, as
+            // its archive may have been still compressing at the previous update
+            periodsToLookUp = (int) Math.min(periodsElapsed + 2, maxHistory);
+        }
+        lastIndexedPeriod = currentPeriod;
+
+        Instant oldestPeriod = rc.getEndOfNextNthPeriod(now, -(maxHistory - 1));
+        Map<Instant, List<ArchivedFile>> expired = archiveIndex.headMap(oldestPeriod, false);
+        expired.values().forEach(this::unindex);
+        expired.clear();
+
+        List<Instant> periods = new ArrayList<>(periodsToLookUp);
+        for (int offset = 0; offset < periodsToLookUp; offset++) {
+            periods.add(rc.getEndOfNextNthPeriod(now, -offset));
+        }
+        Map<Instant, File[]> filesByPeriod = getFilesInPeriods(periods);
+        for (Instant period : periods) {
+            List<ArchivedFile> previous = archiveIndex.remove(period);
+            if (previous != null) {
+                unindex(previous);
+            }
+            File[] matchingFileArray = filesByPeriod.get(period);
+            if (matchingFileArray == null || matchingFileArray.length == 0) {
+                continue;
+            }
+            descendingSort(matchingFileArray, period);
+            List<ArchivedFile> filesInPeriod = new ArrayList<>(matchingFileArray.length);
+            for (File f : matchingFileArray) {
+                ArchivedFile archivedFile = new ArchivedFile(f, f.length());
+                indexedTotalSize += archivedFile.size;
+                filesInPeriod.add(archivedFile);
+            }
+            archiveIndex.put(period, filesInPeriod);
+        }
+    }
+
+    private void unindex(List<ArchivedFile> filesInPeriod) {
+        for (ArchivedFile archivedFile : filesInPeriod) {
+            indexedTotalSize -= archivedFile.size;
+        }
+    }
+
+    /**
+     * Returns the files of each of the given periods. Subclasses may override this
+     * method to look up several periods at once.
+     */
+    protected Map<Instant, File[]> getFilesInPeriods(List<Instant> periods) {
+        Map<Instant, File[]> filesByPeriod = new HashMap<>();
+        for (Instant period : periods) {
+            filesByPeriod.put(period, getFilesInPeriod(period));
+        }
+        return filesByPeriod;
+    }
+
     File getParentDir(File file) {
         File absolute = file.getAbsoluteFile();
         File parentDir = absolute.getParentFile();
@@ -255,10 +403,30 @@ public class TimeBasedArchiveRemover extends ContextAwareBase implements Archive
         this.totalSizeCap = totalSizeCap;
     }
 
+    /**
+     * Delegate asynchronous cleanups to the given service, shared with the other
+     * removers of the context.
+     *
+     * @since 1.5.7
+     */
+    public void setMaintenanceService(ArchiveMaintenanceService maintenanceService) {
+        this.maintenanceService = maintenanceService;
+    }
+
     public String toString() {
         return "c.q.l.core.rolling.helper.TimeBasedArchiveRemover";
     }
 
+    static class ArchivedFile {
+        final File file;
+        final long size;
+
+        ArchivedFile(File file, long size) {
+            this.file = file;
+            this.size = size;
+        }
+    }
+
     public class ArchiveRemoverRunnable implements Runnable {
         Instant now;
 
@@ -19,6 +19,7 @@ module ch.qos.logback.core {
     requires static org.fusesource.jansi;
 
     exports ch.qos.logback.core;
+    exports ch.qos.logback.core.async;
     exports ch.qos.logback.core.boolex;
 
     exports ch.qos.logback.core.encoder;
@@ -19,14 +19,29 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 
+import ch.qos.logback.core.async.BatchSizeHistogram;
+import ch.qos.logback.core.async.QueueType;
+import ch.qos.logback.core.async.WaitStrategy;
+import ch.qos.logback.core.encoder.EncoderBase;
 import ch.qos.logback.core.helpers.NOPAppender;
 import ch.qos.logback.core.read.ListAppender;
 import ch.qos.logback.core.status.OnConsoleStatusListener;
+import ch.qos.logback.core.status.Status;
+import ch.qos.logback.core.testUtil.CoreTestConstants;
 import ch.qos.logback.core.testUtil.DelayingListAppender;
+import ch.qos.logback.core.testUtil.DummyEncoder;
 import ch.qos.logback.core.testUtil.NPEAppender;
+import ch.qos.logback.core.testUtil.RandomUtil;
 import ch.qos.logback.core.status.testUtil.StatusChecker;
+import ch.qos.logback.core.util.FileSize;
 import org.junit.jupiter.api.Timeout;
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -128,6 +143,305 @@ public class AsyncAppenderBaseTest {
         verify(delayingListAppender, loopLen);
     }
 
+    @Test
+    @Timeout(value=2, unit = TimeUnit.SECONDS)
+    public void noEventLossWithRingBuffer() throws InterruptedException {
+        int bufferSize = 10;
+        int loopLen = bufferSize * 2;
+        asyncAppenderBase.addAppender(delayingListAppender);
+        asyncAppenderBase.setQueueSize(bufferSize);
+        asyncAppenderBase.setQueueType(QueueType.RING_BUFFER);
+        asyncAppenderBase.setMaxFlushTime(2000);
+        asyncAppenderBase.start();
+        for (int i = 0; i < loopLen; i++) {
+            asyncAppenderBase.doAppend(i);
+        }
+
+        asyncAppenderBase.stop();
+        verify(delayingListAppender, loopLen);
+    }
+
+    @Test
+    @Timeout(value=2, unit = TimeUnit.SECONDS)
+    public void lossyAppenderWithRingBuffer() {
+        int bufferSize = 5;
+        int loopLen = bufferSize * 2;
+        lossyAsyncAppender.addAppender(delayingListAppender);
+        lossyAsyncAppender.setQueueSize(bufferSize);
+        lossyAsyncAppender.setQueueType(QueueType.RING_BUFFER);
+        lossyAsyncAppender.setDiscardingThreshold(1);
+        lossyAsyncAppender.start();
+        for (int i = 0; i < loopLen; i++) {
+            lossyAsyncAppender.doAppend(i);
+        }
+        lossyAsyncAppender.stop();
+        // see lossyAppenderShouldOnlyLoseCertainEvents
+        verify(delayingListAppender, loopLen - 2);
+    }
+
+    @Test
+    @Timeout(value=2, unit = TimeUnit.SECONDS)
+    public void offHeapQueueWritesEncodedEvents() {
+        int loopLen = 100;
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        OutputStreamAppender<Integer> osa = new OutputStreamAppender<Integer>();
+        osa.setContext(context);
+        osa.setEncoder(new EchoEncoder<Integer>());
+        osa.setOutputStream(baos);
+        osa.start();
+
+        asyncAppenderBase.addAppender(osa);
+        asyncAppenderBase.setQueueSize(10);
+        asyncAppenderBase.setOffHeapBufferSize(new FileSize(64));
+        asyncAppenderBase.start();
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < loopLen; i++) {
+            asyncAppenderBase.doAppend(i);
+            expected.append(i).append(';');
+        }
+        asyncAppenderBase.stop();
+
+        Assertions.assertEquals(expected.toString(), baos.toString());
+        Assertions.assertEquals(0, asyncAppenderBase.getDiscardedCount());
+    }
+
+    @Test
+    @Timeout(value=2, unit = TimeUnit.SECONDS, threadMode = Timeout.ThreadMode.SEPARATE_THREAD)
+    public void offHeapWorkerSurvivesUncheckedExceptions() {
+        int loopLen = 100;
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        OutputStreamAppender<Integer> osa = new OutputStreamAppender<Integer>();
+        osa.setContext(context);
+        osa.setEncoder(new EchoEncoder<Integer>());
+        osa.setOutputStream(new FilterOutputStream(baos) {
+            boolean failed;
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                if (!failed) {
+                    failed = true;
+                    throw new IllegalStateException("boom");
+                }
+                out.write(b, off, len);
+            }
+        });
+        osa.start();
+
+        asyncAppenderBase.addAppender(osa);
+        asyncAppenderBase.setQueueSize(10);
+        asyncAppenderBase.setOffHeapBufferSize(new FileSize(64));
+        asyncAppenderBase.start();
+        // producers would block forever on a full buffer had the worker died
+        for (int i = 0; i < loopLen; i++) {
+            asyncAppenderBase.doAppend(i);
+        }
+        asyncAppenderBase.stop();
+
+        Assertions.assertTrue(baos.toString().endsWith((loopLen - 1) + ";"), baos.toString());
+        statusChecker.assertContainsMatch(Status.ERROR, "Appender \\[.*\\] failed to append.");
+    }
+
+    @Test
+    @Timeout(value=5, unit = TimeUnit.SECONDS)
+    public void overflowIsSpilledWithoutBlocking() throws InterruptedException {
+        int loopLen = 100;
+        CountDownLatch latch = new CountDownLatch(1);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        OutputStreamAppender<Integer> osa = new OutputStreamAppender<Integer>();
+        osa.setContext(context);
+        osa.setEncoder(new EchoEncoder<Integer>());
+        osa.setOutputStream(new FilterOutputStream(baos) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                // simulates a stalled destination
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                out.write(b, off, len);
+            }
+        });
+        osa.start();
+
+        File spillFile = new File(CoreTestConstants.OUTPUT_DIR_PREFIX + "spill-" + RandomUtil.getPositiveInt());
+        asyncAppenderBase.addAppender(osa);
+        asyncAppenderBase.setQueueSize(4);
+        asyncAppenderBase.setDiscardingThreshold(0);
+        asyncAppenderBase.setOffHeapBufferSize(new FileSize(1024));
+        asyncAppenderBase.setSpillFile(spillFile.getPath());
+        asyncAppenderBase.setMaxSpillSize(new FileSize(64 * 1024));
+        asyncAppenderBase.setMaxFlushTime(4000);
+        asyncAppenderBase.start();
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < loopLen; i++) {
+            asyncAppenderBase.doAppend(i);
+            expected.append(i).append(';');
+        }
+        Assertions.assertTrue(asyncAppenderBase.getSpilledCount() > 0);
+        Assertions.assertTrue(asyncAppenderBase.getSpillUsedBytes() > 0);
+        Assertions.assertTrue(spillFile.exists());
+
+        latch.countDown();
+        asyncAppenderBase.stop();
+
+        Assertions.assertEquals(expected.toString(), baos.toString());
+        Assertions.assertEquals(0, asyncAppenderBase.getDiscardedCount());
+        Assertions.assertFalse(spillFile.exists());
+    }
+
+    @Test
+    @Timeout(value=5, unit = TimeUnit.SECONDS)
+    public void spillFileIsKeptUntilTheWorkerExits() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        OutputStreamAppender<Integer> osa = new OutputStreamAppender<Integer>();
+        osa.setContext(context);
+        osa.setEncoder(new EchoEncoder<Integer>());
+        osa.setOutputStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                // a destination stalled beyond maxFlushTime, despite interrupts
+                boolean interrupted = false;
+                while (latch.getCount() > 0) {
+                    try {
+                        latch.await();
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        osa.start();
+
+        File spillFile = new File(CoreTestConstants.OUTPUT_DIR_PREFIX + "spill-" + RandomUtil.getPositiveInt());
+        asyncAppenderBase.addAppender(osa);
+        asyncAppenderBase.setQueueSize(4);
+        asyncAppenderBase.setDiscardingThreshold(0);
+        asyncAppenderBase.setOffHeapBufferSize(new FileSize(1024));
+        asyncAppenderBase.setSpillFile(spillFile.getPath());
+        asyncAppenderBase.setMaxSpillSize(new FileSize(64 * 1024));
+        asyncAppenderBase.setMaxFlushTime(100);
+        asyncAppenderBase.start();
+        for (int i = 0; i < 100; i++) {
+            asyncAppenderBase.doAppend(i);
+        }
+        Assertions.assertTrue(asyncAppenderBase.getNumberOfElementsInSpill() > 0);
+
+        asyncAppenderBase.stop();
+        statusChecker.assertContainsMatch(Status.WARN, "\\d+ events in spill file .* are left to the worker");
+        // still read by the worker
+        Assertions.assertTrue(spillFile.exists());
+
+        latch.countDown();
+        asyncAppenderBase.worker.join();
+        Assertions.assertEquals(0, asyncAppenderBase.getNumberOfElementsInSpill());
+        Assertions.assertFalse(spillFile.exists());
+        statusChecker.assertNoMatch("\\d+ events left in spill file");
+    }
+
+    @Test
+    public void spillFileRequiresOffHeapBuffer() {
+        asyncAppenderBase.addAppender(listAppender);
+        asyncAppenderBase.setSpillFile(CoreTestConstants.OUTPUT_DIR_PREFIX + "spill");
+        asyncAppenderBase.start();
+        Assertions.assertFalse(asyncAppenderBase.isStarted());
+        statusChecker.assertContainsMatch("A spill file requires offHeapBufferSize");
+    }
+
+    @Test
+    public void offHeapQueueRequiresOutputStreamAppender() {
+        asyncAppenderBase.addAppender(listAppender);
+        asyncAppenderBase.setOffHeapBufferSize(new FileSize(1024));
+        asyncAppenderBase.start();
+        Assertions.assertFalse(asyncAppenderBase.isStarted());
+        statusChecker.assertContainsMatch("Off-heap queueing requires an OutputStreamAppender");
+    }
+
+    @Test
+    @Timeout(value=5, unit = TimeUnit.SECONDS)
+    public void noEventLossWithAnyWaitStrategy() throws InterruptedException {
+        int bufferSize = 10;
+        int loopLen = bufferSize * 2;
+        for (QueueType queueType : QueueType.values()) {
+            for (WaitStrategy waitStrategy : WaitStrategy.values()) {
+                ListAppender<Integer> la = new ListAppender<Integer>();
+                la.setContext(context);
+                la.start();
+                AsyncAppenderBase<Integer> aab = new AsyncAppenderBase<Integer>();
+                aab.setContext(context);
+                aab.addAppender(la);
+                aab.setQueueSize(bufferSize);
+                aab.setQueueType(queueType);
+                aab.setConsumerWaitStrategy(waitStrategy);
+                aab.setProducerWaitStrategy(waitStrategy);
+                aab.setSpinTries(10);
+                aab.setParkNanos(10_000);
+                aab.start();
+                for (int i = 0; i < loopLen; i++) {
+                    aab.doAppend(i);
+                }
+                aab.stop();
+                Assertions.assertEquals(loopLen, la.list.size(), queueType + "/" + waitStrategy);
+            }
+        }
+        statusChecker.assertIsErrorFree();
+    }
+
+    @Test
+    @Timeout(value=2, unit = TimeUnit.SECONDS)
+    public void batchesAreBoundedByMaxBatchSize() {
+        int bufferSize = 64;
+        int loopLen = bufferSize * 4;
+        delayingListAppender.setDelay(1);
+        asyncAppenderBase.addAppender(delayingListAppender);
+        asyncAppenderBase.setQueueSize(bufferSize);
+        asyncAppenderBase.setMaxBatchSize(4);
+        asyncAppenderBase.start();
+        for (int i = 0; i < loopLen; i++) {
+            asyncAppenderBase.doAppend(i);
+        }
+        asyncAppenderBase.stop();
+        verify(delayingListAppender, loopLen);
+
+        BatchSizeHistogram histogram = asyncAppenderBase.getBatchSizeHistogram();
+        long[] counts = histogram.getCounts();
+        // batches of size 4 fall in bucket 2, larger buckets must remain empty
+        for (int i = 3; i < counts.length; i++) {
+            Assertions.assertEquals(0, counts[i]);
+        }
+        // events remaining in the queue at stop time are flushed outside of batches
+        Assertions.assertTrue(histogram.getBatchCount() > 0);
+        Assertions.assertTrue(histogram.getEventCount() <= loopLen);
+    }
+
+    @Test
+    @Timeout(value=2, unit = TimeUnit.SECONDS)
+    public void batchAppenderReceivesAllEvents() {
+        int loopLen = 100;
+        OutputStreamAppender<Integer> osa = new OutputStreamAppender<Integer>();
+        osa.setContext(context);
+        osa.setEncoder(new DummyEncoder<Integer>("x"));
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        osa.setOutputStream(baos);
+        osa.start();
+
+        asyncAppenderBase.addAppender(osa);
+        asyncAppenderBase.start();
+        for (int i = 0; i < loopLen; i++) {
+            asyncAppenderBase.doAppend(i);
+        }
+        asyncAppenderBase.stop();
+        Assertions.assertEquals(loopLen, baos.size());
+        statusChecker.assertIsErrorFree();
+    }
+
     @Test
     @Timeout(value=2, unit = TimeUnit.SECONDS)
     public void eventLossIfNeverBlock() {
@@ -316,6 +630,23 @@ public class AsyncAppenderBaseTest {
         }
     }
 
+    static class EchoEncoder<E> extends EncoderBase<E> {
+        @Override
+        public byte[] headerBytes() {
+            return null;
+        }
+
+        @Override
+        public byte[] encode(E event) {
+            return (event + ";").getBytes();
+        }
+
+        @Override
+        public byte[] footerBytes() {
+            return null;
+        }
+    }
+
     @Test
     public void checkThatStartMethodIsIdempotent() {
         asyncAppenderBase.addAppender(lossyAsyncAppender);
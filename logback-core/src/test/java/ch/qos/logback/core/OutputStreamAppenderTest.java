@@ -14,14 +14,30 @@
 package ch.qos.logback.core;
 
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
 
+import ch.qos.logback.core.encoder.EncoderBase;
 import ch.qos.logback.core.encoder.LayoutWrappingEncoder;
+import ch.qos.logback.core.filter.Filter;
+import ch.qos.logback.core.layout.EchoLayout;
 import ch.qos.logback.core.pattern.parser.SamplePatternLayout;
+import ch.qos.logback.core.spi.FilterReply;
+import ch.qos.logback.core.status.Status;
+import ch.qos.logback.core.util.Duration;
+import ch.qos.logback.core.util.FileSize;
 
 public class OutputStreamAppenderTest {
 
@@ -115,6 +131,243 @@ public class OutputStreamAppenderTest {
         Assertions.assertTrue(result.endsWith(expectedFooter), result);
     }
 
+    @Test
+    public void reusedBuffersProduceSameOutput() {
+        String large = "x".repeat(100_000);
+        List<Object> events = List.of("a", "\u00e9t\u00e9 \u20ac \u6f22", large, "b", "\ud800 lone surrogate");
+
+        EchoLayout<Object> layout = new EchoLayout<Object>();
+        layout.start();
+        Assertions.assertEquals(encodeEvents(layout, false, events), encodeEvents(layout, true, events));
+        Assertions.assertEquals(encodeEvents(layout, false, events), encodeBatches(layout, true, events));
+
+        SamplePatternLayout<Object> spl = new SamplePatternLayout<Object>();
+        spl.setContext(context);
+        spl.setPattern("%hello-%OTT-\u00fc");
+        spl.start();
+        Assertions.assertEquals(encodeEvents(spl, false, events), encodeEvents(spl, true, events));
+        Assertions.assertEquals(encodeEvents(spl, false, events), encodeBatches(spl, true, events));
+    }
+
+    String encodeEvents(Layout<Object> layout, boolean reuseBuffers, List<Object> events) {
+        return encode(layout, reuseBuffers, wa -> events.forEach(wa::doAppend));
+    }
+
+    // a batch of one and a batch of the rest
+    String encodeBatches(Layout<Object> layout, boolean reuseBuffers, List<Object> events) {
+        return encode(layout, reuseBuffers, wa -> {
+            wa.doAppendBatch(events.subList(0, 1));
+            wa.doAppendBatch(events.subList(1, events.size()));
+        });
+    }
+
+    String encode(Layout<Object> layout, boolean reuseBuffers, Consumer<OutputStreamAppender<Object>> appending) {
+        LayoutWrappingEncoder<Object> encoder = new LayoutWrappingEncoder<Object>();
+        encoder.setContext(context);
+        encoder.setLayout(layout);
+        encoder.setCharset(StandardCharsets.UTF_8);
+        encoder.setReuseBuffers(reuseBuffers);
+        encoder.start();
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        OutputStreamAppender<Object> wa = new OutputStreamAppender<Object>();
+        wa.setContext(context);
+        wa.setEncoder(encoder);
+        wa.setOutputStream(baos);
+        wa.start();
+        appending.accept(wa);
+        wa.stop();
+        return new String(baos.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void batchIsWrittenAndFlushedOnce() {
+        OutputStreamAppender<Object> wa = new OutputStreamAppender<Object>();
+        wa.setContext(context);
+        CountingOutputStream cos = new CountingOutputStream();
+        wa.setEncoder(new ToStringEncoder());
+        wa.setOutputStream(cos);
+        wa.setImmediateFlush(true);
+        wa.addFilter(new Filter<Object>() {
+            @Override
+            public FilterReply decide(Object event) {
+                return "denied".equals(event) ? FilterReply.DENY : FilterReply.NEUTRAL;
+            }
+        });
+        wa.start();
+
+        wa.doAppendBatch(List.of("a", "b", "denied", "c"));
+
+        Assertions.assertEquals("abc", cos.toString());
+        Assertions.assertEquals(1, cos.writeCount);
+        Assertions.assertEquals(1, cos.flushCount);
+        wa.stop();
+    }
+
+    @Test
+    public void batchFailuresAreIsolatedPerEvent() {
+        OutputStreamAppender<Object> wa = new OutputStreamAppender<Object>();
+        wa.setContext(context);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        wa.setEncoder(new ToStringEncoder() {
+            @Override
+            public byte[] encode(Object event) {
+                if ("unencodable".equals(event)) {
+                    throw new IllegalStateException("cannot encode");
+                }
+                return super.encode(event);
+            }
+        });
+        wa.setOutputStream(baos);
+        wa.addFilter(new Filter<Object>() {
+            @Override
+            public FilterReply decide(Object event) {
+                if ("unfilterable".equals(event)) {
+                    throw new IllegalStateException("cannot filter");
+                }
+                return FilterReply.NEUTRAL;
+            }
+        });
+        wa.start();
+
+        wa.doAppendBatch(List.of("a", "unencodable", "b", "unfilterable", "c"));
+
+        Assertions.assertEquals("abc", baos.toString());
+        Assertions.assertEquals(2, context.getStatusManager().getCopyOfStatusList().stream()
+                .filter(s -> s.getLevel() == Status.ERROR).count());
+        wa.stop();
+    }
+
+    static class ToStringEncoder extends EncoderBase<Object> {
+        @Override
+        public byte[] headerBytes() {
+            return null;
+        }
+
+        @Override
+        public byte[] encode(Object event) {
+            return event.toString().getBytes();
+        }
+
+        @Override
+        public byte[] footerBytes() {
+            return null;
+        }
+    }
+
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    public void groupCommitSharesFlushes() throws InterruptedException {
+        final int threadCount = 8;
+        final int perThread = 100;
+        SlowFlushingOutputStream sfos = new SlowFlushingOutputStream();
+        OutputStreamAppender<Object> wa = new OutputStreamAppender<Object>();
+        wa.setContext(context);
+        wa.setEncoder(new ToStringEncoder());
+        wa.setOutputStream(sfos);
+        wa.setGroupCommit(true);
+        wa.start();
+
+        AtomicInteger unflushedReturns = new AtomicInteger();
+        Thread[] threads = new Thread[threadCount];
+        for (int t = 0; t < threadCount; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    wa.doAppend("x");
+                    if (sfos.unflushedWriters.contains(Thread.currentThread())) {
+                        unflushedReturns.incrementAndGet();
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+
+        Assertions.assertEquals(0, unflushedReturns.get());
+        Assertions.assertEquals(threadCount * perThread, sfos.size());
+        Assertions.assertTrue(sfos.flushCount < threadCount * perThread, "flushCount=" + sfos.flushCount);
+    }
+
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    public void failedGroupFlushFailsEveryCoveredWriter() throws InterruptedException {
+        final int threadCount = 4;
+        OutputStreamAppender<Object> wa = new OutputStreamAppender<Object>();
+        wa.setContext(context);
+        wa.setEncoder(new ToStringEncoder());
+        // only the first flush fails, later ones must not cover its writers
+        wa.setOutputStream(new ByteArrayOutputStream() {
+            boolean failed;
+
+            @Override
+            public void flush() throws IOException {
+                if (!failed) {
+                    failed = true;
+                    throw new IOException("flush failed");
+                }
+            }
+        });
+        wa.setGroupCommit(true);
+        // the first flush waits until every writer has written
+        wa.setGroupCommitMaxLatency(Duration.buildBySeconds(10));
+        wa.setGroupCommitMaxBytes(new FileSize(threadCount));
+        wa.start();
+
+        Thread[] threads = new Thread[threadCount];
+        for (int t = 0; t < threadCount; t++) {
+            threads[t] = new Thread(() -> wa.doAppend("x"));
+            threads[t].start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+
+        long failures = context.getStatusManager().getCopyOfStatusList().stream()
+                .filter(s -> s.getLevel() == Status.ERROR && s.getMessage().startsWith("IO failure")).count();
+        Assertions.assertEquals(threadCount, failures);
+    }
+
+    static class SlowFlushingOutputStream extends ByteArrayOutputStream {
+        final Set<Thread> unflushedWriters = ConcurrentHashMap.newKeySet();
+        int flushCount;
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) {
+            unflushedWriters.add(Thread.currentThread());
+            super.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            flushCount++;
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            unflushedWriters.clear();
+        }
+    }
+
+    static class CountingOutputStream extends ByteArrayOutputStream {
+        int writeCount;
+        int flushCount;
+
+        @Override
+        public void write(byte[] b) throws IOException {
+            writeCount++;
+            super.write(b);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            flushCount++;
+            super.flush();
+        }
+    }
+
     String emtptyIfNull(String s) {
         return s == null ? "" : s;
     }
@@ -0,0 +1,183 @@
+/*
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2024, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import ch.qos.logback.core.async.AppenderQueueSettings;
+import ch.qos.logback.core.async.Partitioner;
+import ch.qos.logback.core.read.ListAppender;
+import ch.qos.logback.core.status.Status;
+import ch.qos.logback.core.status.testUtil.StatusChecker;
+import ch.qos.logback.core.testUtil.DelayingListAppender;
+
+public class PartitionedAsyncAppenderBaseTest {
+
+    Context context = new ContextBase();
+    PartitionedAsyncAppenderBase<Integer> paab = new PartitionedAsyncAppenderBase<Integer>();
+    ListAppender<Integer> fastAppender = new ListAppender<Integer>();
+    DelayingListAppender<Integer> slowAppender = new DelayingListAppender<Integer>();
+    StatusChecker statusChecker = new StatusChecker(context);
+
+    static final int PARTITION_COUNT = 3;
+
+    @BeforeEach
+    public void setUp() {
+        paab.setContext(context);
+        paab.setName("partitioned");
+        paab.setPartitionCount(PARTITION_COUNT);
+        paab.setPartitioner(new Partitioner<Integer>() {
+            @Override
+            public int partition(Integer event, int partitionCount) {
+                return event % partitionCount;
+            }
+        });
+
+        fastAppender.setContext(context);
+        fastAppender.setName("fast");
+        fastAppender.start();
+
+        slowAppender.setContext(context);
+        slowAppender.setName("slow");
+        slowAppender.setDelay(1);
+        slowAppender.start();
+    }
+
+    @Test
+    public void noAppenderShouldResultInNonStartedAppender() {
+        paab.start();
+        assertFalse(paab.isStarted());
+        statusChecker.assertContainsMatch("No attached appenders found.");
+    }
+
+    @Test
+    public void queueSettingsCanBeOverriddenPerAppender() {
+        paab.setQueueSize(64);
+        paab.setDiscardingThreshold(8);
+        AppenderQueueSettings slowSettings = new AppenderQueueSettings();
+        slowSettings.setAppenderName("slow");
+        slowSettings.setQueueSize(16);
+        slowSettings.setNeverBlock(true);
+        paab.addAppenderQueueSettings(slowSettings);
+        AppenderQueueSettings unknownSettings = new AppenderQueueSettings();
+        unknownSettings.setAppenderName("unknown");
+        paab.addAppenderQueueSettings(unknownSettings);
+        paab.addAppender(fastAppender);
+        paab.addAppender(slowAppender);
+        paab.start();
+
+        for (int p = 0; p < PARTITION_COUNT; p++) {
+            PartitionedAsyncAppenderBase.Lane<Integer> fastLane = paab.lanes.get(0).get(p);
+            assertEquals(64, fastLane.getQueueSize());
+            assertEquals(8, fastLane.getDiscardingThreshold());
+            assertFalse(fastLane.isNeverBlock());
+            PartitionedAsyncAppenderBase.Lane<Integer> slowLane = paab.lanes.get(1).get(p);
+            assertEquals(16, slowLane.getQueueSize());
+            assertEquals(8, slowLane.getDiscardingThreshold());
+            assertTrue(slowLane.isNeverBlock());
+        }
+        statusChecker.assertContainsMatch(Status.WARN, "Queue settings for appender \\[unknown\\]");
+        paab.stop();
+    }
+
+    @Test
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    public void fanOutPreservesPerPartitionOrder() {
+        int loopLen = 300;
+        paab.addAppender(fastAppender);
+        paab.addAppender(slowAppender);
+        paab.setMaxFlushTime(4000);
+        paab.start();
+        assertTrue(paab.isStarted());
+
+        for (int i = 0; i < loopLen; i++) {
+            paab.doAppend(i);
+        }
+        paab.stop();
+
+        assertEquals(loopLen, fastAppender.list.size());
+        assertEquals(loopLen, slowAppender.list.size());
+        assertFalse(fastAppender.isStarted());
+        assertFalse(slowAppender.isStarted());
+        assertOrderedPerPartition(fastAppender.list);
+        assertOrderedPerPartition(slowAppender.list);
+        statusChecker.assertIsErrorFree();
+    }
+
+    @Test
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    public void slowAppenderDoesNotHoldBackFastAppender() throws InterruptedException {
+        int loopLen = 12;
+        slowAppender.setDelay(100);
+        paab.addAppender(fastAppender);
+        paab.addAppender(slowAppender);
+        paab.setMaxFlushTime(4000);
+        paab.start();
+
+        for (int i = 0; i < loopLen; i++) {
+            paab.doAppend(i);
+        }
+
+        long deadline = System.currentTimeMillis() + 2000;
+        while (fastAppender.list.size() < loopLen && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(loopLen, fastAppender.list.size());
+        assertTrue(slowAppender.list.size() < loopLen);
+        paab.stop();
+    }
+
+    @Test
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    public void lanesShareOneMaxFlushTimeAtStop() {
+        int maxFlushTime = 300;
+        // each partition needs one second to flush
+        int loopLen = PARTITION_COUNT * 10;
+        slowAppender.setDelay(100);
+        paab.addAppender(slowAppender);
+        paab.setMaxFlushTime(maxFlushTime);
+        paab.start();
+
+        for (int i = 0; i < loopLen; i++) {
+            paab.doAppend(i);
+        }
+        long start = System.nanoTime();
+        paab.stop();
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // stopping the lanes one after the other would take PARTITION_COUNT * maxFlushTime
+        assertTrue(elapsedMillis < 2 * maxFlushTime, "elapsed " + elapsedMillis);
+        statusChecker.assertContainsMatch("Max queue flush timeout");
+    }
+
+    private void assertOrderedPerPartition(List<Integer> list) {
+        int[] last = new int[PARTITION_COUNT];
+        Arrays.fill(last, -1);
+        for (Integer i : list) {
+            int partition = i % PARTITION_COUNT;
+            assertTrue(i > last[partition], "out of order " + i);
+            last[partition] = i;
+        }
+    }
+}
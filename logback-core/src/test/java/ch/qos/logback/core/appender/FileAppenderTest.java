@@ -14,6 +14,9 @@
 package ch.qos.logback.core.appender;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.List;
 
 import org.junit.jupiter.api.Assertions;
@@ -23,6 +26,7 @@ import ch.qos.logback.core.Appender;
 import ch.qos.logback.core.FileAppender;
 import ch.qos.logback.core.testUtil.DummyEncoder;
 import ch.qos.logback.core.encoder.NopEncoder;
+import ch.qos.logback.core.recovery.FileOutputMode;
 import ch.qos.logback.core.status.Status;
 import ch.qos.logback.core.status.StatusManager;
 import ch.qos.logback.core.testUtil.CoreTestConstants;
@@ -126,6 +130,37 @@ public class FileAppenderTest extends AbstractAppenderTest<Object> {
         Assertions.assertTrue(file.delete(), "failed to delete " + file.getAbsolutePath());
     }
 
+    @Test
+    public void outputModesWriteExactContent() throws IOException {
+        for (FileOutputMode mode : FileOutputMode.values()) {
+            for (String payload : List.of("abc\n", "x".repeat(5000), "y".repeat(10_000))) {
+                String filename = CoreTestConstants.OUTPUT_DIR_PREFIX + diff + "-outputMode-" + mode + ".log";
+                writeEvents(filename, mode, false, payload, 300);
+                writeEvents(filename, mode, true, payload, 10);
+
+                byte[] content = Files.readAllBytes(Paths.get(filename));
+                Assertions.assertEquals(payload.repeat(310), new String(content), mode.toString());
+                Assertions.assertTrue(new File(filename).delete());
+            }
+        }
+    }
+
+    private void writeEvents(String filename, FileOutputMode mode, boolean append, String payload, int count) {
+        FileAppender<Object> appender = new FileAppender<Object>();
+        appender.setEncoder(new DummyEncoder<Object>(payload));
+        appender.setAppend(append);
+        appender.setFile(filename);
+        appender.setOutputMode(mode);
+        appender.setName("outputMode");
+        appender.setContext(context);
+        appender.start();
+        Assertions.assertTrue(appender.isStarted());
+        for (int i = 0; i < count; i++) {
+            appender.doAppend(new Object());
+        }
+        appender.stop();
+    }
+
     @Test
     public void fileNameCollision() {
         String fileName = CoreTestConstants.OUTPUT_DIR_PREFIX + diff + "fileNameCollision";
@@ -0,0 +1,51 @@
+/*
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2024, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.async;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+public class BatchSizeHistogramTest {
+
+    BatchSizeHistogram histogram = new BatchSizeHistogram();
+
+    @Test
+    public void bucketBoundaries() {
+        assertEquals(0, BatchSizeHistogram.bucketOf(1));
+        assertEquals(1, BatchSizeHistogram.bucketOf(2));
+        assertEquals(1, BatchSizeHistogram.bucketOf(3));
+        assertEquals(2, BatchSizeHistogram.bucketOf(4));
+        assertEquals(8, BatchSizeHistogram.bucketOf(256));
+        assertEquals(30, BatchSizeHistogram.bucketOf(Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void record() {
+        histogram.record(1);
+        histogram.record(1);
+        histogram.record(3);
+        histogram.record(0);
+        histogram.record(10);
+
+        long[] counts = histogram.getCounts();
+        assertEquals(2, counts[0]);
+        assertEquals(1, counts[1]);
+        assertEquals(1, counts[3]);
+        assertEquals(4, histogram.getBatchCount());
+        assertEquals(15, histogram.getEventCount());
+        assertEquals(3.75, histogram.getMeanBatchSize());
+        assertEquals("batches=4, events=15, buckets={1:2, 2-3:1, 8-15:1}", histogram.toString());
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2024, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.async;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import ch.qos.logback.core.testUtil.CoreTestConstants;
+import ch.qos.logback.core.testUtil.RandomUtil;
+
+public class DirectByteRingBufferTest {
+
+    @Test
+    public void boundedByRecordCount() {
+        DirectByteRingBuffer rb = new DirectByteRingBuffer(1024, 2);
+        assertTrue(rb.offer("a".getBytes()));
+        assertTrue(rb.offer("b".getBytes()));
+        assertFalse(rb.offer("c".getBytes()));
+        assertEquals(2, rb.size());
+        assertEquals(0, rb.remainingCapacity());
+    }
+
+    @Test
+    public void boundedByBytes() {
+        // two records of 4 + 4 bytes fill the buffer
+        DirectByteRingBuffer rb = new DirectByteRingBuffer(16, 10);
+        assertTrue(rb.offer("abcd".getBytes()));
+        assertTrue(rb.offer("efgh".getBytes()));
+        assertFalse(rb.offer("i".getBytes()));
+        assertFalse(rb.accepts(13));
+        assertFalse(rb.offer(new byte[13]));
+    }
+
+    @Test
+    public void recordsWrapAround() {
+        DirectByteRingBuffer rb = new DirectByteRingBuffer(21, 10);
+        byte[][] holder = { new byte[64] };
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        for (int i = 0; i < 50; i++) {
+            byte[] record = ("r" + i).getBytes();
+            expected.write(record, 0, record.length);
+            assertTrue(rb.offer(record));
+            int length = rb.poll(holder);
+            actual.write(holder[0], 0, length);
+        }
+        assertEquals(expected.toString(), actual.toString());
+        assertEquals(0, rb.poll(holder));
+    }
+
+    @Test
+    public void drainStopsAtFullRecordsAndGrowsForLargeOnes() {
+        DirectByteRingBuffer rb = new DirectByteRingBuffer(1024, 10);
+        byte[] small = new byte[4];
+        byte[][] holder = { small };
+        rb.offer("ab".getBytes());
+        rb.offer("cde".getBytes());
+        rb.offer("0123456789".getBytes());
+
+        assertEquals(2, rb.poll(holder));
+        assertSame(small, holder[0]);
+        assertEquals(3, rb.poll(holder));
+        assertEquals(10, rb.poll(holder));
+        assertEquals("0123456789", new String(holder[0], 0, 10));
+    }
+
+    @Test
+    public void mappedFile() throws IOException {
+        File file = new File(CoreTestConstants.OUTPUT_DIR_PREFIX + "ring-" + RandomUtil.getPositiveInt());
+        file.getParentFile().mkdirs();
+        DirectByteRingBuffer rb = DirectByteRingBuffer.mapFile(file, 64, 100);
+        assertEquals(64, file.length());
+        assertTrue(rb.offer("hello".getBytes()));
+        assertEquals(9, rb.getUsedBytes());
+        byte[][] holder = { new byte[16] };
+        assertEquals(5, rb.poll(holder));
+        assertEquals("hello", new String(holder[0], 0, 5));
+        assertEquals(0, rb.getUsedBytes());
+        file.delete();
+    }
+
+    @Test
+    @Timeout(value = 1, unit = TimeUnit.SECONDS)
+    public void pollWithTimeoutOnEmptyBuffer() throws InterruptedException {
+        DirectByteRingBuffer rb = new DirectByteRingBuffer(64, 10);
+        assertEquals(0, rb.poll(new byte[][] { new byte[8] }, 10, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    public void concurrentProducersLoseNothing() throws InterruptedException {
+        final int producerCount = 4;
+        final int perProducer = 10_000;
+        final DirectByteRingBuffer rb = new DirectByteRingBuffer(256, 1000);
+
+        Thread[] producers = new Thread[producerCount];
+        for (int p = 0; p < producerCount; p++) {
+            producers[p] = new Thread(() -> {
+                try {
+                    for (int i = 0; i < perProducer; i++) {
+                        rb.put("x".getBytes());
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            producers[p].start();
+        }
+
+        byte[][] holder = { new byte[32] };
+        int total = 0;
+        while (total < producerCount * perProducer) {
+            total += rb.take(holder);
+        }
+        for (Thread t : producers) {
+            t.join();
+        }
+        assertEquals(producerCount * perProducer, total);
+        assertEquals(0, rb.size());
+    }
+}
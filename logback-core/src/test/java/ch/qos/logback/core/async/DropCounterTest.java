@@ -0,0 +1,72 @@
+/*
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2024, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.async;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+public class DropCounterTest {
+
+    DropCounter dropCounter = new DropCounter(2);
+
+    @Test
+    public void drainResetsCounts() {
+        dropCounter.record("a", 0);
+        dropCounter.record("a", 0);
+        dropCounter.record("b", 1);
+
+        AtomicLong total = new AtomicLong();
+        dropCounter.drain((key, category, count) -> total.addAndGet(count));
+
+        assertEquals(3, total.get());
+        assertEquals(0, dropCounter.get("a", 0));
+        assertEquals(0, dropCounter.get("b", 1));
+    }
+
+    @Test
+    public void concurrentDropsAreNotLost() throws InterruptedException {
+        final int threadCount = 4;
+        final int perThread = 100_000;
+        AtomicLong drained = new AtomicLong();
+        AtomicBoolean done = new AtomicBoolean();
+        Thread drainer = new Thread(() -> {
+            while (!done.get()) {
+                dropCounter.drain((key, category, count) -> drained.addAndGet(count));
+            }
+        });
+        drainer.start();
+
+        Thread[] threads = new Thread[threadCount];
+        for (int t = 0; t < threadCount; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    dropCounter.record("a", 0);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        done.set(true);
+        drainer.join();
+        dropCounter.drain((key, category, count) -> drained.addAndGet(count));
+
+        assertEquals(threadCount * perThread, drained.get());
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2024, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.async;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+public class MpscRingBufferTest {
+
+    @Test
+    public void capacityIsNotRoundedUp() {
+        MpscRingBuffer<Integer> rb = new MpscRingBuffer<Integer>(5);
+        assertEquals(5, rb.remainingCapacity());
+        for (int i = 0; i < 5; i++) {
+            assertTrue(rb.offer(i));
+        }
+        assertFalse(rb.offer(5));
+        assertEquals(5, rb.size());
+        assertEquals(0, rb.remainingCapacity());
+    }
+
+    @Test
+    public void fifoOrderAcrossWrapAround() {
+        MpscRingBuffer<Integer> rb = new MpscRingBuffer<Integer>(3);
+        for (int i = 0; i < 100; i++) {
+            assertTrue(rb.offer(i));
+            assertEquals(i, rb.poll());
+        }
+        assertNull(rb.poll());
+        assertTrue(rb.isEmpty());
+    }
+
+    @Test
+    public void drainTo() {
+        MpscRingBuffer<Integer> rb = new MpscRingBuffer<Integer>(8);
+        for (int i = 0; i < 6; i++) {
+            rb.offer(i);
+        }
+        List<Integer> list = new ArrayList<Integer>();
+        assertEquals(4, rb.drainTo(list, 4));
+        assertEquals(List.of(0, 1, 2, 3), list);
+        assertEquals(2, rb.drainTo(list));
+        assertEquals(6, list.size());
+        assertEquals(8, rb.remainingCapacity());
+    }
+
+    @Test
+    @Timeout(value = 1, unit = TimeUnit.SECONDS)
+    public void pollWithTimeoutOnEmptyQueue() throws InterruptedException {
+        MpscRingBuffer<Integer> rb = new MpscRingBuffer<Integer>(2);
+        assertNull(rb.poll(10, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    public void concurrentProducersLoseNothing() throws InterruptedException {
+        final int producerCount = 4;
+        final int perProducer = 20_000;
+        final MpscRingBuffer<Integer> rb = new MpscRingBuffer<Integer>(100);
+
+        Thread[] producers = new Thread[producerCount];
+        for (int p = 0; p < producerCount; p++) {
+            final int base = p * perProducer;
+            producers[p] = new Thread(() -> {
+                try {
+                    for (int i = 0; i < perProducer; i++) {
+                        rb.put(base + i);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            producers[p].start();
+        }
+
+        boolean[] seen = new boolean[producerCount * perProducer];
+        int[] lastSeenPerProducer = new int[producerCount];
+        Arrays.fill(lastSeenPerProducer, -1);
+        for (int n = 0; n < seen.length; n++) {
+            int value = rb.take();
+            assertFalse(seen[value]);
+            seen[value] = true;
+            // order is preserved per producer
+            int producer = value / perProducer;
+            assertTrue(value > lastSeenPerProducer[producer]);
+            lastSeenPerProducer[producer] = value;
+        }
+        for (Thread t : producers) {
+            t.join();
+        }
+        assertTrue(rb.isEmpty());
+    }
+}
@@ -17,10 +17,13 @@ import ch.qos.logback.core.Context;
 import ch.qos.logback.core.ContextBase;
 import ch.qos.logback.core.rolling.helper.FileFilterUtil;
 import ch.qos.logback.core.rolling.helper.FileNamePattern;
+import ch.qos.logback.core.testUtil.CoreTestConstants;
+import ch.qos.logback.core.testUtil.RandomUtil;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
 import java.io.File;
+import java.io.IOException;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 
@@ -51,4 +54,28 @@ public class FileFilterUtilTest {
         int result = FileFilterUtil.findHighestCounter(matchingFileArray, stemRegex);
         Assertions.assertEquals(12, result);
     }
+
+    @Test
+    public void findHighestCounterInFolderTest() throws ParseException, IOException {
+        String folder = CoreTestConstants.OUTPUT_DIR_PREFIX + "counter-" + RandomUtil.getPositiveInt() + "/";
+        String[] names = { "debug-2010-08-10.0.log", "debug-2010-08-10.7.log.gz", "debug-2010-08-10.12.log",
+                "debug-2010-08-11.40.log", "other-2010-08-10.50.log", "debug-2010-08-10.x.log" };
+        for (String name : names) {
+            File file = new File(folder + name);
+            file.getParentFile().mkdirs();
+            file.createNewFile();
+        }
+
+        FileNamePattern fnp = new FileNamePattern(folder + "debug-%d{yyyy-MM-dd}.%i.log", context);
+        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
+        String stemRegex = FileFilterUtil.afterLastSlash(fnp.toRegexForFixedDate(sdf.parse("2010-08-10")));
+        String prefix = FileFilterUtil.commonPrefix("debug-2010-08-10.0.log", "debug-2010-08-10.1.log");
+        Assertions.assertEquals("debug-2010-08-10.", prefix);
+
+        Assertions.assertEquals(12, FileFilterUtil.findHighestCounterInFolder(new File(folder), prefix, stemRegex));
+        Assertions.assertEquals(-1,
+                FileFilterUtil.findHighestCounterInFolder(new File(folder), "none-", stemRegex));
+        Assertions.assertEquals(-1,
+                FileFilterUtil.findHighestCounterInFolder(new File(folder + "missing"), prefix, stemRegex));
+    }
 }
@@ -17,7 +17,10 @@ import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
 
 import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
@@ -62,4 +65,21 @@ public class ResilientOutputStreamTest {
 
     }
 
+    @Test
+    public void mappedAppendOverwritesZerosLeftByACrash() throws Exception {
+        File file = new File(CoreTestConstants.OUTPUT_DIR_PREFIX + "mapped" + diff + ".log");
+        // as left by a mapped stream which was not closed
+        byte[] crashed = new byte[5 + ResilientFileOutputStream.MIN_MAPPED_REGION_SIZE];
+        System.arraycopy("hello".getBytes(StandardCharsets.US_ASCII), 0, crashed, 0, 5);
+        Files.write(file.toPath(), crashed);
+
+        ResilientFileOutputStream rfos = new ResilientFileOutputStream(file, true, FileAppender.DEFAULT_BUFFER_SIZE,
+                FileOutputMode.MAPPED);
+        Assertions.assertEquals(5, rfos.getLength());
+        rfos.write(" world".getBytes(StandardCharsets.US_ASCII));
+        rfos.close();
+
+        Assertions.assertEquals("hello world", new String(Files.readAllBytes(file.toPath()), StandardCharsets.US_ASCII));
+    }
+
 }
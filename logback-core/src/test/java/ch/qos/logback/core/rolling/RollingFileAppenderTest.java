@@ -13,20 +13,40 @@
  */
 package ch.qos.logback.core.rolling;
 
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
 
 import ch.qos.logback.core.Appender;
 import ch.qos.logback.core.Context;
 import ch.qos.logback.core.ContextBase;
 import ch.qos.logback.core.appender.AbstractAppenderTest;
+import ch.qos.logback.core.recovery.FileOutputMode;
+import ch.qos.logback.core.rolling.helper.GZIPSegmentOutputStream;
 import ch.qos.logback.core.testUtil.DummyEncoder;
 import ch.qos.logback.core.status.Status;
 import ch.qos.logback.core.testUtil.CoreTestConstants;
 import ch.qos.logback.core.testUtil.RandomUtil;
 import ch.qos.logback.core.status.testUtil.StatusChecker;
+import ch.qos.logback.core.util.FileSize;
 //import ch.qos.logback.core.util.StatusPrinter;
 
 public class RollingFileAppenderTest extends AbstractAppenderTest<Object> {
@@ -186,6 +206,386 @@ public class RollingFileAppenderTest extends AbstractAppenderTest<Object> {
 
     }
 
+    @Test
+    public void compressOnTheFlyRollsOverByRenaming() throws IOException {
+        rfa.setContext(context);
+        String activeFileName = randomOutputDir + "active.log";
+        rfa.setFile(activeFileName);
+        rfa.setCompressOnTheFly(true);
+        rfa.setCompressionSegmentSize(new FileSize(100));
+
+        FixedWindowRollingPolicy fwRollingPolicy = new FixedWindowRollingPolicy();
+        fwRollingPolicy.setContext(context);
+        fwRollingPolicy.setFileNamePattern(randomOutputDir + "archive-%i.log.gz");
+        fwRollingPolicy.setParent(rfa);
+        fwRollingPolicy.start();
+        SizeBasedTriggeringPolicy<Object> sbTriggeringPolicy = new SizeBasedTriggeringPolicy<Object>();
+        sbTriggeringPolicy.setContext(context);
+        sbTriggeringPolicy.start();
+        rfa.setRollingPolicy(fwRollingPolicy);
+        rfa.setTriggeringPolicy(sbTriggeringPolicy);
+        rfa.start();
+        Assertions.assertTrue(rfa.isStarted());
+
+        String eventString = new String(new DummyEncoder<Object>().encode(null));
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            rfa.doAppend("event");
+            expected.append(eventString);
+        }
+        // between rollovers, the last member is sync-flushed but incomplete
+        Assertions.assertEquals(expected.toString(), gunzipTruncated(new File(activeFileName)));
+
+        rfa.rollover();
+        rfa.doAppend("event");
+        rfa.stop();
+
+        StatusChecker checker = new StatusChecker(context);
+        checker.assertIsErrorFree();
+        checker.assertNoMatch("GZ compressing");
+        Assertions.assertEquals(expected.toString(), gunzip(new File(randomOutputDir + "archive-1.log.gz")));
+        Assertions.assertEquals(eventString, gunzip(new File(activeFileName)));
+    }
+
+    @Test
+    public void compressOnTheFlyCompletesAMemberLeftUnfinishedByACrash() throws IOException {
+        rfa.setContext(context);
+        String activeFileName = randomOutputDir + "active.log";
+        File activeFile = new File(activeFileName);
+        activeFile.getParentFile().mkdirs();
+        // a crashed process leaves the active file inside a sync-flushed member
+        FileOutputStream crashedFos = new FileOutputStream(activeFile);
+        GZIPSegmentOutputStream crashed = new GZIPSegmentOutputStream(crashedFos, 6, 0, 1000);
+        crashed.write("before crash ".getBytes());
+        crashed.flush();
+        crashedFos.close();
+
+        rfa.setFile(activeFileName);
+        rfa.setCompressOnTheFly(true);
+        tbrp.setFileNamePattern(randomOutputDir + "toto-%d.log.gz");
+        tbrp.start();
+        rfa.setRollingPolicy(tbrp);
+        rfa.start();
+        rfa.doAppend("event");
+        rfa.stop();
+
+        StatusChecker checker = new StatusChecker(context);
+        checker.assertIsErrorFree();
+        checker.assertContainsMatch(Status.WARN, "Completed the gzip member left unfinished");
+        String eventString = new String(new DummyEncoder<Object>().encode(null));
+        Assertions.assertEquals("before crash " + eventString, gunzip(activeFile));
+    }
+
+    @Test
+    public void compressOnTheFlyRequiresGzCompression() {
+        rfa.setContext(context);
+        rfa.setCompressOnTheFly(true);
+        tbrp.setFileNamePattern(randomOutputDir + "toto-%d.log.zip");
+        tbrp.start();
+        rfa.setRollingPolicy(tbrp);
+        rfa.start();
+
+        Assertions.assertFalse(rfa.isStarted());
+        StatusChecker checker = new StatusChecker(context);
+        checker.assertContainsMatch(Status.ERROR, "Compression on the fly requires");
+    }
+
+    @Test
+    public void sizeIsTrackedWithoutQueryingTheFile() {
+        for (FileOutputMode outputMode : FileOutputMode.values()) {
+            String dir = randomOutputDir + outputMode + "/";
+            RollingFileAppender<Object> appender = new RollingFileAppender<Object>();
+            appender.setContext(context);
+            appender.setName(outputMode.toString());
+            appender.setEncoder(new DummyEncoder<Object>("0123456789"));
+            appender.setFile(dir + "active.log");
+            appender.setOutputMode(outputMode);
+
+            FixedWindowRollingPolicy fwRollingPolicy = new FixedWindowRollingPolicy();
+            fwRollingPolicy.setContext(context);
+            fwRollingPolicy.setFileNamePattern(dir + "archive-%i.log");
+            fwRollingPolicy.setParent(appender);
+            fwRollingPolicy.start();
+            SizeBasedTriggeringPolicy<Object> sbTriggeringPolicy = new SizeBasedTriggeringPolicy<Object>();
+            sbTriggeringPolicy.setContext(context);
+            sbTriggeringPolicy.setMaxFileSize(new FileSize(100));
+            sbTriggeringPolicy.start();
+            appender.setRollingPolicy(fwRollingPolicy);
+            appender.setTriggeringPolicy(sbTriggeringPolicy);
+            appender.start();
+
+            for (int i = 0; i < 25; i++) {
+                appender.doAppend("event");
+            }
+            Assertions.assertEquals(50, appender.getActiveFileLength(), outputMode.toString());
+            appender.stop();
+
+            // the size check occurs before each write, every 10 events
+            Assertions.assertEquals(100, new File(dir + "archive-1.log").length(), outputMode.toString());
+            Assertions.assertEquals(100, new File(dir + "archive-2.log").length(), outputMode.toString());
+            Assertions.assertFalse(new File(dir + "archive-3.log").exists(), outputMode.toString());
+            Assertions.assertEquals(50, new File(dir + "active.log").length(), outputMode.toString());
+        }
+    }
+
+    @Test
+    public void batchesRollOverOnTheLengthOfTheirPendingEvents() {
+        rfa.setContext(context);
+        rfa.setEncoder(new DummyEncoder<Object>("0123456789"));
+        rfa.setFile(randomOutputDir + "active.log");
+
+        FixedWindowRollingPolicy fwRollingPolicy = new FixedWindowRollingPolicy();
+        fwRollingPolicy.setContext(context);
+        fwRollingPolicy.setFileNamePattern(randomOutputDir + "archive-%i.log");
+        fwRollingPolicy.setParent(rfa);
+        fwRollingPolicy.start();
+        SizeBasedTriggeringPolicy<Object> sbTriggeringPolicy = new SizeBasedTriggeringPolicy<Object>();
+        sbTriggeringPolicy.setContext(context);
+        sbTriggeringPolicy.setMaxFileSize(new FileSize(100));
+        sbTriggeringPolicy.start();
+        rfa.setRollingPolicy(fwRollingPolicy);
+        rfa.setTriggeringPolicy(sbTriggeringPolicy);
+        rfa.start();
+
+        List<Object> batch = new ArrayList<Object>();
+        for (int i = 0; i < 25; i++) {
+            batch.add("event");
+        }
+        rfa.doAppendBatch(batch);
+        rfa.stop();
+
+        // the same files as when the events are appended one at a time
+        Assertions.assertEquals(100, new File(randomOutputDir + "archive-1.log").length());
+        Assertions.assertEquals(100, new File(randomOutputDir + "archive-2.log").length());
+        Assertions.assertFalse(new File(randomOutputDir + "archive-3.log").exists());
+        Assertions.assertEquals(50, new File(randomOutputDir + "active.log").length());
+    }
+
+    @Test
+    public void compressedBatchesRollOverOnTheCompressedLength() throws IOException {
+        rfa.setContext(context);
+        rfa.setEncoder(new DummyEncoder<Object>("0123456789"));
+        String activeFileName = randomOutputDir + "active.log";
+        rfa.setFile(activeFileName);
+        rfa.setCompressOnTheFly(true);
+
+        FixedWindowRollingPolicy fwRollingPolicy = new FixedWindowRollingPolicy();
+        fwRollingPolicy.setContext(context);
+        fwRollingPolicy.setFileNamePattern(randomOutputDir + "archive-%i.log.gz");
+        fwRollingPolicy.setParent(rfa);
+        fwRollingPolicy.start();
+        SizeBasedTriggeringPolicy<Object> sbTriggeringPolicy = new SizeBasedTriggeringPolicy<Object>();
+        sbTriggeringPolicy.setContext(context);
+        sbTriggeringPolicy.setMaxFileSize(new FileSize(100));
+        sbTriggeringPolicy.start();
+        rfa.setRollingPolicy(fwRollingPolicy);
+        rfa.setTriggeringPolicy(sbTriggeringPolicy);
+        rfa.start();
+
+        List<Object> batch = new ArrayList<Object>();
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 25; i++) {
+            batch.add("event");
+            expected.append("0123456789");
+        }
+        rfa.doAppendBatch(batch);
+        rfa.stop();
+
+        // 250 uncompressed bytes, far less than 100 once compressed
+        Assertions.assertFalse(new File(randomOutputDir + "archive-1.log.gz").exists());
+        Assertions.assertEquals(expected.toString(), gunzip(new File(activeFileName)));
+    }
+
+    @Test
+    public void encodedChunksRollOverOnTheirOwnLength() {
+        rfa.setContext(context);
+        rfa.setFile(randomOutputDir + "active.log");
+
+        FixedWindowRollingPolicy fwRollingPolicy = new FixedWindowRollingPolicy();
+        fwRollingPolicy.setContext(context);
+        fwRollingPolicy.setFileNamePattern(randomOutputDir + "archive-%i.log");
+        fwRollingPolicy.setParent(rfa);
+        fwRollingPolicy.start();
+        SizeBasedTriggeringPolicy<Object> sbTriggeringPolicy = new SizeBasedTriggeringPolicy<Object>();
+        sbTriggeringPolicy.setContext(context);
+        sbTriggeringPolicy.setMaxFileSize(new FileSize(100));
+        sbTriggeringPolicy.start();
+        rfa.setRollingPolicy(fwRollingPolicy);
+        rfa.setTriggeringPolicy(sbTriggeringPolicy);
+        rfa.start();
+
+        byte[] chunk = new byte[60];
+        for (int i = 0; i < 3; i++) {
+            rfa.subAppendEncoded(chunk, 0, chunk.length);
+        }
+        rfa.stop();
+
+        // a chunk which would take the file past maxFileSize goes to the next file
+        Assertions.assertEquals(60, new File(randomOutputDir + "archive-1.log").length());
+        Assertions.assertEquals(60, new File(randomOutputDir + "archive-2.log").length());
+        Assertions.assertEquals(60, new File(randomOutputDir + "active.log").length());
+    }
+
+    @Test
+    public void encodedBytesAreWrittenDespiteAPolicyRejectingNullEvents() throws IOException {
+        rfa.setContext(context);
+        String activeFileName = randomOutputDir + "active.log";
+        rfa.setFile(activeFileName);
+
+        FixedWindowRollingPolicy fwRollingPolicy = new FixedWindowRollingPolicy();
+        fwRollingPolicy.setContext(context);
+        fwRollingPolicy.setFileNamePattern(randomOutputDir + "archive-%i.log");
+        fwRollingPolicy.setParent(rfa);
+        fwRollingPolicy.start();
+        // a third-party policy relying on the event
+        TriggeringPolicyBase<Object> eventBasedPolicy = new TriggeringPolicyBase<Object>() {
+            @Override
+            public boolean isTriggeringEvent(File activeFile, Object event) {
+                return event.toString().startsWith("roll");
+            }
+        };
+        eventBasedPolicy.setContext(context);
+        eventBasedPolicy.start();
+        rfa.setRollingPolicy(fwRollingPolicy);
+        rfa.setTriggeringPolicy(eventBasedPolicy);
+        rfa.start();
+
+        byte[] bytes = "encoded".getBytes();
+        rfa.subAppendEncoded(bytes, 0, bytes.length);
+        rfa.subAppendEncoded(bytes, 0, bytes.length);
+        rfa.stop();
+
+        Assertions.assertEquals("encodedencoded", new String(Files.readAllBytes(new File(activeFileName).toPath())));
+        Assertions.assertFalse(new File(randomOutputDir + "archive-1.log").exists());
+        StatusChecker checker = new StatusChecker(context);
+        checker.assertContainsMatch(Status.ERROR, "Triggering policy .* failed on encoded events");
+        Assertions.assertEquals(1, checker.matchCount("Triggering policy .* failed on encoded events"));
+    }
+
+    @Test
+    @Timeout(value = 10, threadMode = Timeout.ThreadMode.SEPARATE_THREAD)
+    public void rolloverDoesNotWaitForAPendingPreparation() throws Exception {
+        ZoneId zoneId = ZoneId.systemDefault();
+        long now = LocalDate.of(2024, 3, 1).atTime(12, 0).atZone(zoneId).toInstant().toEpochMilli();
+        String prefix = randomOutputDir + "pending-";
+
+        rfa.setContext(context);
+        rfa.setEncoder(new DummyEncoder<Object>("0123456789"));
+        rfa.setPreOpenNextFile(true);
+        SizeAndTimeBasedFNATP<Object> sizeAndTimeBasedFNATP = new SizeAndTimeBasedFNATP<Object>();
+        sizeAndTimeBasedFNATP.setMaxFileSize(new FileSize(1000));
+        sizeAndTimeBasedFNATP.setCurrentTime(now);
+        tbrp.setFileNamePattern(prefix + "%d{yyyy-MM-dd}.%i.log");
+        tbrp.setTimeBasedFileNamingAndTriggeringPolicy(sizeAndTimeBasedFNATP);
+        tbrp.start();
+        rfa.setRollingPolicy(tbrp);
+        rfa.start();
+        rfa.preparationFuture.get();
+        Assertions.assertTrue(new File(prefix + "2024-03-02.0.log").exists());
+
+        // a preparation still running when the next rollover is due
+        CompletableFuture<Void> pending = new CompletableFuture<>();
+        rfa.preparationFuture = pending;
+        sizeAndTimeBasedFNATP.setCurrentTime(now + TimeUnit.DAYS.toMillis(1));
+        rfa.doAppend("event");
+        Assertions.assertEquals(prefix + "2024-03-02.0.log", rfa.getFile());
+
+        pending.complete(null);
+        rfa.preparationFuture.get();
+        rfa.doAppend("event");
+        rfa.stop();
+
+        // the file prepared earlier but opened in place is kept
+        Assertions.assertEquals(20, new File(prefix + "2024-03-02.0.log").length());
+        Assertions.assertFalse(new File(prefix + "2024-03-01.1.log").exists());
+        StatusChecker checker = new StatusChecker(context);
+        checker.assertIsErrorFree();
+    }
+
+    @Test
+    public void preOpenedFilesAreSwappedInAtRollover() throws Exception {
+        ZoneId zoneId = ZoneId.systemDefault();
+        LocalDate day = LocalDate.of(2024, 3, 1);
+        long now = day.atTime(12, 0).atZone(zoneId).toInstant().toEpochMilli();
+        String prefix = randomOutputDir + "pre-";
+
+        rfa.setContext(context);
+        rfa.setEncoder(new DummyEncoder<Object>("0123456789"));
+        rfa.setPreOpenNextFile(true);
+        SizeAndTimeBasedFNATP<Object> sizeAndTimeBasedFNATP = new SizeAndTimeBasedFNATP<Object>();
+        sizeAndTimeBasedFNATP.setMaxFileSize(new FileSize(100));
+        sizeAndTimeBasedFNATP.setCurrentTime(now);
+        tbrp.setFileNamePattern(prefix + "%d{yyyy-MM-dd}.%i.log");
+        tbrp.setTimeBasedFileNamingAndTriggeringPolicy(sizeAndTimeBasedFNATP);
+        tbrp.start();
+        rfa.setRollingPolicy(tbrp);
+        rfa.start();
+        Assertions.assertTrue(rfa.isStarted());
+
+        // the next file of the day and the first file of the next day
+        rfa.preparationFuture.get();
+        Assertions.assertTrue(new File(prefix + "2024-03-01.1.log").exists());
+        Assertions.assertTrue(new File(prefix + "2024-03-02.0.log").exists());
+
+        for (int i = 0; i < 25; i++) {
+            rfa.doAppend("event");
+        }
+        Assertions.assertEquals(prefix + "2024-03-01.2.log", rfa.getFile());
+        Assertions.assertEquals(50, rfa.getActiveFileLength());
+
+        sizeAndTimeBasedFNATP.setCurrentTime(now + TimeUnit.DAYS.toMillis(1));
+        rfa.doAppend("event");
+        Assertions.assertEquals(prefix + "2024-03-02.0.log", rfa.getFile());
+
+        // the file prepared for a size based rollover on the first day is unused
+        rfa.preparationFuture.get();
+        Assertions.assertFalse(new File(prefix + "2024-03-01.3.log").exists());
+        Assertions.assertTrue(new File(prefix + "2024-03-02.1.log").exists());
+
+        rfa.stop();
+        Assertions.assertEquals(100, new File(prefix + "2024-03-01.0.log").length());
+        Assertions.assertEquals(100, new File(prefix + "2024-03-01.1.log").length());
+        Assertions.assertEquals(50, new File(prefix + "2024-03-01.2.log").length());
+        Assertions.assertEquals(10, new File(prefix + "2024-03-02.0.log").length());
+        Assertions.assertFalse(new File(prefix + "2024-03-02.1.log").exists());
+        Assertions.assertFalse(new File(prefix + "2024-03-03.0.log").exists());
+    }
+
+    @Test
+    public void preOpenNextFileRequiresReplacingTheActiveFile() {
+        rfa.setContext(context);
+        rfa.setFile(randomOutputDir + "active.log");
+        rfa.setPreOpenNextFile(true);
+        tbrp.setFileNamePattern(randomOutputDir + "%d{yyyy-MM-dd}.log");
+        tbrp.start();
+        rfa.setRollingPolicy(tbrp);
+        rfa.start();
+
+        Assertions.assertTrue(rfa.isStarted());
+        Assertions.assertFalse(rfa.isPreOpenNextFile());
+        new StatusChecker(context).assertContainsMatch(Status.WARN, "Pre-opening the next file requires");
+        rfa.stop();
+    }
+
+    String gunzipTruncated(File file) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (InputStream is = new GZIPInputStream(new FileInputStream(file))) {
+            int b;
+            while ((b = is.read()) != -1) {
+                baos.write(b);
+            }
+        } catch (EOFException e) {
+            // expected at the end of the incomplete member
+        }
+        return baos.toString();
+    }
+
+    String gunzip(File file) throws IOException {
+        try (InputStream is = new GZIPInputStream(new FileInputStream(file))) {
+            return new String(is.readAllBytes());
+        }
+    }
+
     /**
      * Test for http://jira.qos.ch/browse/LOGBACK-796
      */
@@ -303,7 +303,14 @@ public class TimeBasedRollingWithArchiveRemoval_Test extends ScaffoldingForRolli
                 return s0.compareTo(s1);
             }
         });
-        checkFileCount(expectedFileCount - 1);
+        // the length of the active file is tracked by the appender, so files are
+        // cut at the first event past fileSize, i.e. at 3450 bytes, rather than
+        // when the invocation gate next let the size be checked, at about 4050
+        // bytes. The cap of 34000 bytes thus keeps 10 archives instead of 8: the
+        // last file of 2016-03-12, the 5 files of 2016-03-13 and the first 4
+        // files of 2016-03-14, 32400 bytes in all. Together with the active
+        // file, that is expectedFileCount + 1 files rather than - 1.
+        checkFileCount(expectedFileCount + 1);
     }
 
     @Test
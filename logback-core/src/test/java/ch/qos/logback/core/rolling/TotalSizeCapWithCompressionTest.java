@@ -0,0 +1,151 @@
+/*
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2024, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.rolling;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import ch.qos.logback.core.ContextBase;
+import ch.qos.logback.core.encoder.EchoEncoder;
+import ch.qos.logback.core.testUtil.CoreTestConstants;
+import ch.qos.logback.core.testUtil.RandomUtil;
+import ch.qos.logback.core.util.FileSize;
+
+public class TotalSizeCapWithCompressionTest {
+
+    DeferredExecutorService compressionExecutor = new DeferredExecutorService();
+    DeferredExecutorService cleanUpExecutor = new DeferredExecutorService();
+
+    ContextBase context = new ContextBase() {
+        @Override
+        public synchronized ExecutorService getExecutorService() {
+            return compressionExecutor;
+        }
+
+        @Override
+        public synchronized ExecutorService getAlternateExecutorService() {
+            return cleanUpExecutor;
+        }
+    };
+
+    String outputDir = CoreTestConstants.OUTPUT_DIR_PREFIX + RandomUtil.getPositiveInt() + "/";
+    Random random = new Random(1);
+
+    @Test
+    public void archivesCompressedAfterCleanUpCountTowardsCap() {
+        RollingFileAppender<Object> rfa = new RollingFileAppender<>();
+        rfa.setContext(context);
+        rfa.setEncoder(new EchoEncoder<>());
+        TimeBasedRollingPolicy<Object> tbrp = new TimeBasedRollingPolicy<>();
+        tbrp.setContext(context);
+        tbrp.setFileNamePattern(outputDir + "capped-%d{yyyy-MM-dd_HH}.log.gz");
+        tbrp.setMaxHistory(20);
+        long sizeCap = 5000;
+        tbrp.setTotalSizeCap(new FileSize(sizeCap));
+        tbrp.setParent(rfa);
+        tbrp.timeBasedFileNamingAndTriggeringPolicy = new DefaultTimeBasedFileNamingAndTriggeringPolicy<>();
+        long currentTime = Instant.parse("2024-03-04T12:30:00Z").toEpochMilli();
+        tbrp.timeBasedFileNamingAndTriggeringPolicy.setCurrentTime(currentTime);
+        tbrp.start();
+        rfa.setRollingPolicy(tbrp);
+        rfa.start();
+
+        int periods = 10;
+        for (int p = 0; p < periods; p++) {
+            for (int i = 0; i < 100; i++) {
+                rfa.doAppend(randomLine());
+            }
+            currentTime += TimeUnit.HOURS.toMillis(1);
+            tbrp.timeBasedFileNamingAndTriggeringPolicy.setCurrentTime(currentTime);
+            // triggers the rollover
+            rfa.doAppend(randomLine());
+            // the clean-up runs while the elapsed period is still being compressed
+            cleanUpExecutor.runAll();
+            compressionExecutor.runAll();
+        }
+        rfa.stop();
+
+        File[] archives = new File(outputDir).listFiles((dir, name) -> name.endsWith(".gz"));
+        assertTrue(archives.length < periods, "no archive was removed");
+        // the newest archive is counted at the next clean-up only
+        Arrays.sort(archives, Comparator.comparing(File::getName));
+        long total = 0;
+        for (int i = 0; i < archives.length - 1; i++) {
+            total += archives[i].length();
+        }
+        assertTrue(total <= sizeCap, "total size " + total);
+    }
+
+    String randomLine() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 80; i++) {
+            sb.append((char) ('a' + random.nextInt(26)));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Runs the submitted tasks on demand, on the calling thread.
+     */
+    static class DeferredExecutorService extends AbstractExecutorService {
+        final List<Runnable> tasks = new ArrayList<>();
+
+        synchronized void runAll() {
+            List<Runnable> copy = new ArrayList<>(tasks);
+            tasks.clear();
+            copy.forEach(Runnable::run);
+        }
+
+        @Override
+        public synchronized void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return new ArrayList<>();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return false;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return false;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return true;
+        }
+    }
+}
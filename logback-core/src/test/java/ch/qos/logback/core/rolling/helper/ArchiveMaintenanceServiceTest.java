@@ -0,0 +1,154 @@
+/*
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2024, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.rolling.helper;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import ch.qos.logback.core.Context;
+import ch.qos.logback.core.ContextBase;
+import ch.qos.logback.core.testUtil.CoreTestConstants;
+import ch.qos.logback.core.testUtil.RandomUtil;
+
+public class ArchiveMaintenanceServiceTest {
+
+    Context context = new ContextBase();
+    String outputDir = CoreTestConstants.OUTPUT_DIR_PREFIX + RandomUtil.getPositiveInt() + "/";
+    RollingCalendar rc = new RollingCalendar("yyyy-MM-dd_HH");
+    Instant now = Instant.parse("2024-03-04T12:30:00Z");
+
+    @Test
+    public void serviceIsSharedWithinContext() {
+        ArchiveMaintenanceService service = ArchiveMaintenanceService.getInstance(context);
+        Assertions.assertSame(service, ArchiveMaintenanceService.getInstance(context));
+        Assertions.assertNotSame(service, ArchiveMaintenanceService.getInstance(new ContextBase()));
+    }
+
+    @Test
+    public void waitingRequestsAreCoalesced() throws Exception {
+        ArchiveMaintenanceService service = ArchiveMaintenanceService.getInstance(context);
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingRemover blocking = new RecordingRemover(fileNamePattern("blocking"), release);
+        RecordingRemover coalesced = new RecordingRemover(fileNamePattern("coalesced"), null);
+
+        Future<?> first = service.submit(blocking, now);
+        Future<?> second = service.submit(coalesced, now);
+        Future<?> third = service.submit(coalesced, now.plus(2, ChronoUnit.HOURS));
+        Future<?> fourth = service.submit(coalesced, now.plus(1, ChronoUnit.HOURS));
+        Assertions.assertSame(second, third);
+        Assertions.assertSame(second, fourth);
+        release.countDown();
+
+        first.get(5, TimeUnit.SECONDS);
+        fourth.get(5, TimeUnit.SECONDS);
+        Assertions.assertEquals(List.of(now), blocking.cleanedAt);
+        Assertions.assertEquals(List.of(now.plus(2, ChronoUnit.HOURS)), coalesced.cleanedAt);
+    }
+
+    @Test
+    public void removersSharingAFolderAreCleaned() throws Exception {
+        ArchiveMaintenanceService service = ArchiveMaintenanceService.getInstance(context);
+        TimeBasedArchiveRemover removerA = remover("a", service);
+        TimeBasedArchiveRemover removerB = remover("b", service);
+        File[] archivesA = createArchives(removerA, 6);
+        File[] archivesB = createArchives(removerB, 6);
+
+        Future<?> futureA = removerA.cleanAsynchronously(now);
+        Future<?> futureB = removerB.cleanAsynchronously(now);
+        futureA.get(5, TimeUnit.SECONDS);
+        futureB.get(5, TimeUnit.SECONDS);
+
+        // the current period and the 2 periods of history are kept
+        for (int i = 0; i < 6; i++) {
+            Assertions.assertEquals(i < 3, archivesA[i].exists(), archivesA[i].getName());
+            Assertions.assertEquals(i < 3, archivesB[i].exists(), archivesB[i].getName());
+        }
+    }
+
+    @Test
+    public void deletesAreRateLimited() throws Exception {
+        context.putProperty(ArchiveMaintenanceService.DELETES_PER_SECOND_PROPERTY, "20");
+        ArchiveMaintenanceService service = ArchiveMaintenanceService.getInstance(context);
+        Assertions.assertEquals(20, service.getDeletesPerSecond());
+        TimeBasedArchiveRemover remover = remover("a", service);
+        File[] archives = createArchives(remover, 8);
+
+        long start = System.nanoTime();
+        remover.cleanAsynchronously(now).get(5, TimeUnit.SECONDS);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        for (int i = 3; i < 8; i++) {
+            Assertions.assertFalse(archives[i].exists(), archives[i].getName());
+        }
+        // 5 deletions, the first one being immediate, 50 ms apart
+        Assertions.assertTrue(elapsedMillis >= 150, "elapsed " + elapsedMillis + " ms");
+    }
+
+    TimeBasedArchiveRemover remover(String prefix, ArchiveMaintenanceService service) {
+        TimeBasedArchiveRemover remover = new TimeBasedArchiveRemover(fileNamePattern(prefix), rc);
+        remover.setContext(context);
+        remover.setMaxHistory(2);
+        remover.setMaintenanceService(service);
+        return remover;
+    }
+
+    FileNamePattern fileNamePattern(String prefix) {
+        return new FileNamePattern(outputDir + prefix + "-%d{yyyy-MM-dd_HH}.log", context);
+    }
+
+    File[] createArchives(TimeBasedArchiveRemover remover, int count) throws IOException {
+        File[] archives = new File[count];
+        for (int i = 0; i < count; i++) {
+            File file = new File(remover.fileNamePattern.convert(rc.getEndOfNextNthPeriod(now, -i)));
+            file.getParentFile().mkdirs();
+            Files.write(file.toPath(), new byte[10]);
+            archives[i] = file;
+        }
+        return archives;
+    }
+
+    class RecordingRemover extends TimeBasedArchiveRemover {
+        final List<Instant> cleanedAt = new CopyOnWriteArrayList<>();
+        final CountDownLatch release;
+
+        RecordingRemover(FileNamePattern fileNamePattern, CountDownLatch release) {
+            super(fileNamePattern, new RollingCalendar("yyyy-MM-dd_HH"));
+            this.release = release;
+            setContext(context);
+        }
+
+        @Override
+        public void clean(Instant now) {
+            if (release != null) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            cleanedAt.add(now);
+        }
+    }
+}
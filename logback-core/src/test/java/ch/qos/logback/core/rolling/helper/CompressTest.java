@@ -95,6 +95,39 @@ public class CompressTest {
                 CoreTestConstants.TEST_SRC_PREFIX + "witness/compress2.txt.gz"));
     }
 
+    @Test
+    public void parallelGzCompression() throws Exception {
+        Compressor compressor = new Compressor(CompressionMode.GZ);
+        compressor.setContext(context);
+        compressor.setCompressionLevel(9);
+        compressor.setParallelChunkSize(100);
+        compressor.compress(CoreTestConstants.TEST_SRC_PREFIX + "input/compress2.txt",
+                CoreTestConstants.OUTPUT_DIR_PREFIX + "compress2.txt", null);
+
+        StatusChecker checker = new StatusChecker(context);
+        Assertions.assertTrue(checker.isErrorFree(0));
+        checker.assertContainsMatch("Done GZ compressing .* in parallel");
+
+        // one gzip member per chunk, read back as a whole
+        Assertions.assertTrue(Compare.gzCompare(CoreTestConstants.OUTPUT_DIR_PREFIX + "compress2.txt.gz",
+                CoreTestConstants.TEST_SRC_PREFIX + "witness/compress2.txt.gz"));
+    }
+
+    @Test
+    public void gzCompressionWithStrategy() throws Exception {
+        Compressor compressor = new Compressor(CompressionMode.GZ);
+        compressor.setContext(context);
+        compressor.setDeflateStrategy(DeflateStrategy.HUFFMAN_ONLY);
+        compressor.setBufferSize(512);
+        compressor.compress(CoreTestConstants.TEST_SRC_PREFIX + "input/compress1.txt",
+                CoreTestConstants.OUTPUT_DIR_PREFIX + "compress1.txt.gz", null);
+
+        StatusChecker checker = new StatusChecker(context);
+        Assertions.assertTrue(checker.isErrorFree(0));
+        Assertions.assertTrue(Compare.gzCompare(CoreTestConstants.OUTPUT_DIR_PREFIX + "compress1.txt.gz",
+                CoreTestConstants.TEST_SRC_PREFIX + "witness/compress1.txt.gz"));
+    }
+
     @Test
     public void test3() throws Exception {
         Compressor compressor = new Compressor(CompressionMode.ZIP);
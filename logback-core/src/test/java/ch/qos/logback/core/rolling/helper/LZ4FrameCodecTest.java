@@ -0,0 +1,245 @@
+/*
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2024, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.rolling.helper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import ch.qos.logback.core.Context;
+import ch.qos.logback.core.ContextBase;
+import ch.qos.logback.core.status.testUtil.StatusChecker;
+import ch.qos.logback.core.testUtil.CoreTestConstants;
+import ch.qos.logback.core.testUtil.RandomUtil;
+
+public class LZ4FrameCodecTest {
+
+    Context context = new ContextBase();
+
+    @Test
+    public void headerChecksum() {
+        Assertions.assertEquals(0x02CC5D05, LZ4FrameOutputStream.xxHash32(new byte[0], 0, 0, 0));
+        byte[] abc = "abc".getBytes(StandardCharsets.US_ASCII);
+        Assertions.assertEquals(0x32D153FF, LZ4FrameOutputStream.xxHash32(abc, 0, abc.length, 0));
+    }
+
+    /**
+     * Frames as written by the reference implementation, decoded with the same
+     * decoder as the frames written by {@link LZ4FrameCodec}. The first one is
+     * the output of the <code>lz4</code> command line tool for an empty input.
+     * The second one was hand-crafted from the frame format specification with
+     * the tool's default descriptor, 4MB blocks and a content checksum. It
+     * holds a compressed block, with a match overlapping its own output, and an
+     * uncompressed block.
+     */
+    @Test
+    public void decodesReferenceFrames() {
+        byte[] empty = { 0x04, 0x22, 0x4D, 0x18, 0x64, 0x40, (byte) 0xA7, 0x00, 0x00, 0x00, 0x00, 0x05, 0x5D,
+                (byte) 0xCC, 0x02 };
+        Assertions.assertArrayEquals(new byte[0], decodeFrame(empty));
+
+        byte[] frame = { 0x04, 0x22, 0x4D, 0x18, 0x64, 0x70, (byte) 0xB9, 0x0E, 0x00, 0x00, 0x00, 0x4F, 0x41, 0x42,
+                0x43, 0x44, 0x04, 0x00, 0x09, 0x50, 0x31, 0x32, 0x33, 0x34, 0x35, 0x05, 0x00, 0x00, (byte) 0x80, 0x74,
+                0x61, 0x69, 0x6C, 0x0A, 0x00, 0x00, 0x00, 0x00, 0x31, 0x3A, 0x7E, 0x07 };
+        String expected = "ABCD".repeat(8) + "12345" + "tail\n";
+        Assertions.assertEquals(expected, new String(decodeFrame(frame), StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    public void roundTrip() throws IOException {
+        Random random = new Random(42);
+        byte[] incompressible = new byte[100_000];
+        random.nextBytes(incompressible);
+
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 20_000; i++) {
+            sb.append("2024-01-01 12:00:00 [main] INFO  c.q.l.Sample - message number ").append(i).append('\n');
+        }
+        byte[] text = sb.toString().getBytes(StandardCharsets.US_ASCII);
+
+        for (byte[] input : new byte[][] { new byte[0], "a".getBytes(), "aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa".getBytes(),
+                incompressible, text }) {
+            byte[] compressed = compress(input);
+            Assertions.assertArrayEquals(input, decodeFrame(compressed));
+        }
+        Assertions.assertTrue(compress(text).length < text.length / 4);
+    }
+
+    @Test
+    public void compressorInLZ4Mode() throws IOException {
+        String prefix = CoreTestConstants.OUTPUT_DIR_PREFIX + "lz4-" + RandomUtil.getPositiveInt();
+        File source = new File(prefix + ".log");
+        source.getParentFile().mkdirs();
+        byte[] content = Files.readAllBytes(new File(CoreTestConstants.TEST_SRC_PREFIX + "input/compress2.copy").toPath());
+        Files.write(source.toPath(), content);
+
+        Compressor compressor = new Compressor(CompressionMode.LZ4);
+        compressor.setContext(context);
+        compressor.compress(source.getPath(), prefix + ".log", null);
+
+        StatusChecker checker = new StatusChecker(context);
+        Assertions.assertTrue(checker.isErrorFree(0));
+        Assertions.assertFalse(source.exists());
+        File target = new File(prefix + ".log.lz4");
+        Assertions.assertArrayEquals(content, decodeFrame(Files.readAllBytes(target.toPath())));
+        Assertions.assertEquals("foo-%d", Compressor.computeFileNameStrWithoutCompSuffix("foo-%d.lz4", CompressionMode.LZ4));
+    }
+
+    byte[] compress(byte[] input) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (OutputStream os = new LZ4FrameCodec().newCompressingStream(baos)) {
+            // uneven writes straddling block boundaries
+            int off = 0;
+            while (off < input.length) {
+                int n = Math.min(input.length - off, 7919);
+                os.write(input, off, n);
+                off += n;
+            }
+        }
+        return baos.toByteArray();
+    }
+
+    // independent blocks only, as written by default by the reference implementation
+    static byte[] decodeFrame(byte[] in) {
+        Assertions.assertEquals(LZ4FrameOutputStream.MAGIC, readInt(in, 0));
+        int flg = in[4] & 0xFF;
+        Assertions.assertEquals(0x40, flg & 0xC0, "version");
+        Assertions.assertEquals(0x20, flg & 0x20, "block independence");
+        boolean blockChecksum = (flg & 0x10) != 0;
+        boolean contentSize = (flg & 0x08) != 0;
+        boolean contentChecksum = (flg & 0x04) != 0;
+        boolean dictId = (flg & 0x01) != 0;
+        int blockMaxSize = 1 << (8 + 2 * ((in[5] >>> 4) & 7));
+        int descriptorLength = 2 + (contentSize ? 8 : 0) + (dictId ? 4 : 0);
+        Assertions.assertEquals((LZ4FrameOutputStream.xxHash32(in, 4, descriptorLength, 0) >>> 8) & 0xFF,
+                in[4 + descriptorLength] & 0xFF);
+
+        byte[] out = new byte[1024];
+        int outLen = 0;
+        int ip = 4 + descriptorLength + 1;
+        while (true) {
+            int blockSize = readInt(in, ip);
+            ip += 4;
+            if (blockSize == 0) {
+                break;
+            }
+            int size = blockSize & ~LZ4FrameOutputStream.UNCOMPRESSED_FLAG;
+            out = ensureCapacity(out, outLen + blockMaxSize);
+            if (blockSize != size) {
+                System.arraycopy(in, ip, out, outLen, size);
+                outLen += size;
+            } else {
+                outLen = decodeBlock(in, ip, ip + size, out, outLen);
+            }
+            ip += size;
+            if (blockChecksum) {
+                Assertions.assertEquals(xxHash32(in, ip - size, size), readInt(in, ip));
+                ip += 4;
+            }
+        }
+        if (contentChecksum) {
+            Assertions.assertEquals(xxHash32(out, 0, outLen), readInt(in, ip));
+            ip += 4;
+        }
+        Assertions.assertEquals(in.length, ip);
+        return Arrays.copyOf(out, outLen);
+    }
+
+    static int decodeBlock(byte[] in, int ip, int end, byte[] out, int op) {
+        int blockStart = op;
+        while (true) {
+            int token = in[ip++] & 0xFF;
+            int literalLength = token >>> 4;
+            if (literalLength == 15) {
+                int b;
+                do {
+                    b = in[ip++] & 0xFF;
+                    literalLength += b;
+                } while (b == 255);
+            }
+            System.arraycopy(in, ip, out, op, literalLength);
+            ip += literalLength;
+            op += literalLength;
+            if (ip == end) {
+                return op;
+            }
+            int offset = (in[ip] & 0xFF) | (in[ip + 1] & 0xFF) << 8;
+            ip += 2;
+            Assertions.assertTrue(offset > 0 && op - offset >= blockStart, "offset " + offset);
+            int matchLength = token & 15;
+            if (matchLength == 15) {
+                int b;
+                do {
+                    b = in[ip++] & 0xFF;
+                    matchLength += b;
+                } while (b == 255);
+            }
+            matchLength += LZ4FrameOutputStream.MIN_MATCH;
+            for (int i = 0; i < matchLength; i++, op++) {
+                out[op] = out[op - offset];
+            }
+        }
+    }
+
+    // xxHash32 of inputs of any length with a seed of 0, unlike the encoder's
+    static int xxHash32(byte[] b, int off, int len) {
+        int end = off + len;
+        int h;
+        if (len >= 16) {
+            int[] v = { LZ4FrameOutputStream.PRIME32_1 + LZ4FrameOutputStream.PRIME32_2,
+                    LZ4FrameOutputStream.PRIME32_2, 0, -LZ4FrameOutputStream.PRIME32_1 };
+            for (; off + 16 <= end; off += 16) {
+                for (int k = 0; k < 4; k++) {
+                    v[k] += readInt(b, off + 4 * k) * LZ4FrameOutputStream.PRIME32_2;
+                    v[k] = Integer.rotateLeft(v[k], 13) * LZ4FrameOutputStream.PRIME32_1;
+                }
+            }
+            h = Integer.rotateLeft(v[0], 1) + Integer.rotateLeft(v[1], 7) + Integer.rotateLeft(v[2], 12)
+                    + Integer.rotateLeft(v[3], 18);
+        } else {
+            h = LZ4FrameOutputStream.PRIME32_5;
+        }
+        h += len;
+        for (; off + 4 <= end; off += 4) {
+            h += readInt(b, off) * LZ4FrameOutputStream.PRIME32_3;
+            h = Integer.rotateLeft(h, 17) * LZ4FrameOutputStream.PRIME32_4;
+        }
+        for (; off < end; off++) {
+            h += (b[off] & 0xFF) * LZ4FrameOutputStream.PRIME32_5;
+            h = Integer.rotateLeft(h, 11) * LZ4FrameOutputStream.PRIME32_1;
+        }
+        h ^= h >>> 15;
+        h *= LZ4FrameOutputStream.PRIME32_2;
+        h ^= h >>> 13;
+        h *= LZ4FrameOutputStream.PRIME32_3;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    static byte[] ensureCapacity(byte[] b, int capacity) {
+        return b.length >= capacity ? b : Arrays.copyOf(b, Math.max(capacity, b.length * 2));
+    }
+
+    static int readInt(byte[] b, int i) {
+        return (b[i] & 0xFF) | (b[i + 1] & 0xFF) << 8 | (b[i + 2] & 0xFF) << 16 | (b[i + 3] & 0xFF) << 24;
+    }
+}
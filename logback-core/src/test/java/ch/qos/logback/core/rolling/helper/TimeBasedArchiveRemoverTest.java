@@ -0,0 +1,80 @@
+/*
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2024, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.rolling.helper;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import ch.qos.logback.core.Context;
+import ch.qos.logback.core.ContextBase;
+import ch.qos.logback.core.testUtil.CoreTestConstants;
+import ch.qos.logback.core.testUtil.RandomUtil;
+
+public class TimeBasedArchiveRemoverTest {
+
+    Context context = new ContextBase();
+    String outputDir = CoreTestConstants.OUTPUT_DIR_PREFIX + RandomUtil.getPositiveInt() + "/";
+    FileNamePattern fileNamePattern = new FileNamePattern(outputDir + "remover-%d{yyyy-MM-dd_HH}.log", context);
+    RollingCalendar rc = new RollingCalendar("yyyy-MM-dd_HH");
+    int lookups;
+
+    TimeBasedArchiveRemover remover = new TimeBasedArchiveRemover(fileNamePattern, rc) {
+        @Override
+        protected File[] getFilesInPeriod(Instant instantOfPeriodToClean) {
+            lookups++;
+            return super.getFilesInPeriod(instantOfPeriodToClean);
+        }
+    };
+
+    @Test
+    public void totalSizeCapIsEnforcedIncrementally() throws IOException {
+        remover.setContext(context);
+        remover.setMaxHistory(20);
+        remover.setTotalSizeCap(550);
+        Instant now = Instant.parse("2024-03-04T12:30:00Z");
+        File[] archives = new File[10];
+        for (int i = 0; i < archives.length; i++) {
+            archives[i] = createArchive(rc.getEndOfNextNthPeriod(now, -i));
+        }
+
+        remover.capTotalSize(now);
+        Assertions.assertEquals(20, lookups);
+        for (int i = 0; i < archives.length; i++) {
+            Assertions.assertEquals(i < 5, archives[i].exists(), archives[i].getName());
+        }
+
+        lookups = 0;
+        Instant nextHour = now.plus(1, ChronoUnit.HOURS);
+        File newest = createArchive(rc.getEndOfNextNthPeriod(nextHour, 0));
+        remover.capTotalSize(nextHour);
+        // the new period, the previously current one and the one before
+        Assertions.assertEquals(3, lookups);
+        Assertions.assertTrue(newest.exists());
+        Assertions.assertFalse(archives[4].exists());
+        Assertions.assertTrue(archives[3].exists());
+    }
+
+    File createArchive(Instant period) throws IOException {
+        File file = new File(fileNamePattern.convert(period));
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), new byte[100]);
+        return file;
+    }
+}
@@ -18,6 +18,8 @@ import ch.qos.logback.core.Context;
 import ch.qos.logback.core.ContextBase;
 import ch.qos.logback.core.FileAppender;
 import ch.qos.logback.core.encoder.EchoEncoder;
+import ch.qos.logback.core.recovery.ResilientFileOutputStream;
+import ch.qos.logback.core.status.Status;
 import ch.qos.logback.core.status.testUtil.StatusChecker;
 import ch.qos.logback.core.testUtil.CoreTestConstants;
 import ch.qos.logback.core.testUtil.RandomUtil;
@@ -26,6 +28,7 @@ import org.junit.jupiter.api.Test;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.channels.FileLock;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList;
@@ -95,6 +98,73 @@ public class PrudentModeTest {
 
     }
 
+    @Test
+    public void lockFreeAppendsKeepLinesIntact() throws IOException, InterruptedException {
+        fa.stop();
+        String lockFreeLogfileStr = outputDirStr + "lockFree.log";
+        // a single appender, file locks being per JVM. Every record fits in
+        // maxAtomicWriteSize, so that all writes are lock-free.
+        FileAppender<Object> appender = new FileAppender<Object>();
+        appender.setContext(context);
+        appender.setName("LOCK_FREE");
+        appender.setPrudent(true);
+        appender.setLockFreePrudent(true);
+        appender.setMaxAtomicWriteSize(new FileSize(64));
+        appender.setEncoder(new EchoEncoder<Object>());
+        appender.setFile(lockFreeLogfileStr);
+        appender.start();
+
+        List<Thread> threads = new ArrayList<>(THREAD_COUNT);
+        for (int t = 0; t < THREAD_COUNT; t++) {
+            String message = "message from thread " + t;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < LOOP_COUNT; i++) {
+                    appender.doAppend(message + " i=" + i);
+                    appender.doAppendBatch(List.of(message + " a", message + " b", message + " c"));
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        appender.stop();
+        statusChecker.assertIsWarningOrErrorFree();
+
+        List<String> allLines = Files.readAllLines(Paths.get(lockFreeLogfileStr));
+        assertEquals(LOOP_COUNT * THREAD_COUNT * 4, allLines.size());
+        for (String line : allLines) {
+            if (!line.matches("message from thread \\d+ (i=\\d+|a|b|c)")) {
+                fail("interleaved line [" + line + "]");
+            }
+        }
+    }
+
+    @Test
+    public void lockedWriteFromSecondAppenderIsReported() {
+        // another context, appenders of the same context may not share a file
+        Context secondContext = new ContextBase();
+        FileAppender<Object> second = new FileAppender<Object>();
+        second.setContext(secondContext);
+        second.setName("SECOND");
+        second.setPrudent(true);
+        second.setEncoder(new EchoEncoder<Object>());
+        second.setFile(logfileStr);
+        second.start();
+
+        ResilientFileOutputStream resilientFOS = (ResilientFileOutputStream) fa.getOutputStream();
+        try (FileLock lock = resilientFOS.getChannel().lock()) {
+            // the exception is reported instead of being thrown to the caller
+            second.doAppend("hello");
+        } catch (IOException e) {
+            fail(e.toString());
+        } finally {
+            second.stop();
+        }
+        new StatusChecker(secondContext).assertContainsMatch(Status.ERROR, "Failed to lock");
+    }
+
     class LoggerThread extends Thread {
         private final CountDownLatch latch;
         private final String message;